@@ -0,0 +1,104 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop load generator: {@code concurrency} clients each send GET requests back to back for
+ * {@code seconds} and the run reports throughput and latency percentiles. Clients run on virtual threads,
+ * so the generator itself is not capped by a thread pool.
+ * <p>
+ * java loadtest/LoadTest.java http://localhost:8080/api/users/1 1000 30 user@example.com:password
+ */
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: java loadtest/LoadTest.java <url> <concurrency> <seconds> [username:password]");
+            System.exit(1);
+        }
+        URI uri = URI.create(args[0]);
+        int concurrency = Integer.parseInt(args[1]);
+        Duration duration = Duration.ofSeconds(Long.parseLong(args[2]));
+
+        HttpRequest.Builder requestBuilder = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(60)).GET();
+        if (args.length > 3) {
+            String credentials = Base64.getEncoder().encodeToString(args[3].getBytes(StandardCharsets.UTF_8));
+            requestBuilder.header("Authorization", "Basic " + credentials);
+        }
+        HttpRequest request = requestBuilder.build();
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        AtomicLong errors = new AtomicLong();
+        List<long[]> latenciesPerClient = new ArrayList<>(concurrency);
+        long deadline = System.nanoTime() + duration.toNanos();
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                LatencyRecorder recorder = new LatencyRecorder();
+                clients.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 400) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        recorder.record(System.nanoTime() - start);
+                    }
+                    synchronized (latenciesPerClient) {
+                        latenciesPerClient.add(recorder.toArray());
+                    }
+                });
+            }
+        }
+
+        long[] latencies = latenciesPerClient.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        double throughput = latencies.length / (double) duration.toSeconds();
+
+        System.out.printf("requests=%d errors=%d throughput=%.1f req/s p50=%.1f ms p99=%.1f ms max=%.1f ms%n",
+                latencies.length, errors.get(), throughput,
+                percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 1.0));
+    }
+
+    private static double percentile(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(index, 0)] / 1_000_000.0;
+    }
+
+    private static final class LatencyRecorder {
+
+        private long[] nanos = new long[1024];
+        private int size;
+
+        void record(long latency) {
+            if (size == nanos.length) {
+                nanos = Arrays.copyOf(nanos, size * 2);
+            }
+            nanos[size++] = latency;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(nanos, size);
+        }
+    }
+}
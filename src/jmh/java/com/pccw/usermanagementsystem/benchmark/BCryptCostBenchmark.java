@@ -0,0 +1,44 @@
+package com.pccw.usermanagementsystem.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a single BCrypt {@code encode} (registration, updates) and {@code matches} (every Basic
+ * authentication that misses the authentication cache) per strength, to weigh a cost change against latency.
+ * Batch sizes are covered by {@link PasswordHashingBenchmark}; hashing is linear in the number of passwords.
+ * <p>
+ * mvn -P benchmarks verify -DskipTests -Djmh.args="BCryptCostBenchmark -p strength=10,12"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BCryptCostBenchmark {
+
+    @Param({"8", "10", "12"})
+    private int strength;
+
+    private BCryptPasswordEncoder passwordEncoder;
+    private String encodedPassword;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        passwordEncoder = new BCryptPasswordEncoder(strength);
+        encodedPassword = passwordEncoder.encode("defaultPassword");
+    }
+
+    @Benchmark
+    public String encode() {
+        return passwordEncoder.encode("defaultPassword");
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return passwordEncoder.matches("defaultPassword", encodedPassword);
+    }
+}
@@ -0,0 +1,109 @@
+package com.pccw.usermanagementsystem.benchmark;
+
+import com.pccw.usermanagementsystem.UserManagementSystemApplication;
+import com.pccw.usermanagementsystem.entity.User;
+import com.pccw.usermanagementsystem.entity.enums.Role;
+import com.pccw.usermanagementsystem.service.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Registers {@value #ROWS} users through {@link UserService#registerUsers}, the path of POST /api/users/register/bulk
+ * including the existence check and one welcome email outbox row per user, against the database configured by
+ * SPRING_DATASOURCE_URL (defaults to the local docker-compose Postgres). Reports time per user plus the number of
+ * JDBC statements Hibernate prepared and the rows it inserted, users and outbox rows together.
+ * <p>
+ * Passwords are hashed at the lowest BCrypt cost, so the time is dominated by the database rather than hashing.
+ * <p>
+ * {@code batchSize=1, reWriteBatchedInserts=false} reproduces the old behaviour of one INSERT round trip per row;
+ * {@code batchSize=50, reWriteBatchedInserts=true} is the current configuration.
+ * <p>
+ * mvn -P benchmarks verify -DskipTests -Djmh.args="BulkInsertBenchmark"
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BulkInsertBenchmark {
+
+    private static final int ROWS = 10_000;
+
+
+    @Param({"1", "50"})
+    private int batchSize;
+
+    @Param({"false", "true"})
+    private boolean reWriteBatchedInserts;
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+    private JdbcTemplate jdbcTemplate;
+    private Statistics statistics;
+    private String runPrefix;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class StatementCounters {
+        public long statementsPrepared;
+        public long rowsInserted;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(UserManagementSystemApplication.class)
+                // The security filter chain needs the MVC exception resolver, so this starts a servlet context on a random port
+                .web(WebApplicationType.SERVLET)
+                // Command line arguments, so they take precedence over application.properties
+                .run("--server.port=0",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.generate_statistics=true",
+                        "--spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize,
+                        "--spring.datasource.hikari.data-source-properties.reWriteBatchedInserts=" + reWriteBatchedInserts,
+                        "--app.email.outbox.dispatcher.enabled=false",
+                        "--app.security.password.bcrypt-strength=4",
+                        "--logging.level.root=WARN");
+
+        userService = context.getBean(UserService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        runPrefix = "bench-" + UUID.randomUUID().toString().substring(0, 8) + "-";
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteInsertedRows() {
+        jdbcTemplate.update("DELETE FROM email_outbox WHERE recipient LIKE ?", runPrefix + "%");
+        jdbcTemplate.update("DELETE FROM users WHERE username LIKE ?", runPrefix + "%");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void registerUsers(StatementCounters counters) {
+        List<User> users = IntStream.range(0, ROWS)
+                .mapToObj(i -> new User(null, runPrefix + i + "@example.com", "password" + i, Role.USER, true))
+                .toList();
+
+        statistics.clear();
+        userService.registerUsers(users);
+
+        counters.statementsPrepared += statistics.getPrepareStatementCount();
+        counters.rowsInserted += statistics.getEntityInsertCount();
+    }
+}
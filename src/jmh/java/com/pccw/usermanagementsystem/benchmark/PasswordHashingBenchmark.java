@@ -0,0 +1,69 @@
+package com.pccw.usermanagementsystem.benchmark;
+
+import com.pccw.usermanagementsystem.service.PasswordHashingService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Wall-clock time to hash one bulk request worth of passwords, sequentially on the caller thread
+ * versus on the {@link PasswordHashingService} pool with a given number of threads.
+ * <p>
+ * mvn -P benchmarks verify -DskipTests -Djmh.args="PasswordHashingBenchmark -p batchSize=100 -p poolSize=1,2,4"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PasswordHashingBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int batchSize;
+
+    @Param({"1", "2", "4", "8"})
+    private int poolSize;
+
+    @Param({"10"})
+    private int bcryptStrength;
+
+    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
+    private List<String> rawPasswords;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        passwordEncoder = new BCryptPasswordEncoder(bcryptStrength);
+        // Room for the whole batch and no deadline in practice, so only the hashing itself is measured
+        passwordHashingService = new PasswordHashingService(passwordEncoder, poolSize, batchSize, Duration.ofMinutes(5));
+        rawPasswords = IntStream.range(0, batchSize).mapToObj(i -> "password" + i).toList();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        passwordHashingService.shutdown();
+    }
+
+    @Benchmark
+    public List<String> sequential() {
+        List<String> encoded = new ArrayList<>(rawPasswords.size());
+        for (String rawPassword : rawPasswords) {
+            encoded.add(passwordEncoder.encode(rawPassword));
+        }
+        return encoded;
+    }
+
+    @Benchmark
+    public List<String> pooled() {
+        try (PasswordHashingService.HashingBatch hashing = passwordHashingService.encodeAll(rawPasswords)) {
+            return hashing.join();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.pccw.usermanagementsystem.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.pccw.usermanagementsystem.dto.UserRequestDTO;
+import com.pccw.usermanagementsystem.dto.UserResponseDTO;
+import com.pccw.usermanagementsystem.mapper.UserMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson cost of the bulk endpoints: reading a {@code List<UserRequestDTO>} request body and writing the
+ * {@code List<UserResponseDTO>} response, with an {@link ObjectMapper} configured the way Spring MVC builds it.
+ * <p>
+ * mvn -P benchmarks verify -DskipTests -Djmh.args="UserJsonBenchmark"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserJsonBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int batchSize;
+
+    private ObjectReader requestReader;
+    private ObjectWriter responseWriter;
+    private byte[] requestBody;
+    private List<UserResponseDTO> responses;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        requestReader = objectMapper.readerFor(new TypeReference<List<UserRequestDTO>>() {});
+        responseWriter = objectMapper.writerFor(new TypeReference<List<UserResponseDTO>>() {});
+
+        requestBody = objectMapper.writeValueAsBytes(UserPayloads.requests(batchSize));
+        responses = new UserMapper().toDTOs(UserPayloads.users(batchSize));
+    }
+
+    @Benchmark
+    public List<UserRequestDTO> readRequests() throws IOException {
+        return requestReader.readValue(requestBody);
+    }
+
+    @Benchmark
+    public byte[] writeResponses() throws IOException {
+        return responseWriter.writeValueAsBytes(responses);
+    }
+}
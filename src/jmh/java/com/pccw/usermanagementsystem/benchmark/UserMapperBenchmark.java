@@ -0,0 +1,64 @@
+package com.pccw.usermanagementsystem.benchmark;
+
+import com.pccw.usermanagementsystem.dto.UserRequestDTO;
+import com.pccw.usermanagementsystem.dto.UserResponseDTO;
+import com.pccw.usermanagementsystem.entity.User;
+import com.pccw.usermanagementsystem.entity.enums.Role;
+import com.pccw.usermanagementsystem.mapper.UserMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping cost of one request body: {@link UserMapper#toEntity(UserRequestDTO)} for every element of a bulk
+ * registration, {@link UserMapper#toDTOs} for the response, and {@link Role#fromValue} on its own.
+ * <p>
+ * mvn -P benchmarks verify -DskipTests -Djmh.args="UserMapperBenchmark"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserMapperBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int batchSize;
+
+    private final UserMapper userMapper = new UserMapper();
+    private List<UserRequestDTO> requests;
+    private List<User> users;
+    private String[] roleValues;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        requests = UserPayloads.requests(batchSize);
+        users = UserPayloads.users(batchSize);
+        roleValues = requests.stream().map(UserRequestDTO::getRole).toArray(String[]::new);
+    }
+
+    @Benchmark
+    public List<User> toEntities() {
+        List<User> entities = new ArrayList<>(requests.size());
+        for (UserRequestDTO request : requests) {
+            entities.add(userMapper.toEntity(request));
+        }
+        return entities;
+    }
+
+    @Benchmark
+    public List<UserResponseDTO> toDTOs() {
+        return userMapper.toDTOs(users);
+    }
+
+    @Benchmark
+    public void roleFromValue(Blackhole blackhole) {
+        for (String roleValue : roleValues) {
+            blackhole.consume(Role.fromValue(roleValue));
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.pccw.usermanagementsystem.benchmark;
+
+import com.pccw.usermanagementsystem.dto.UserRequestDTO;
+import com.pccw.usermanagementsystem.entity.User;
+import com.pccw.usermanagementsystem.entity.enums.Role;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Request and entity fixtures shared by the hot path benchmarks, built the same way for every batch size.
+ */
+final class UserPayloads {
+
+    // Any valid BCrypt hash; mapping and serialization never look at it
+    static final String ENCODED_PASSWORD = "$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z5C0dGfP9b5nSKXgl1ZD4hJe";
+
+    private UserPayloads() {
+    }
+
+    static List<UserRequestDTO> requests(int size) {
+        return IntStream.range(0, size)
+                .mapToObj(i -> new UserRequestDTO("user" + i + "@example.com", "password" + i, roleValue(i), i % 10 != 0))
+                .toList();
+    }
+
+    static List<User> users(int size) {
+        return IntStream.range(0, size)
+                .mapToObj(i -> new User((long) i + 1, "user" + i + "@example.com", ENCODED_PASSWORD, i % 5 == 0 ? Role.ADMIN : Role.USER, i % 10 != 0))
+                .toList();
+    }
+
+    // Mix the casing clients actually send, so Role.fromValue pays for the lower-casing
+    static String roleValue(int i) {
+        return switch (i % 4) {
+            case 0 -> "ADMIN";
+            case 1 -> "user";
+            case 2 -> "User";
+            default -> "USER";
+        };
+    }
+}
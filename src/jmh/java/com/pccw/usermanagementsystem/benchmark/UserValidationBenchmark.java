@@ -0,0 +1,74 @@
+package com.pccw.usermanagementsystem.benchmark;
+
+import com.pccw.usermanagementsystem.config.PaginationProperties;
+import com.pccw.usermanagementsystem.controller.UserController;
+import com.pccw.usermanagementsystem.dto.UserRequestDTO;
+import com.pccw.usermanagementsystem.mapper.UserMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import jakarta.validation.executable.ExecutableValidator;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bean Validation of the bulk registration body, i.e. the method validation Spring runs for
+ * {@code @Valid @RequestBody List<@NotNull UserRequestDTO>} on {@link UserController#registerUsers}.
+ * {@code invalidEvery=0} validates a clean batch; {@code invalidEvery=10} breaks every tenth password
+ * so the cost of building violations is included.
+ * <p>
+ * mvn -P benchmarks verify -DskipTests -Djmh.args="UserValidationBenchmark"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserValidationBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int batchSize;
+
+    @Param({"0", "10"})
+    private int invalidEvery;
+
+    private ValidatorFactory validatorFactory;
+    private ExecutableValidator executableValidator;
+    private UserController controller;
+    private Method registerUsers;
+    private Object[] arguments;
+
+    @Setup(Level.Trial)
+    public void setUp() throws NoSuchMethodException {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        executableValidator = validatorFactory.getValidator().forExecutables();
+
+        // Only the parameter constraints are evaluated, the controller is never invoked, so no services
+        controller = new UserController(null, null, null, new UserMapper(), new PaginationProperties(),
+                validatorFactory.getValidator());
+        registerUsers = UserController.class.getMethod("registerUsers", List.class);
+
+        List<UserRequestDTO> requests = UserPayloads.requests(batchSize);
+        if (invalidEvery > 0) {
+            for (int i = 0; i < requests.size(); i += invalidEvery) {
+                requests.get(i).setPassword("short");
+            }
+        }
+        arguments = new Object[]{requests};
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UserController>> validateRegisterUsers() {
+        return executableValidator.validateParameters(controller, registerUsers, arguments);
+    }
+}
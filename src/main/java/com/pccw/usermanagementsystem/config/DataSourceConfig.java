@@ -0,0 +1,78 @@
+package com.pccw.usermanagementsystem.config;
+
+import com.pccw.usermanagementsystem.datasource.ReadRouting;
+import com.pccw.usermanagementsystem.datasource.ReplicaProperties;
+import com.pccw.usermanagementsystem.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sends read-only transactions to the replicas in {@code app.datasource.replicas} and everything else to the
+ * primary in {@code spring.datasource}.
+ * <p>
+ * The DataSource everyone uses is a {@link LazyConnectionDataSourceProxy}: it only fetches a connection at the
+ * first statement, after the transaction manager has marked it read-only, and takes read-only ones from
+ * {@link ReplicaRoutingDataSource}.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    // Same binding as the pool Spring Boot would create; its auto-configuration backs off once we define a DataSource
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+                                                             DataSourceProperties primaryProperties,
+                                                             ReplicaProperties replicaProperties,
+                                                             ReadRouting readRouting,
+                                                             MeterRegistry meterRegistry) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (ReplicaProperties.Replica replica : replicaProperties.getReplicas()) {
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(primaryProperties.determineDriverClassName())
+                    .url(replica.getUrl())
+                    .username(replica.getUsername() != null ? replica.getUsername() : primaryProperties.determineUsername())
+                    .password(replica.getPassword() != null ? replica.getPassword() : primaryProperties.determinePassword())
+                    .build();
+            dataSource.setPoolName("replica-" + (replicas.size() + 1));
+            dataSource.setReadOnly(true);
+            dataSource.setMaximumPoolSize(replicaProperties.getReplicaPoolSize());
+            dataSource.setConnectionTimeout(replicaProperties.getReplicaConnectionTimeout().toMillis());
+            // Start even when a replica is down; the health check brings it into rotation once it answers
+            dataSource.setInitializationFailTimeout(-1);
+            dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.add(dataSource);
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, readRouting, replicaProperties.getMaxReplicationLag());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource,
+                                 ReplicaRoutingDataSource replicaRoutingDataSource,
+                                 ReplicaProperties replicaProperties) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        // Without replicas read-only transactions stay on the primary, on connections marked read-only
+        if (!replicaProperties.getReplicas().isEmpty()) {
+            dataSource.setReadOnlyDataSource(replicaRoutingDataSource);
+        }
+        return dataSource;
+    }
+}
@@ -0,0 +1,127 @@
+package com.pccw.usermanagementsystem.config;
+
+import com.pccw.usermanagementsystem.datasource.ReplicaRoutingDataSource;
+import com.pccw.usermanagementsystem.security.AuthenticationCache;
+import com.pccw.usermanagementsystem.service.PasswordHashingService;
+import com.pccw.usermanagementsystem.service.UserCache;
+import com.pccw.usermanagementsystem.service.UserLookupCoalescer;
+import com.pccw.usermanagementsystem.service.UsernameFilter;
+import com.pccw.usermanagementsystem.service.jobs.UserJobRunner;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Application meters on top of what Actuator binds by itself (http.server.requests per endpoint,
+ * spring.data.repository.invocations, hikaricp.connections.*). Histograms and percentiles are
+ * configured per meter prefix in application.properties.
+ */
+@Configuration
+public class MetricsConfig {
+
+    // Makes @Timed on Spring beans (UserService, EmailService) record timers
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Bean
+    public MeterBinder authenticationCacheMetrics(AuthenticationCache authenticationCache) {
+        return registry -> {
+            FunctionCounter.builder("user.auth.cache.requests", authenticationCache, AuthenticationCache::getHitCount)
+                    .tag("result", "hit")
+                    .description("Authentications answered from the authentication cache")
+                    .register(registry);
+            FunctionCounter.builder("user.auth.cache.requests", authenticationCache, AuthenticationCache::getMissCount)
+                    .tag("result", "miss")
+                    .description("Authentications that fell through to the database and BCrypt")
+                    .register(registry);
+            FunctionCounter.builder("user.auth.cache.evictions", authenticationCache, AuthenticationCache::getEvictionCount)
+                    .description("Entries evicted from the authentication cache by size or TTL")
+                    .register(registry);
+            Gauge.builder("user.auth.cache.size", authenticationCache, AuthenticationCache::getSize)
+                    .description("Approximate number of cached authentications")
+                    .register(registry);
+        };
+    }
+
+    // cache.gets{result=hit|miss}, cache.evictions, cache.size ... tagged cache=users.by-id / users.by-username
+    @Bean
+    public MeterBinder userCacheMetrics(UserCache userCache) {
+        return userCache::bindMetrics;
+    }
+
+    // user.lookup.calls{lookup=by-id|by-username,result=queried|coalesced}
+    @Bean
+    public MeterBinder userLookupMetrics(UserLookupCoalescer userLookupCoalescer) {
+        return userLookupCoalescer::bindMetrics;
+    }
+
+    // user.jobs.running, user.jobs.items{result=succeeded|failed}; absent when the job runner is disabled
+    @Bean
+    public MeterBinder userJobMetrics(ObjectProvider<UserJobRunner> userJobRunner) {
+        return registry -> userJobRunner.ifAvailable(runner -> runner.bindMetrics(registry));
+    }
+
+    @Bean
+    public MeterBinder usernameFilterMetrics(UsernameFilter usernameFilter) {
+        return registry -> {
+            FunctionCounter.builder("user.username.filter.checks", usernameFilter, UsernameFilter::getDefinitelyAbsentCount)
+                    .tag("result", "absent")
+                    .description("Username existence checks, by whether the filter ruled the username out")
+                    .register(registry);
+            FunctionCounter.builder("user.username.filter.checks", usernameFilter, UsernameFilter::getPossiblyPresentCount)
+                    .tag("result", "maybe")
+                    .description("Username existence checks, by whether the filter ruled the username out")
+                    .register(registry);
+            FunctionCounter.builder("user.username.filter.false.positives", usernameFilter, UsernameFilter::getFalsePositiveCount)
+                    .description("Possible matches the database did not confirm")
+                    .register(registry);
+            Gauge.builder("user.username.filter.size", usernameFilter, UsernameFilter::getApproximateSize)
+                    .description("Usernames added to the filter since it was last built")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder replicaRoutingMetrics(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return registry -> {
+            FunctionCounter.builder("user.datasource.read.connections", replicaRoutingDataSource, ReplicaRoutingDataSource::getReplicaConnectionCount)
+                    .tag("target", "replica")
+                    .description("Connections handed to read-only transactions, by where they were routed")
+                    .register(registry);
+            FunctionCounter.builder("user.datasource.read.connections", replicaRoutingDataSource, ReplicaRoutingDataSource::getPrimaryConnectionCount)
+                    .tag("target", "primary")
+                    .description("Connections handed to read-only transactions, by where they were routed")
+                    .register(registry);
+            Gauge.builder("user.datasource.replicas.healthy", replicaRoutingDataSource, ReplicaRoutingDataSource::getHealthyReplicaCount)
+                    .description("Replicas currently in rotation")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder passwordHashingMetrics(PasswordHashingService passwordHashingService) {
+        return registry -> {
+            Gauge.builder("user.password.hashing.queue", passwordHashingService, PasswordHashingService::getQueueDepth)
+                    .description("Hashes waiting for a hashing thread")
+                    .register(registry);
+            Gauge.builder("user.password.hashing.active", passwordHashingService, PasswordHashingService::getActiveCount)
+                    .description("Hashing threads currently busy")
+                    .register(registry);
+            FunctionCounter.builder("user.password.hashing.rejected", passwordHashingService, PasswordHashingService::getRejectedFullCount)
+                    .tag("reason", "queue-full")
+                    .description("Hashes shed with a 503, by why they were not run")
+                    .register(registry);
+            FunctionCounter.builder("user.password.hashing.rejected", passwordHashingService, PasswordHashingService::getRejectedDeadlineCount)
+                    .tag("reason", "deadline")
+                    .description("Hashes shed with a 503, by why they were not run")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,23 @@
+package com.pccw.usermanagementsystem.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.pagination")
+public class PaginationProperties {
+
+    private int defaultPageSize = 50;
+
+    // Hard cap; larger requested sizes are clamped to it
+    private int maxPageSize = 500;
+
+    public int resolvePageSize(Integer requestedSize) {
+        if (requestedSize == null) {
+            return Math.min(defaultPageSize, maxPageSize);
+        }
+        return Math.min(requestedSize, maxPageSize);
+    }
+}
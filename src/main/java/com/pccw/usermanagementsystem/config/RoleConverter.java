@@ -0,0 +1,18 @@
+package com.pccw.usermanagementsystem.config;
+
+import com.pccw.usermanagementsystem.entity.enums.Role;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+
+/**
+ * Binds request parameters such as {@code role=admin} using the same lower-case values the API returns.
+ * An unknown value fails conversion and is answered with 400 Type Mismatch.
+ */
+@Component
+public class RoleConverter implements Converter<String, Role> {
+
+    @Override
+    public Role convert(String source) {
+        return Role.fromValue(source.trim());
+    }
+}
@@ -1,10 +1,22 @@
 package com.pccw.usermanagementsystem.config;
 
 
+import com.pccw.usermanagementsystem.security.AuthenticationCache;
+import com.pccw.usermanagementsystem.security.BearerTokenAuthenticationFilter;
+import com.pccw.usermanagementsystem.security.CachingAuthenticationProvider;
 import com.pccw.usermanagementsystem.security.CustomUserDetailsService;
+import com.pccw.usermanagementsystem.security.HashingOverloadFilter;
+import com.pccw.usermanagementsystem.security.PooledPasswordEncoder;
+import com.pccw.usermanagementsystem.security.TimedPasswordEncoder;
+import com.pccw.usermanagementsystem.security.TokenService;
+import com.pccw.usermanagementsystem.service.PasswordHashingService;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
@@ -14,8 +26,14 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+import java.util.Map;
 
 import static org.springframework.security.config.Customizer.withDefaults;
 
@@ -24,43 +42,62 @@ import static org.springframework.security.config.Customizer.withDefaults;
 @RequiredArgsConstructor
 public class SecurityConfig {
 
+    private static final String BCRYPT_ID = "bcrypt";
+
     private final CustomUserDetailsService userDetailsService;
+    private final AuthenticationCache authenticationCache;
+    private final MeterRegistry meterRegistry;
+    private final TokenService tokenService;
 
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http,
+                                                   @Qualifier("handlerExceptionResolver") HandlerExceptionResolver handlerExceptionResolver) throws Exception {
         http
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers( "/api/users/register","/swagger-ui.html", "/swagger-ui/**", "/v3/api-docs/**").permitAll()
+                        .requestMatchers("/api/auth/login", "/api/auth/refresh").permitAll()
+                        .requestMatchers( "/api/users/register", "/api/users/availability","/swagger-ui.html", "/swagger-ui/**", "/v3/api-docs/**").permitAll()
+                        // Probes and the Prometheus scrape; keep /actuator off the public ingress
+                        .requestMatchers("/actuator/health/**", "/actuator/prometheus").permitAll()
                         .anyRequest().authenticated()
                 )
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                // Basic authentication hashes in the filter chain; a request shed by the hashing pool gets a 503
+                .addFilterBefore(new HashingOverloadFilter(handlerExceptionResolver), BasicAuthenticationFilter.class)
+                // Bearer tokens from /api/auth/login are checked first; Basic authentication remains available
+                .addFilterBefore(new BearerTokenAuthenticationFilter(tokenService, new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)),
+                        BasicAuthenticationFilter.class)
                 .httpBasic(withDefaults());
 
         return http.build();
     }
 
     @Bean
-    public AuthenticationManager authenticationManager(HttpSecurity http) throws Exception {
+    public AuthenticationManager authenticationManager(HttpSecurity http, AuthenticationProvider authenticationProvider) throws Exception {
         AuthenticationManagerBuilder authenticationManagerBuilder =
                 http.getSharedObject(AuthenticationManagerBuilder.class);
-        authenticationManagerBuilder
-                .userDetailsService(userDetailsService)
-                .passwordEncoder(passwordEncoder());
+        authenticationManagerBuilder.authenticationProvider(authenticationProvider);
         return authenticationManagerBuilder.build();
     }
 
     @Bean
-    public AuthenticationProvider authenticationProvider() {
+    public AuthenticationProvider authenticationProvider(PasswordHashingService passwordHashingService) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
-        authProvider.setPasswordEncoder(passwordEncoder());
-        return authProvider;
+        authProvider.setUserDetailsPasswordService(userDetailsService);
+        // Password checks run on the bounded hashing pool, not on the request thread
+        authProvider.setPasswordEncoder(new PooledPasswordEncoder(passwordHashingService));
+        return new CachingAuthenticationProvider(authProvider, authenticationCache);
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${app.security.password.bcrypt-strength:10}") int bcryptStrength) {
+        // New hashes are stored as {bcrypt}<hash>; hashes of another id, an older cost, or without a prefix (stored
+        // before prefixes were introduced, all BCrypt) still match and are rehashed on the next successful login
+        PasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+        DelegatingPasswordEncoder delegatingEncoder = new DelegatingPasswordEncoder(BCRYPT_ID, Map.of(BCRYPT_ID, bcrypt));
+        delegatingEncoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return new TimedPasswordEncoder(delegatingEncoder, meterRegistry);
     }
 }
@@ -0,0 +1,60 @@
+package com.pccw.usermanagementsystem.controller;
+
+import com.pccw.usermanagementsystem.dto.LoginRequestDTO;
+import com.pccw.usermanagementsystem.dto.RefreshTokenRequestDTO;
+import com.pccw.usermanagementsystem.dto.TokenResponseDTO;
+import com.pccw.usermanagementsystem.entity.User;
+import com.pccw.usermanagementsystem.security.TokenService;
+import com.pccw.usermanagementsystem.service.UserService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/auth")
+@RequiredArgsConstructor
+@Validated
+@Tag(name = "Authentication", description = "Endpoints for obtaining and refreshing bearer tokens")
+public class AuthController {
+
+    private final AuthenticationManager authenticationManager;
+    private final UserService userService;
+    private final TokenService tokenService;
+
+    @Operation(summary = "Log in", description = "Verifies the username and password once and returns a short-lived access token and a refresh token.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Tokens issued"),
+            @ApiResponse(responseCode = "401", description = "Invalid username or password")
+    })
+    @PostMapping("/login")
+    public ResponseEntity<TokenResponseDTO> login(@Valid @RequestBody LoginRequestDTO loginRequestDTO) {
+        authenticationManager.authenticate(UsernamePasswordAuthenticationToken.unauthenticated(
+                loginRequestDTO.getUsername(), loginRequestDTO.getPassword()));
+
+        User user = userService.findUserByUsername(loginRequestDTO.getUsername())
+                .orElseThrow(() -> new BadCredentialsException("Bad credentials"));
+        return ResponseEntity.ok(tokenService.issueTokens(user));
+    }
+
+    @Operation(summary = "Refresh tokens", description = "Exchanges a refresh token for a new access token and refresh token.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Tokens issued"),
+            @ApiResponse(responseCode = "401", description = "Refresh token is invalid, expired or revoked")
+    })
+    @PostMapping("/refresh")
+    public ResponseEntity<TokenResponseDTO> refresh(@Valid @RequestBody RefreshTokenRequestDTO refreshTokenRequestDTO) {
+        return ResponseEntity.ok(tokenService.refresh(refreshTokenRequestDTO.getRefreshToken()));
+    }
+}
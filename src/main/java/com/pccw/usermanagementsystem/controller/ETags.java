@@ -0,0 +1,68 @@
+package com.pccw.usermanagementsystem.controller;
+
+import com.pccw.usermanagementsystem.dto.UserResponseDTO;
+import com.pccw.usermanagementsystem.exception.PreconditionFailedException;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Strong entity tags derived from row versions, e.g. {@code "42"}.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String of(Long version) {
+        return version == null ? null : "\"" + version + "\"";
+    }
+
+    /**
+     * Tag of a listing page: a digest of the id and version of every user on it and of whether another page follows.
+     * Any insert, update or delete that changes what the page shows changes the tag, without a table-wide counter
+     * that every write would have to update.
+     */
+    static String ofPage(List<UserResponseDTO> page, boolean hasNext) {
+        MessageDigest digest = sha256();
+        ByteBuffer row = ByteBuffer.allocate(16);
+        for (UserResponseDTO user : page) {
+            row.clear();
+            digest.update(row.putLong(user.getId()).putLong(user.getVersion() == null ? -1 : user.getVersion()).array());
+        }
+        digest.update((byte) (hasNext ? 1 : 0));
+        // 128 bits are plenty to tell pages apart
+        return "\"p" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+    }
+
+    /**
+     * The version an If-Match header requires, or null when there is no precondition ({@code *} or no header).
+     * Only a single strong tag can match: weak or unparseable tags, or several tags, fail the precondition.
+     */
+    static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+
+        String tag = ifMatch.trim();
+        if (tag.length() < 3 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"') {
+            throw new PreconditionFailedException("If-Match must be a single strong ETag, e.g. \"3\"");
+        }
+        try {
+            return Long.parseLong(tag.substring(1, tag.length() - 1));
+        } catch (NumberFormatException e) {
+            throw new PreconditionFailedException("If-Match does not match the current version");
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -1,23 +1,58 @@
 package com.pccw.usermanagementsystem.controller;
 
+import com.pccw.usermanagementsystem.config.PaginationProperties;
+import com.pccw.usermanagementsystem.dto.BulkUserPatchRequestDTO;
+import com.pccw.usermanagementsystem.dto.RegistrationStatus;
 import com.pccw.usermanagementsystem.dto.UpdateUserRequestDTO;
+import com.pccw.usermanagementsystem.dto.UserImportResultDTO;
+import com.pccw.usermanagementsystem.dto.UserPatchRequestDTO;
+import com.pccw.usermanagementsystem.dto.UserRegistrationResultDTO;
 import com.pccw.usermanagementsystem.dto.UserRequestDTO;
+import com.pccw.usermanagementsystem.dto.UserPageResponseDTO;
 import com.pccw.usermanagementsystem.dto.UserResponseDTO;
+import com.pccw.usermanagementsystem.dto.UsernameAvailabilityDTO;
 import com.pccw.usermanagementsystem.entity.User;
+import com.pccw.usermanagementsystem.entity.enums.Role;
 import com.pccw.usermanagementsystem.mapper.UserMapper;
+import com.pccw.usermanagementsystem.pagination.KeysetCursor;
+import com.pccw.usermanagementsystem.pagination.UserSearchSort;
+import com.pccw.usermanagementsystem.repository.UserSearchCriteria;
 import com.pccw.usermanagementsystem.service.UserService;
+import com.pccw.usermanagementsystem.service.exporting.ExportFormat;
+import com.pccw.usermanagementsystem.service.exporting.UserExportService;
+import com.pccw.usermanagementsystem.service.importing.ImportFormat;
+import com.pccw.usermanagementsystem.service.importing.UserImportService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @RestController
@@ -27,8 +62,17 @@ import java.util.stream.Collectors;
 @Tag(name = "User Management", description = "Endpoints for managing users")
 public class UserController {
 
+    private static final String MERGE_PATCH_JSON_VALUE = "application/merge-patch+json";
+
+    // Clients may keep a copy but must revalidate it, which a matching ETag answers with an empty 304
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
     private final UserService userService;
+    private final UserImportService userImportService;
+    private final UserExportService userExportService;
     private final UserMapper userMapper;
+    private final PaginationProperties paginationProperties;
+    private final Validator validator;
 
 
 
@@ -62,42 +106,207 @@ public class UserController {
         return ResponseEntity.status(201).body(userResponseDTOs);
     }
 
-    @Operation(summary = "Get a user by ID", description = "This endpoint returns a user by their ID.")
+    @PostMapping("/register/bulk-idempotent")
+    @Operation(summary = "Register multiple users, skipping existing ones",
+            description = "Registers every valid user whose username is not taken yet in a single INSERT and reports a status per item " +
+                    "(created, already-exists or invalid). Safe to retry with the same payload after a partial failure.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Per-item registration results, in request order"),
+            @ApiResponse(responseCode = "400", description = "Malformed request body")
+    })
+    public ResponseEntity<List<UserRegistrationResultDTO>> registerUsersIdempotently(@RequestBody List<@NotNull UserRequestDTO> userRequestDTOs) {
+        List<UserRegistrationResultDTO> results = new ArrayList<>(userRequestDTOs.size());
+        Map<String, Integer> pendingIndexByUsername = new LinkedHashMap<>();
+        List<User> pendingUsers = new ArrayList<>();
+
+        // Invalid items are reported individually instead of rejecting the whole request
+        for (int i = 0; i < userRequestDTOs.size(); i++) {
+            UserRequestDTO userRequestDTO = userRequestDTOs.get(i);
+            List<String> errors = validator.validate(userRequestDTO).stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.toList());
+
+            User user = null;
+            if (errors.isEmpty()) {
+                try {
+                    user = userMapper.toEntity(userRequestDTO);
+                } catch (IllegalArgumentException e) {
+                    errors.add("role: " + e.getMessage());
+                }
+            }
+            if (errors.isEmpty() && pendingIndexByUsername.containsKey(userRequestDTO.getUsername())) {
+                errors.add("username: duplicate of item " + pendingIndexByUsername.get(userRequestDTO.getUsername()));
+            }
+
+            if (errors.isEmpty()) {
+                pendingIndexByUsername.put(userRequestDTO.getUsername(), i);
+                pendingUsers.add(user);
+                results.add(null);
+            } else {
+                results.add(new UserRegistrationResultDTO(i, userRequestDTO.getUsername(), RegistrationStatus.INVALID, null, errors));
+            }
+        }
+
+        Map<String, User> createdByUsername = userService.registerUsersSkippingExisting(pendingUsers).stream()
+                .collect(Collectors.toMap(User::getUsername, Function.identity()));
+
+        pendingIndexByUsername.forEach((username, index) -> {
+            User created = createdByUsername.get(username);
+            results.set(index, created != null
+                    ? new UserRegistrationResultDTO(index, username, RegistrationStatus.CREATED, userMapper.toDTO(created), null)
+                    : new UserRegistrationResultDTO(index, username, RegistrationStatus.ALREADY_EXISTS, null, null));
+        });
+        return ResponseEntity.ok(results);
+    }
+
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    @Operation(summary = "Import users from a CSV or NDJSON file",
+            description = "Streams the request body: rows are validated and hashed in chunks, loaded with COPY into a staging table and " +
+                    "merged into users, skipping usernames that already exist. CSV needs a header row naming username, password, role and enabled.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Import summary with counts and the first rows that were not created"),
+            @ApiResponse(responseCode = "400", description = "Missing or incomplete CSV header")
+    })
+    public ResponseEntity<UserImportResultDTO> importUsers(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                           InputStream body) throws IOException {
+        return ResponseEntity.ok(userImportService.importUsers(body, ImportFormat.fromContentType(contentType)));
+    }
+
+    @Operation(summary = "Check whether a username is free", description = "Answers from an in-memory filter when the username is " +
+            "definitely not registered and checks the database otherwise. Intended for live checks in the signup form.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Availability of the username"),
+            @ApiResponse(responseCode = "400", description = "Username is not a valid email address")
+    })
+    @GetMapping("/availability")
+    public ResponseEntity<UsernameAvailabilityDTO> checkUsernameAvailability(@RequestParam("username") @NotBlank @Email String username) {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(new UsernameAvailabilityDTO(username, userService.isUsernameAvailable(username)));
+    }
+
+    @Operation(summary = "Get a user by ID", description = "This endpoint returns a user by their ID. The ETag header carries " +
+            "the user's version: send it back in If-None-Match to get an empty 304 while the user is unchanged, or in If-Match to update it.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "User found"),
+            @ApiResponse(responseCode = "304", description = "User unchanged since the ETag in If-None-Match"),
             @ApiResponse(responseCode = "404", description = "User not found")
     })
     @GetMapping("/{id}")
-    public ResponseEntity<UserResponseDTO> getUserById(@PathVariable("id")  @NotNull  Long id) {
+    public ResponseEntity<UserResponseDTO> getUserById(@PathVariable("id")  @NotNull  Long id, WebRequest webRequest) {
         if (id == null) {
             throw new IllegalArgumentException("ID path variable cannot be null");
         }
-        User user = userService.findActiveUserById(id);
-        return ResponseEntity.ok(userMapper.toDTO(user));
+        UserResponseDTO user = userService.findActiveUserById(id);
+        String etag = ETags.of(user.getVersion());
+        // Sets the 304 status and headers itself; returning null skips writing the body
+        if (etag != null && webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(REVALIDATE).body(user);
     }
 
-    @Operation(summary = "Get all users", description = "This endpoint returns a list of all users.")
+    @Operation(summary = "Get all users", description = "This endpoint returns users one page at a time, ordered by id. " +
+            "Pass the returned 'next' cursor back to fetch the following page. The ETag describes the page, so a conditional " +
+            "request gets an empty 304 until a user on it changes or users are added to or removed from it.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Users retrieved successfully"),
+            @ApiResponse(responseCode = "304", description = "Page unchanged since the ETag in If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or page size")
     })
     @GetMapping("/bulk")
-    public ResponseEntity<List<UserResponseDTO>> getAllUsers() {
-        List<User> users = userService.findAllUsers();
-        List<UserResponseDTO> userResponseDTOs = users.stream()
-                .map(userMapper::toDTO)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(userResponseDTOs);
+    public ResponseEntity<UserPageResponseDTO> getAllUsers(@RequestParam(value = "cursor", required = false) String cursor,
+                                                           @RequestParam(value = "size", required = false) @Min(1) Integer size,
+                                                           WebRequest webRequest) {
+        int pageSize = paginationProperties.resolvePageSize(size);
+
+        // Fetch one extra row to find out whether another page follows
+        List<UserResponseDTO> users = userService.findUsersAfter(KeysetCursor.decode(cursor), pageSize + 1);
+        boolean hasNext = users.size() > pageSize;
+        List<UserResponseDTO> page = hasNext ? users.subList(0, pageSize) : users;
+
+        String next = hasNext ? KeysetCursor.encode(page.getLast().getId()) : null;
+        return listingResponse(webRequest, page, hasNext, next);
+    }
+
+    @Operation(summary = "Search users", description = "Returns users matching every given filter, one page at a time. " +
+            "Role is 'user' or 'admin'; usernamePrefix matches the start of the username and domainPrefix the start of the " +
+            "part after '@' (case-insensitive). Sort by ID (default) or USERNAME, ASC or DESC, and pass the returned 'next' " +
+            "cursor back with the same filters and sort to fetch the following page.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Matching users retrieved successfully"),
+            @ApiResponse(responseCode = "304", description = "Page unchanged since the ETag in If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Invalid filter, sort, cursor or page size")
+    })
+    @GetMapping("/search")
+    public ResponseEntity<UserPageResponseDTO> searchUsers(@RequestParam(value = "role", required = false) Role role,
+                                                           @RequestParam(value = "enabled", required = false) Boolean enabled,
+                                                           @RequestParam(value = "usernamePrefix", required = false) @Size(min = 1, max = 50) String usernamePrefix,
+                                                           @RequestParam(value = "domainPrefix", required = false) @Size(min = 1, max = 50) String domainPrefix,
+                                                           @RequestParam(value = "sort", defaultValue = "ID") UserSearchSort sort,
+                                                           @RequestParam(value = "direction", defaultValue = "ASC") Sort.Direction direction,
+                                                           @RequestParam(value = "cursor", required = false) String cursor,
+                                                           @RequestParam(value = "size", required = false) @Min(1) Integer size,
+                                                           WebRequest webRequest) {
+        int pageSize = paginationProperties.resolvePageSize(size);
+        UserSearchCriteria criteria = new UserSearchCriteria(role, enabled, usernamePrefix, domainPrefix, sort, direction,
+                sort.decodeCursor(cursor));
+
+        // Fetch one extra row to find out whether another page follows
+        List<UserResponseDTO> users = userService.searchUsers(criteria, pageSize + 1);
+        boolean hasNext = users.size() > pageSize;
+        List<UserResponseDTO> page = hasNext ? users.subList(0, pageSize) : users;
+
+        String next = hasNext ? sort.encodeCursor(page.getLast()) : null;
+        return listingResponse(webRequest, page, hasNext, next);
+    }
+
+    // A matching If-None-Match has already set the 304 response; the page is then neither mapped nor serialized
+    private static ResponseEntity<UserPageResponseDTO> listingResponse(WebRequest webRequest, List<UserResponseDTO> page,
+                                                                       boolean hasNext, String next) {
+        String etag = ETags.ofPage(page, hasNext);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(REVALIDATE)
+                .eTag(etag)
+                .body(new UserPageResponseDTO(page, next));
     }
 
-    @Operation(summary = "Update a user", description = "This endpoint allows you to update an existing user.")
+    @Operation(summary = "Export all users", description = "Streams every user, ordered by id, as NDJSON (default) or CSV. " +
+            "Rows are written as they are read from a database cursor, so the response starts immediately and has no size limit.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Users streamed successfully"),
+            @ApiResponse(responseCode = "400", description = "Unknown format")
+    })
+    @GetMapping(value = "/export", produces = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    public void exportUsers(@RequestParam(value = "format", defaultValue = "NDJSON") ExportFormat format,
+                            HttpServletResponse response) throws IOException {
+        response.setContentType(format.getMediaType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("users." + format.getFileExtension())
+                .build()
+                .toString());
+        userExportService.exportUsers(format, response.getOutputStream());
+    }
+
+    @Operation(summary = "Update a user", description = "This endpoint allows you to update an existing user. Send the ETag of " +
+            "the user as read in If-Match to have the update refused if someone else changed the user in the meantime.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "User updated successfully"),
-            @ApiResponse(responseCode = "404", description = "User not found")
+            @ApiResponse(responseCode = "404", description = "User not found"),
+            @ApiResponse(responseCode = "409", description = "A concurrent update committed first"),
+            @ApiResponse(responseCode = "412", description = "The user no longer matches If-Match")
     })
     @PutMapping
-    public ResponseEntity<UserResponseDTO> updateUser(@RequestBody @NotNull @Valid UpdateUserRequestDTO userRequestDTO) {
-        User updatedUser = userService.updateUser( userMapper.toEntity(userRequestDTO));
-        return ResponseEntity.ok(userMapper.toDTO(updatedUser));
+    public ResponseEntity<UserResponseDTO> updateUser(@RequestBody @NotNull @Valid UpdateUserRequestDTO userRequestDTO,
+                                                      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        User user = userMapper.toEntity(userRequestDTO);
+        user.setVersion(ETags.parseIfMatch(ifMatch));
+        return versionedResponse(userMapper.toDTO(userService.updateUser(user)));
     }
 
     @Operation(summary = "Bulk update multiple users", description = "This endpoint allows you to update multiple users in one request.")
@@ -117,6 +326,48 @@ public class UserController {
         return ResponseEntity.ok(userResponseDTOs);
     }
 
+    @Operation(summary = "Partially update a user", description = "This endpoint applies a JSON Merge Patch to a user: only the supplied fields are changed and the password is only re-hashed when a new one is given. " +
+            "If-Match makes the patch conditional on the user's ETag, as for PUT.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "User patched successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid input provided"),
+            @ApiResponse(responseCode = "404", description = "User not found"),
+            @ApiResponse(responseCode = "409", description = "A concurrent update committed first"),
+            @ApiResponse(responseCode = "412", description = "The user no longer matches If-Match")
+    })
+    @PatchMapping(value = "/{id}", consumes = {MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<UserResponseDTO> patchUser(@PathVariable @NotNull Long id,
+                                                     @RequestBody @NotNull @Valid UserPatchRequestDTO userPatchRequestDTO,
+                                                     @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        User patch = userMapper.toEntity(id, userPatchRequestDTO);
+        patch.setVersion(ETags.parseIfMatch(ifMatch));
+        return versionedResponse(userMapper.toDTO(userService.patchUser(patch)));
+    }
+
+    // The version was incremented when the update was flushed on commit, so this is the ETag of the stored user
+    private static ResponseEntity<UserResponseDTO> versionedResponse(UserResponseDTO user) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        String etag = ETags.of(user.getVersion());
+        if (etag != null) {
+            response.eTag(etag);
+        }
+        return response.body(user);
+    }
+
+    @Operation(summary = "Partially update multiple users", description = "This endpoint applies a JSON Merge Patch to each user in the list, identified by its id.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Users patched successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid input provided"),
+            @ApiResponse(responseCode = "404", description = "One or more users not found")
+    })
+    @PatchMapping(value = "/bulk-patch", consumes = {MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<List<UserResponseDTO>> patchUsers(@RequestBody @NotNull List<@NotNull @Valid BulkUserPatchRequestDTO> userPatchRequestDTOs) {
+        List<User> patchedUsers = userService.patchUsers(userPatchRequestDTOs.stream()
+                .map(patch -> userMapper.toEntity(patch.getId(), patch))
+                .collect(Collectors.toList()));
+        return ResponseEntity.ok(userMapper.toDTOs(patchedUsers));
+    }
+
     @Operation(summary = "Soft delete a user", description = "This endpoint allows you to soft delete a user by setting their status to inactive.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "User soft deleted successfully"),
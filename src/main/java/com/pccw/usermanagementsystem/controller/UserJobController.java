@@ -0,0 +1,122 @@
+package com.pccw.usermanagementsystem.controller;
+
+import com.pccw.usermanagementsystem.config.PaginationProperties;
+import com.pccw.usermanagementsystem.dto.UpdateUserRequestDTO;
+import com.pccw.usermanagementsystem.dto.UserJobDTO;
+import com.pccw.usermanagementsystem.dto.UserJobItemDTO;
+import com.pccw.usermanagementsystem.dto.UserJobItemPageDTO;
+import com.pccw.usermanagementsystem.dto.UserRequestDTO;
+import com.pccw.usermanagementsystem.exception.InvalidCursorException;
+import com.pccw.usermanagementsystem.pagination.KeysetCursor;
+import com.pccw.usermanagementsystem.service.jobs.UserJobService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/users/jobs")
+@RequiredArgsConstructor
+@Validated
+@Tag(name = "User Jobs", description = "Bulk registrations, updates and soft deletes processed in the background")
+public class UserJobController {
+
+    private final UserJobService userJobService;
+    private final PaginationProperties paginationProperties;
+
+    @PostMapping("/register")
+    @Operation(summary = "Register many users in the background", description = "Validates and stores the users and returns " +
+            "202 with the job at once; valid users are registered in chunks afterwards. Invalid items and usernames that " +
+            "repeat an earlier item fail without stopping the others. Poll the Location header for progress.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Job accepted"),
+            @ApiResponse(responseCode = "400", description = "Malformed request body")
+    })
+    public ResponseEntity<UserJobDTO> submitRegistrations(@RequestBody @NotNull List<@NotNull UserRequestDTO> userRequestDTOs) {
+        return accepted(userJobService.submitRegistrations(userRequestDTOs));
+    }
+
+    @PostMapping("/bulk-update")
+    @Operation(summary = "Update many users in the background", description = "Like PUT /api/users/bulk-update, but returns 202 " +
+            "with a job at once. Each user is updated independently: unknown ids, invalid items and conflicting usernames " +
+            "fail individually.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Job accepted"),
+            @ApiResponse(responseCode = "400", description = "Malformed request body")
+    })
+    public ResponseEntity<UserJobDTO> submitUpdates(@RequestBody @NotNull List<@NotNull UpdateUserRequestDTO> userRequestDTOs) {
+        return accepted(userJobService.submitUpdates(userRequestDTOs));
+    }
+
+    @PostMapping("/bulk-soft-delete")
+    @Operation(summary = "Soft delete many users in the background", description = "Like PATCH /api/users/bulk-soft-delete, " +
+            "but returns 202 with a job at once; unknown ids fail individually instead of cancelling the whole request.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Job accepted"),
+            @ApiResponse(responseCode = "400", description = "Malformed request body")
+    })
+    public ResponseEntity<UserJobDTO> submitSoftDeletes(@RequestBody @NotNull List<@NotNull Long> ids) {
+        return accepted(userJobService.submitSoftDeletes(ids));
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Get a job", description = "Status and item counts of the job, with the first failed items and their errors.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Job found"),
+            @ApiResponse(responseCode = "404", description = "Job not found or already purged")
+    })
+    public ResponseEntity<UserJobDTO> getJob(@PathVariable("id") UUID id) {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(userJobService.getJob(id));
+    }
+
+    @GetMapping("/{id}/items")
+    @Operation(summary = "Get the items of a job", description = "Result of every item in submission order, one page at a time: " +
+            "the user id for succeeded items, the errors for failed ones. Pass the returned 'next' cursor back to fetch the following page.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Items retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or page size"),
+            @ApiResponse(responseCode = "404", description = "Job not found or already purged")
+    })
+    public ResponseEntity<UserJobItemPageDTO> getJobItems(@PathVariable("id") UUID id,
+                                                          @RequestParam(value = "cursor", required = false) String cursor,
+                                                          @RequestParam(value = "size", required = false) @Min(1) Integer size) {
+        int pageSize = paginationProperties.resolvePageSize(size);
+        // Item indexes start at 0, so the first page starts after -1
+        long afterIndex = cursor == null || cursor.isBlank() ? -1 : KeysetCursor.decode(cursor);
+        if (afterIndex > Integer.MAX_VALUE) {
+            throw new InvalidCursorException(cursor);
+        }
+
+        // Fetch one extra item to find out whether another page follows
+        List<UserJobItemDTO> items = userJobService.getItems(id, (int) afterIndex, pageSize + 1);
+        boolean hasNext = items.size() > pageSize;
+        List<UserJobItemDTO> page = hasNext ? items.subList(0, pageSize) : items;
+
+        String next = hasNext ? KeysetCursor.encode(page.getLast().getIndex()) : null;
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(new UserJobItemPageDTO(page, next));
+    }
+
+    private static ResponseEntity<UserJobDTO> accepted(UserJobDTO job) {
+        return ResponseEntity.accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentContextPath()
+                        .path("/api/users/jobs/{id}")
+                        .buildAndExpand(job.getId())
+                        .toUri())
+                .body(job);
+    }
+}
@@ -0,0 +1,108 @@
+package com.pccw.usermanagementsystem.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Decides whether a read-only transaction may be served by a replica. Replicas lag the primary, so for
+ * {@code app.datasource.read-your-writes-window} after a user is written, reads of that user (by id or username)
+ * and every read made by whoever wrote it go to the primary instead.
+ * <p>
+ * Writes are tracked in memory, so the window only covers reads served by the instance that made the write.
+ */
+@Component
+public class ReadRouting {
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    // Bounds memory during bulk writes; an evicted entry only means that read may see replica lag
+    private static final long MAX_TRACKED_WRITES = 100_000;
+
+    private final Cache<String, Boolean> recentWrites;
+
+    public ReadRouting(ReplicaProperties properties) {
+        this.recentWrites = Caffeine.newBuilder()
+                .maximumSize(MAX_TRACKED_WRITES)
+                .expireAfterWrite(properties.getReadYourWritesWindow())
+                .build();
+    }
+
+    /**
+     * Opens the window for the users now, and again once the surrounding transaction commits, which is when
+     * the write starts replicating.
+     */
+    public void recordWrites(Collection<Long> userIds, Collection<String> usernames) {
+        List<String> keys = new ArrayList<>(userIds.size() + usernames.size() + 1);
+        userIds.forEach(id -> keys.add("id:" + id));
+        usernames.forEach(username -> keys.add("username:" + username));
+        String principal = currentPrincipal();
+        if (principal != null) {
+            keys.add("principal:" + principal);
+        }
+
+        remember(keys);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remember(keys);
+                }
+            });
+        }
+    }
+
+    /**
+     * Runs {@code work} on the primary if the user was written within the window, on a replica otherwise.
+     */
+    public <T> T read(Long userId, String username, Supplier<T> work) {
+        boolean recentlyWritten = (userId != null && recentWrites.getIfPresent("id:" + userId) != null)
+                || (username != null && recentWrites.getIfPresent("username:" + username) != null);
+        return recentlyWritten ? onPrimary(work) : work.get();
+    }
+
+    /**
+     * Runs {@code work} with every read-only transaction it starts on the primary.
+     */
+    public <T> T onPrimary(Supplier<T> work) {
+        Boolean previous = PRIMARY_REQUIRED.get();
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY_REQUIRED.remove();
+            }
+        }
+    }
+
+    public boolean isPrimaryRequired() {
+        if (Boolean.TRUE.equals(PRIMARY_REQUIRED.get())) {
+            return true;
+        }
+        String principal = currentPrincipal();
+        return principal != null && recentWrites.getIfPresent("principal:" + principal) != null;
+    }
+
+    private void remember(List<String> keys) {
+        keys.forEach(key -> recentWrites.put(key, Boolean.TRUE));
+    }
+
+    private static String currentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
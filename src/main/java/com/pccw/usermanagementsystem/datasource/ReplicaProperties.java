@@ -0,0 +1,43 @@
+package com.pccw.usermanagementsystem.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.datasource")
+public class ReplicaProperties {
+
+    // Read-only transactions are spread over these; without any, everything goes to spring.datasource
+    private List<Replica> replicas = new ArrayList<>();
+
+    private int replicaPoolSize = 10;
+
+    // Kept short: a replica that cannot hand out a connection in time is taken out and the read goes to the primary
+    private Duration replicaConnectionTimeout = Duration.ofSeconds(1);
+
+    // Period of the replica probe in ReplicaRoutingDataSource
+    private Duration healthCheckInterval = Duration.ofSeconds(5);
+
+    // A replica further behind the primary than this is taken out of rotation until it catches up
+    private Duration maxReplicationLag = Duration.ofSeconds(10);
+
+    // How long after a user is written its reads, and every read by whoever wrote it, stay on the primary
+    private Duration readYourWritesWindow = Duration.ofSeconds(5);
+
+    @Data
+    public static class Replica {
+
+        private String url;
+
+        // Default to the primary's credentials
+        private String username;
+
+        private String password;
+    }
+}
@@ -0,0 +1,132 @@
+package com.pccw.usermanagementsystem.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Target of read-only transactions: hands out connections from the healthy replicas in turn and falls back to
+ * the primary when none is healthy, when one fails to connect, or when {@link ReadRouting} asks for the primary.
+ * <p>
+ * Replicas are probed on a schedule; one that cannot be reached or lags more than {@code max-replication-lag}
+ * is skipped until a later probe finds it healthy again.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    // Zero on a primary or a replica that has replayed everything it received; otherwise age of the last replayed commit
+    private static final String REPLICATION_LAG_MILLIS = "SELECT CASE " +
+            "WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0) END";
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final ReadRouting readRouting;
+    private final long maxReplicationLagMillis;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    private final LongAdder replicaConnections = new LongAdder();
+    private final LongAdder primaryConnections = new LongAdder();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<HikariDataSource> replicas, ReadRouting readRouting,
+                                    Duration maxReplicationLag) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.readRouting = readRouting;
+        this.maxReplicationLagMillis = maxReplicationLag.toMillis();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!replicas.isEmpty() && !readRouting.isPrimaryRequired()) {
+            int start = Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get((start + i) % replicas.size());
+                if (!replica.healthy) {
+                    continue;
+                }
+                try {
+                    Connection connection = replica.dataSource.getConnection();
+                    replicaConnections.increment();
+                    return connection;
+                } catch (SQLException e) {
+                    markDown(replica, e.getMessage());
+                }
+            }
+        }
+        primaryConnections.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Credentials are configured per replica");
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${app.datasource.health-check-interval:PT5S}")
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(REPLICATION_LAG_MILLIS)) {
+                resultSet.next();
+                long lagMillis = resultSet.getLong(1);
+                if (lagMillis > maxReplicationLagMillis) {
+                    markDown(replica, "replication lag " + lagMillis + " ms");
+                } else if (!replica.healthy) {
+                    replica.healthy = true;
+                    log.info("Replica {} is healthy, routing reads to it", replica.dataSource.getPoolName());
+                }
+            } catch (SQLException e) {
+                markDown(replica, e.getMessage());
+            }
+        }
+    }
+
+    public long getReplicaConnectionCount() {
+        return replicaConnections.sum();
+    }
+
+    public long getPrimaryConnectionCount() {
+        return primaryConnections.sum();
+    }
+
+    public long getHealthyReplicaCount() {
+        return replicas.stream().filter(replica -> replica.healthy).count();
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+
+    private void markDown(Replica replica, String reason) {
+        if (replica.healthy) {
+            replica.healthy = false;
+            log.warn("Replica {} taken out of rotation: {}", replica.dataSource.getPoolName(), reason);
+        }
+    }
+
+    private static final class Replica {
+
+        private final HikariDataSource dataSource;
+        // Out of rotation until the first probe passes
+        private volatile boolean healthy;
+
+        private Replica(HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.pccw.usermanagementsystem.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+public class BulkUserPatchRequestDTO extends UserPatchRequestDTO {
+
+    @NotNull(message = "ID is required")
+    private Long id;
+
+    public BulkUserPatchRequestDTO(Long id, String username, String password, String role, Boolean enabled) {
+        super(username, password, role, enabled);
+        this.id = id;
+    }
+}
@@ -0,0 +1,16 @@
+package com.pccw.usermanagementsystem.dto;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum RegistrationStatus {
+    CREATED("created"),
+    ALREADY_EXISTS("already-exists"),
+    INVALID("invalid");
+
+    @JsonValue
+    private final String value;
+}
@@ -0,0 +1,20 @@
+package com.pccw.usermanagementsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenResponseDTO {
+
+    private String accessToken;
+
+    private String refreshToken;
+
+    private String tokenType;
+
+    // Lifetime of the access token in seconds
+    private long expiresIn;
+}
@@ -0,0 +1,25 @@
+package com.pccw.usermanagementsystem.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserImportIssueDTO {
+
+    // 1-based line number in the uploaded file
+    private long line;
+
+    private String username;
+
+    private RegistrationStatus status;
+
+    // Only set for invalid rows
+    private List<String> errors;
+}
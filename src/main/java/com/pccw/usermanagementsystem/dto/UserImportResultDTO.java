@@ -0,0 +1,27 @@
+package com.pccw.usermanagementsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserImportResultDTO {
+
+    // Data rows read, excluding the CSV header and blank lines
+    private long received;
+
+    private long created;
+
+    private long alreadyExists;
+
+    private long invalid;
+
+    // Rows that were not created, in line order; capped, see issuesTruncated
+    private List<UserImportIssueDTO> issues;
+
+    private boolean issuesTruncated;
+}
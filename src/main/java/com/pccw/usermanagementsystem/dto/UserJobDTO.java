@@ -0,0 +1,42 @@
+package com.pccw.usermanagementsystem.dto;
+
+import com.pccw.usermanagementsystem.entity.enums.UserJobStatus;
+import com.pccw.usermanagementsystem.entity.enums.UserJobType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserJobDTO {
+
+    private UUID id;
+
+    private UserJobType type;
+
+    private UserJobStatus status;
+
+    private int total;
+
+    private int processed;
+
+    private int succeeded;
+
+    private int failed;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+
+    // Failed items in submission order; capped, see errorsTruncated. Every item is listed by GET .../items
+    private List<UserJobItemDTO> errors;
+
+    private boolean errorsTruncated;
+}
@@ -0,0 +1,29 @@
+package com.pccw.usermanagementsystem.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.pccw.usermanagementsystem.entity.enums.UserJobItemStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserJobItemDTO {
+
+    // Position of the item in the submitted list
+    private int index;
+
+    private UserJobItemStatus status;
+
+    // The registered, updated or soft-deleted user; for registrations only set once created
+    private Long userId;
+
+    private String username;
+
+    // Only set for failed items
+    private List<String> errors;
+}
@@ -0,0 +1,18 @@
+package com.pccw.usermanagementsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserPageResponseDTO {
+
+    private List<UserResponseDTO> users;
+
+    // Opaque cursor for the following page, null when this is the last page
+    private String next;
+}
@@ -0,0 +1,27 @@
+package com.pccw.usermanagementsystem.dto;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * JSON Merge Patch (RFC 7396) of a user: only the fields present in the document are changed.
+ * None of them can be removed, so a field that is absent or null is left as it is.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserPatchRequestDTO {
+
+    @Email(message = "Please provide a valid email address")
+    private String username;
+
+    @Size(min = 6, message = "Password must be at least 6 characters long")
+    private String password;
+
+    private String role;
+
+    private Boolean enabled;
+}
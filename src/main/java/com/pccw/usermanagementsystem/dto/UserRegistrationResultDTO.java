@@ -0,0 +1,28 @@
+package com.pccw.usermanagementsystem.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserRegistrationResultDTO {
+
+    // Position of the item in the request
+    private int index;
+
+    private String username;
+
+    private RegistrationStatus status;
+
+    // Only set for created users
+    private UserResponseDTO user;
+
+    // Only set for invalid items
+    private List<String> errors;
+}
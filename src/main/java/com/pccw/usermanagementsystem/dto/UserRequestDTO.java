@@ -15,6 +15,7 @@ public class UserRequestDTO {
 
     @NotBlank
     @Email(message = "Please provide a valid email address")
+    @Size(max = 50, message = "Username must be at most 50 characters long")
     private String username;
 
     @NotBlank(message = "Password is required")
@@ -1,5 +1,7 @@
 package com.pccw.usermanagementsystem.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.pccw.usermanagementsystem.entity.enums.Role;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -16,4 +18,21 @@ public class UserResponseDTO {
     private String role;
 
     private Boolean enabled;
+
+    // Sent as the ETag header rather than in the body
+    @JsonIgnore
+    private Long version;
+
+    public UserResponseDTO(Long id, String username, String role, Boolean enabled) {
+        this(id, username, role, enabled, null);
+    }
+
+    public UserResponseDTO(Long id, String username, Role role, Boolean enabled) {
+        this(id, username, role.getValue(), enabled, null);
+    }
+
+    // Target of the JPQL constructor expressions in UserRepository and UserSearchRepositoryImpl
+    public UserResponseDTO(Long id, String username, Role role, Boolean enabled, Long version) {
+        this(id, username, role.getValue(), enabled, version);
+    }
 }
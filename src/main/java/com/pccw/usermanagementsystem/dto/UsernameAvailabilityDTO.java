@@ -0,0 +1,15 @@
+package com.pccw.usermanagementsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UsernameAvailabilityDTO {
+
+    private String username;
+
+    private boolean available;
+}
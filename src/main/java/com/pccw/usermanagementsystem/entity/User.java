@@ -5,18 +5,23 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.util.Objects;
 
 @Entity
 @Table(name = "users")
+// UPDATE only the columns that actually changed, e.g. a PATCH that only toggles enabled
+@DynamicUpdate
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 public class User {
 
+    // Pooled sequence (allocationSize must match INCREMENT BY in the migration) so inserts can be batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_id_seq")
+    @SequenceGenerator(name = "users_id_seq", sequenceName = "users_id_seq", allocationSize = 50)
     private Long id;
 
     private String username;
@@ -29,6 +34,23 @@ public class User {
 
     private Boolean enabled;
 
+    // Incremented on every update; a stale version fails the update instead of overwriting a concurrent one
+    @Version
+    private Long version;
+
+    // Bumped by changePassword only, not by rehashing the same password; refresh tokens are bound to it
+    @Column(nullable = false)
+    private long credentialsEpoch;
+
+    public User(Long id, String username, String password, Role role, Boolean enabled) {
+        this(id, username, password, role, enabled, null, 0);
+    }
+
+    public void changePassword(String encodedPassword) {
+        password = encodedPassword;
+        credentialsEpoch++;
+    }
+
 //    since this represents an entity we override with id
     @Override
     public boolean equals(Object o) {
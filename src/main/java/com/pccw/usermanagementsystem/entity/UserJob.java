@@ -0,0 +1,85 @@
+package com.pccw.usermanagementsystem.entity;
+
+import com.pccw.usermanagementsystem.entity.enums.UserJobStatus;
+import com.pccw.usermanagementsystem.entity.enums.UserJobType;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.UUID;
+
+@Entity
+@Table(name = "user_jobs")
+@Data
+@NoArgsConstructor
+public class UserJob {
+
+    // Random rather than sequential, so one client cannot guess the ids of other clients' jobs
+    @Id
+    private UUID id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private UserJobType type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private UserJobStatus status;
+
+    @Column(nullable = false)
+    private int total;
+
+    // Items with a final status; items rejected on submission count from the start
+    @Column(nullable = false)
+    private int processed;
+
+    @Column(nullable = false)
+    private int succeeded;
+
+    @Column(nullable = false)
+    private int failed;
+
+    // Times the job was claimed; more than one means an instance stopped or died while running it
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(nullable = false)
+    private LocalDateTime leaseUntil;
+
+    @Column(columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+
+    public UserJob(UserJobType type, int total, int rejected, LocalDateTime now) {
+        this.id = UUID.randomUUID();
+        this.type = type;
+        this.status = UserJobStatus.QUEUED;
+        this.total = total;
+        this.processed = rejected;
+        this.failed = rejected;
+        this.leaseUntil = now;
+        this.createdAt = now;
+    }
+
+//    since this represents an entity we override with id
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        UserJob that = (UserJob) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+}
@@ -0,0 +1,7 @@
+package com.pccw.usermanagementsystem.entity.enums;
+
+public enum UserJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED
+}
@@ -0,0 +1,7 @@
+package com.pccw.usermanagementsystem.entity.enums;
+
+public enum UserJobType {
+    REGISTER,
+    UPDATE,
+    SOFT_DELETE
+}
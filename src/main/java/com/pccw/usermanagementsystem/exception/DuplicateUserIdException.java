@@ -0,0 +1,10 @@
+package com.pccw.usermanagementsystem.exception;
+
+import java.util.Collection;
+
+public class DuplicateUserIdException extends RuntimeException {
+
+    public DuplicateUserIdException(Collection<Long> userIds) {
+        super(String.format("Request contains duplicate user ids: %s", userIds));
+    }
+}
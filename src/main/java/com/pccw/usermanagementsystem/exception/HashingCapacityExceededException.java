@@ -0,0 +1,11 @@
+package com.pccw.usermanagementsystem.exception;
+
+/**
+ * The password hashing pool is saturated; the request is shed instead of waiting for a thread.
+ */
+public class HashingCapacityExceededException extends RuntimeException {
+
+    public HashingCapacityExceededException(String message) {
+        super(message);
+    }
+}
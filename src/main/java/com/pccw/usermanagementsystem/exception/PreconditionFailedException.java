@@ -0,0 +1,11 @@
+package com.pccw.usermanagementsystem.exception;
+
+/**
+ * The If-Match header of a conditional update does not match the current version of the resource.
+ */
+public class PreconditionFailedException extends RuntimeException {
+
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.pccw.usermanagementsystem.exception;
+
+import java.util.UUID;
+
+public class UserJobNotFoundException extends RuntimeException {
+
+    public UserJobNotFoundException(UUID jobId) {
+        super(String.format("Job not found with id %s", jobId));
+    }
+}
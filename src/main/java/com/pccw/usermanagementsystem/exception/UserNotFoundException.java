@@ -1,8 +1,16 @@
 package com.pccw.usermanagementsystem.exception;
 
 
+import java.util.Collection;
+
 public class UserNotFoundException extends RuntimeException {
     public UserNotFoundException(long userId) {
         super(String.format("User not found with id %d", userId));
     }
+
+    public UserNotFoundException(Collection<Long> userIds) {
+        super(userIds.size() == 1
+                ? String.format("User not found with id %d", userIds.iterator().next())
+                : String.format("Users not found with ids %s", userIds));
+    }
 }
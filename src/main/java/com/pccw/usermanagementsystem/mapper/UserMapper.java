@@ -1,10 +1,12 @@
 package com.pccw.usermanagementsystem.mapper;
 
 import com.pccw.usermanagementsystem.dto.UpdateUserRequestDTO;
+import com.pccw.usermanagementsystem.dto.UserPatchRequestDTO;
 import com.pccw.usermanagementsystem.dto.UserRequestDTO;
 import com.pccw.usermanagementsystem.dto.UserResponseDTO;
 import com.pccw.usermanagementsystem.entity.User;
 import com.pccw.usermanagementsystem.entity.enums.Role;
+import com.pccw.usermanagementsystem.repository.projection.UserSummary;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
@@ -28,10 +30,15 @@ public class UserMapper {
                 user.getId(),
                 user.getUsername(),
                 user.getRole().getValue(),
-                user.getEnabled()
+                user.getEnabled(),
+                user.getVersion()
         );
     }
 
+    public UserResponseDTO toDTO(UserSummary user) {
+        return new UserResponseDTO(user.id(), user.username(), user.role().getValue(), user.enabled());
+    }
+
     public List<UserResponseDTO> toDTOs(List<User> users) {
 
         return users.
@@ -54,4 +61,18 @@ public class UserMapper {
 
         return user;
     }
+
+    /**
+     * Fields missing from the patch stay null on the returned user, which {@code UserService} reads as "unchanged".
+     */
+    public User toEntity(Long id, UserPatchRequestDTO userPatchRequestDTO) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(userPatchRequestDTO.getUsername());
+        user.setPassword(userPatchRequestDTO.getPassword());
+        user.setRole(userPatchRequestDTO.getRole() == null ? null : Role.fromValue(userPatchRequestDTO.getRole()));
+        user.setEnabled(userPatchRequestDTO.getEnabled());
+
+        return user;
+    }
 }
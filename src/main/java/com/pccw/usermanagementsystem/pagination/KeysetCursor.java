@@ -0,0 +1,66 @@
+package com.pccw.usermanagementsystem.pagination;
+
+import com.pccw.usermanagementsystem.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque cursor carrying the sort key of the last row of a page, tagged with the field it was sorted by.
+ * Clients pass it back unchanged to fetch the next page, which is read with
+ * {@code WHERE id > :lastId ORDER BY id LIMIT :size} (or the same on another unique key) so every page costs the same.
+ */
+public final class KeysetCursor {
+
+    private static final String ID_FIELD = "id";
+
+    private KeysetCursor() {
+    }
+
+    public static String encode(long lastId) {
+        return encode(ID_FIELD, String.valueOf(lastId));
+    }
+
+    public static String encode(String field, String lastKey) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString((field + ":" + lastKey).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the last id encoded in the cursor, or 0 for the first page.
+     */
+    public static long decode(String cursor) {
+        String lastKey = decode(cursor, ID_FIELD);
+        if (lastKey == null) {
+            return 0L;
+        }
+        try {
+            long lastId = Long.parseLong(lastKey);
+            if (lastId < 0) {
+                throw new InvalidCursorException(cursor);
+            }
+            return lastId;
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+
+    /**
+     * Returns the last key encoded in the cursor, or null for the first page. A cursor issued for another
+     * sort field is rejected rather than silently restarting from the wrong position.
+     */
+    public static String decode(String cursor, String field) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String prefix = field + ":";
+            if (!decoded.startsWith(prefix) || decoded.length() == prefix.length()) {
+                throw new InvalidCursorException(cursor);
+            }
+            return decoded.substring(prefix.length());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+}
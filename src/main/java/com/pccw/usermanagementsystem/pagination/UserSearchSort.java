@@ -0,0 +1,37 @@
+package com.pccw.usermanagementsystem.pagination;
+
+import com.pccw.usermanagementsystem.dto.UserResponseDTO;
+import com.pccw.usermanagementsystem.exception.InvalidCursorException;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Sort orders of the user search. Both keys are unique, so the last key of a page is enough to continue after it.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum UserSearchSort {
+    ID("id"),
+    USERNAME("username");
+
+    private final String property;
+
+    public String encodeCursor(UserResponseDTO last) {
+        return KeysetCursor.encode(property, this == ID ? String.valueOf(last.getId()) : last.getUsername());
+    }
+
+    /**
+     * Returns the sort key of the last user on the previous page, or null for the first page.
+     */
+    public Object decodeCursor(String cursor) {
+        String key = KeysetCursor.decode(cursor, property);
+        if (key == null || this == USERNAME) {
+            return key;
+        }
+        try {
+            return Long.valueOf(key);
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.pccw.usermanagementsystem.repository;
+
+import com.pccw.usermanagementsystem.entity.enums.Role;
+import com.pccw.usermanagementsystem.entity.enums.UserJobItemStatus;
+
+import java.util.List;
+
+/**
+ * One payload item of a job, at position {@code index} of the submitted list. Which fields are set depends on the
+ * job type: registrations carry the user, updates the user and its id, soft deletes only the id. As stored, the
+ * password is encrypted.
+ */
+public record UserJobItem(int index, UserJobItemStatus status, Long userId, String username, String password,
+                          Role role, Boolean enabled, List<String> errors) {
+
+    public static UserJobItem pending(int index, Long userId, String username, String password, Role role, Boolean enabled) {
+        return new UserJobItem(index, UserJobItemStatus.PENDING, userId, username, password, role, enabled, null);
+    }
+
+    // Rejected on submission; nothing but the errors is kept
+    public static UserJobItem rejected(int index, Long userId, String username, List<String> errors) {
+        return new UserJobItem(index, UserJobItemStatus.FAILED, userId, username, null, null, null, errors);
+    }
+
+    public UserJobItem withPassword(String password) {
+        return new UserJobItem(index, status, userId, username, password, role, enabled, errors);
+    }
+
+    public UserJobItem succeeded(Long userId) {
+        return new UserJobItem(index, UserJobItemStatus.SUCCEEDED, userId, username, null, role, enabled, null);
+    }
+
+    public UserJobItem failed(List<String> errors) {
+        return new UserJobItem(index, UserJobItemStatus.FAILED, userId, username, null, role, enabled, errors);
+    }
+}
@@ -0,0 +1,97 @@
+package com.pccw.usermanagementsystem.repository;
+
+import com.pccw.usermanagementsystem.entity.enums.Role;
+import com.pccw.usermanagementsystem.entity.enums.UserJobItemStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Job items through plain JDBC: a job can hold tens of thousands of them, written as one batch on submission
+ * (collapsed into multi-row INSERTs by {@code reWriteBatchedInserts}) and updated a chunk at a time.
+ */
+@Repository
+@RequiredArgsConstructor
+public class UserJobItemRepository {
+
+    private static final String COLUMNS = "item_index, status, user_id, username, password, role, enabled, errors";
+
+    private static final String INSERT = "INSERT INTO user_job_items (job_id, " + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // SKIP LOCKED: if a lease expired while its instance was still working, the two instances never share an item
+    private static final String LOCK_PENDING = "SELECT " + COLUMNS + " FROM user_job_items " +
+            "WHERE job_id = ? AND status = 'PENDING' ORDER BY item_index LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private static final String SAVE_RESULT = "UPDATE user_job_items SET status = ?, user_id = ?, errors = ?, password = NULL " +
+            "WHERE job_id = ? AND item_index = ? AND status = 'PENDING'";
+
+    private static final String SELECT_FAILED = "SELECT " + COLUMNS + " FROM user_job_items " +
+            "WHERE job_id = ? AND status = 'FAILED' ORDER BY item_index LIMIT ?";
+
+    private static final String SELECT_AFTER = "SELECT " + COLUMNS + " FROM user_job_items " +
+            "WHERE job_id = ? AND item_index > ? ORDER BY item_index LIMIT ?";
+
+    private static final RowMapper<UserJobItem> ROW_MAPPER = (resultSet, rowNum) -> {
+        Array errors = resultSet.getArray("errors");
+        String role = resultSet.getString("role");
+        return new UserJobItem(
+                resultSet.getInt("item_index"),
+                UserJobItemStatus.valueOf(resultSet.getString("status")),
+                resultSet.getObject("user_id", Long.class),
+                resultSet.getString("username"),
+                resultSet.getString("password"),
+                role == null ? null : Role.valueOf(role),
+                resultSet.getObject("enabled", Boolean.class),
+                errors == null ? null : Arrays.asList((String[]) errors.getArray()));
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insertAll(UUID jobId, List<UserJobItem> items) {
+        jdbcTemplate.batchUpdate(INSERT, items, 1000, (statement, item) -> {
+            statement.setObject(1, jobId);
+            statement.setInt(2, item.index());
+            statement.setString(3, item.status().name());
+            statement.setObject(4, item.userId(), Types.BIGINT);
+            statement.setString(5, item.username());
+            statement.setString(6, item.password());
+            statement.setString(7, item.role() == null ? null : item.role().name());
+            statement.setObject(8, item.enabled(), Types.BOOLEAN);
+            statement.setArray(9, item.errors() == null ? null
+                    : statement.getConnection().createArrayOf("text", item.errors().toArray()));
+        });
+    }
+
+    public List<UserJobItem> lockPending(UUID jobId, int limit) {
+        return jdbcTemplate.query(LOCK_PENDING, ROW_MAPPER, jobId, limit);
+    }
+
+    public void saveResults(UUID jobId, List<UserJobItem> results) {
+        if (results.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(SAVE_RESULT, results, results.size(), (statement, item) -> {
+            statement.setString(1, item.status().name());
+            statement.setObject(2, item.userId(), Types.BIGINT);
+            statement.setArray(3, item.errors() == null ? null
+                    : statement.getConnection().createArrayOf("text", item.errors().toArray()));
+            statement.setObject(4, jobId);
+            statement.setInt(5, item.index());
+        });
+    }
+
+    public List<UserJobItem> findFailed(UUID jobId, int limit) {
+        return jdbcTemplate.query(SELECT_FAILED, ROW_MAPPER, jobId, limit);
+    }
+
+    public List<UserJobItem> findAfter(UUID jobId, int afterIndex, int limit) {
+        return jdbcTemplate.query(SELECT_AFTER, ROW_MAPPER, jobId, afterIndex, limit);
+    }
+}
@@ -0,0 +1,42 @@
+package com.pccw.usermanagementsystem.repository;
+
+import com.pccw.usermanagementsystem.entity.UserJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface UserJobRepository extends JpaRepository<UserJob, UUID> {
+
+    // Oldest unfinished job whose lease has expired; SKIP LOCKED lets several instances claim different jobs
+    @Query(value = "SELECT * FROM user_jobs WHERE status <> 'COMPLETED' AND lease_until <= :now " +
+            "ORDER BY created_at LIMIT 1 FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    Optional<UserJob> lockNextDueJob(@Param("now") LocalDateTime now);
+
+    // Counters are added in the database, in the transaction that stored the items' results
+    @Modifying
+    @Query("UPDATE UserJob j SET j.processed = j.processed + :succeeded + :failed, j.succeeded = j.succeeded + :succeeded, " +
+            "j.failed = j.failed + :failed, j.leaseUntil = :leaseUntil WHERE j.id = :id")
+    int recordProgress(@Param("id") UUID id, @Param("succeeded") int succeeded, @Param("failed") int failed,
+                       @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Modifying
+    @Query("UPDATE UserJob j SET j.status = com.pccw.usermanagementsystem.entity.enums.UserJobStatus.COMPLETED, " +
+            "j.finishedAt = :finishedAt, j.lastError = null WHERE j.id = :id")
+    int markCompleted(@Param("id") UUID id, @Param("finishedAt") LocalDateTime finishedAt);
+
+    @Modifying
+    @Query("UPDATE UserJob j SET j.leaseUntil = :leaseUntil, j.lastError = :lastError WHERE j.id = :id")
+    int releaseLease(@Param("id") UUID id, @Param("leaseUntil") LocalDateTime leaseUntil, @Param("lastError") String lastError);
+
+    @Modifying
+    @Query("DELETE FROM UserJob j WHERE j.status = com.pccw.usermanagementsystem.entity.enums.UserJobStatus.COMPLETED " +
+            "AND j.finishedAt < :finishedBefore")
+    int deleteCompletedBefore(@Param("finishedBefore") LocalDateTime finishedBefore);
+}
@@ -1,16 +1,106 @@
 package com.pccw.usermanagementsystem.repository;
 
+import com.pccw.usermanagementsystem.dto.UserResponseDTO;
 import com.pccw.usermanagementsystem.entity.User;
+import com.pccw.usermanagementsystem.repository.projection.UserIdentity;
+import com.pccw.usermanagementsystem.repository.projection.UserSummary;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserSearchRepository {
 
+    int STREAM_FETCH_SIZE = 1000;
+
+    // Read-only outside a surrounding transaction, so lookups on their own can be served by a replica
+    @Transactional(readOnly = true)
     Optional<User> findByUsername(String username);
 
+    @Transactional(readOnly = true)
     List<User>findByUsernameIn(List<String> usernames);
+
+    @Transactional(readOnly = true)
+    boolean existsByUsername(String username);
+
+    // Feeds the username filter; same cursor requirements as streamAllSummaries
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE))
+    @Query("SELECT u.username FROM User u")
+    Stream<String> streamAllUsernames();
+
+    // Database time, so the username filter's catch-up windows do not depend on the application clock
+    @Query(value = "SELECT clock_timestamp()", nativeQuery = true)
+    Instant currentDatabaseTime();
+
+    // Usernames inserted or renamed after 'since', stamped by the trigger added in V9
+    @Query(value = "SELECT username FROM users WHERE username_changed_at > :since", nativeQuery = true)
+    List<String> findUsernamesChangedSince(@Param("since") Instant since);
+
+    /**
+     * Every user in id order, read through a server-side cursor {@value #STREAM_FETCH_SIZE} rows at a time.
+     * Must be consumed inside a transaction and closed; Postgres only uses a cursor when autocommit is off.
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE))
+    @Query("SELECT new com.pccw.usermanagementsystem.repository.projection.UserSummary(u.id, u.username, u.role, u.enabled) " +
+            "FROM User u ORDER BY u.id")
+    Stream<UserSummary> streamAllSummaries();
+
+    /**
+     * Read paths select straight into the response DTO: the password column is never read and no entities are
+     * attached, so Hibernate keeps no snapshots. The read-only transaction also turns off flushing.
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.pccw.usermanagementsystem.dto.UserResponseDTO(u.id, u.username, u.role, u.enabled, u.version) " +
+            "FROM User u WHERE u.id = :id")
+    Optional<UserResponseDTO> findResponseById(@Param("id") Long id);
+
+    // Keyset pagination: served by the primary key index, cost does not grow with the page number
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.pccw.usermanagementsystem.dto.UserResponseDTO(u.id, u.username, u.role, u.enabled, u.version) " +
+            "FROM User u WHERE u.id > :id ORDER BY u.id")
+    List<UserResponseDTO> findResponsesByIdGreaterThan(@Param("id") Long id, Limit limit);
+
+    @Query("SELECT u.id FROM User u WHERE u.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // Replaces only the hash the login was verified against, so a password change committed in between wins
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :newPassword, u.version = u.version + 1 WHERE u.username = :username AND u.password = :oldPassword")
+    int updatePasswordHash(@Param("username") String username,
+                           @Param("oldPassword") String oldPassword,
+                           @Param("newPassword") String newPassword);
+
+    // One statement for the whole set; ids are bound as a single array so there is no bind-parameter limit
+    @Query(value = "UPDATE users SET enabled = false, version = version + 1 WHERE id = ANY(:ids) RETURNING id, username", nativeQuery = true)
+    List<UserIdentity> disableAllById(@Param("ids") Long[] ids);
+
+    // One statement for the whole batch: rows whose username is taken are skipped instead of failing it, and only
+    // the rows actually inserted come back. Ids come from the column default (users_id_seq)
+    @Query(value = "INSERT INTO users (username, password, role, enabled) " +
+            "SELECT * FROM unnest(CAST(:usernames AS text[]), CAST(:passwords AS text[]), CAST(:roles AS text[]), CAST(:enabled AS boolean[])) " +
+            "ON CONFLICT (username) DO NOTHING RETURNING id, username", nativeQuery = true)
+    List<UserIdentity> insertAllSkippingExisting(@Param("usernames") String[] usernames,
+                                                 @Param("passwords") String[] passwords,
+                                                 @Param("roles") String[] roles,
+                                                 @Param("enabled") Boolean[] enabled);
+
+    // Sets the hashes of rows inserted earlier in the same transaction, all in one statement
+    @Modifying
+    @Query(value = "UPDATE users SET password = p.password " +
+            "FROM unnest(CAST(:ids AS bigint[]), CAST(:passwords AS text[])) AS p(id, password) WHERE users.id = p.id", nativeQuery = true)
+    int updatePasswordsById(@Param("ids") Long[] ids, @Param("passwords") String[] passwords);
 }
@@ -0,0 +1,18 @@
+package com.pccw.usermanagementsystem.repository;
+
+import com.pccw.usermanagementsystem.entity.enums.Role;
+import com.pccw.usermanagementsystem.pagination.UserSearchSort;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Filters of a user search; null filters are left out of the query. {@code after} is the sort key of the last
+ * user on the previous page (an id or a username, depending on {@code sort}), or null for the first page.
+ */
+public record UserSearchCriteria(Role role,
+                                 Boolean enabled,
+                                 String usernamePrefix,
+                                 String emailDomainPrefix,
+                                 UserSearchSort sort,
+                                 Sort.Direction direction,
+                                 Object after) {
+}
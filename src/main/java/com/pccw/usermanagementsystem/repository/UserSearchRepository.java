@@ -0,0 +1,10 @@
+package com.pccw.usermanagementsystem.repository;
+
+import com.pccw.usermanagementsystem.dto.UserResponseDTO;
+
+import java.util.List;
+
+public interface UserSearchRepository {
+
+    List<UserResponseDTO> search(UserSearchCriteria criteria, int limit);
+}
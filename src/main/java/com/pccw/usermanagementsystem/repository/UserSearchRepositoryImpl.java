@@ -0,0 +1,67 @@
+package com.pccw.usermanagementsystem.repository;
+
+import com.pccw.usermanagementsystem.dto.UserResponseDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import lombok.RequiredArgsConstructor;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Builds the search query from only the filters that were given, so Postgres plans each combination against the
+ * index that serves it (see V5__users_search_indexes.sql) instead of one catch-all plan with
+ * {@code :param IS NULL OR ...} branches that ends in a sequential scan.
+ */
+@RequiredArgsConstructor
+public class UserSearchRepositoryImpl implements UserSearchRepository {
+
+    private final EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserResponseDTO> search(UserSearchCriteria criteria, int limit) {
+        StringJoiner conditions = new StringJoiner(" AND ", " WHERE ", "").setEmptyValue("");
+        Map<String, Object> parameters = new LinkedHashMap<>();
+
+        if (criteria.role() != null) {
+            conditions.add("u.role = :role");
+            parameters.put("role", criteria.role());
+        }
+        if (criteria.enabled() != null) {
+            conditions.add("u.enabled = :enabled");
+            parameters.put("enabled", criteria.enabled());
+        }
+        if (criteria.usernamePrefix() != null) {
+            conditions.add("u.username LIKE :usernamePrefix ESCAPE '\\'");
+            parameters.put("usernamePrefix", escapeLike(criteria.usernamePrefix()) + "%");
+        }
+        if (criteria.emailDomainPrefix() != null) {
+            // Must match the expression of users_email_domain_pattern_idx for the index to be used
+            conditions.add("lower(function('split_part', u.username, '@', 2)) LIKE :emailDomainPrefix ESCAPE '\\'");
+            parameters.put("emailDomainPrefix", escapeLike(criteria.emailDomainPrefix().toLowerCase(Locale.ROOT)) + "%");
+        }
+
+        String key = "u." + criteria.sort().getProperty();
+        boolean ascending = criteria.direction().isAscending();
+        if (criteria.after() != null) {
+            conditions.add(key + (ascending ? " > " : " < ") + ":after");
+            parameters.put("after", criteria.after());
+        }
+
+        String jpql = "SELECT new com.pccw.usermanagementsystem.dto.UserResponseDTO(u.id, u.username, u.role, u.enabled, u.version) FROM User u"
+                + conditions + " ORDER BY " + key + (ascending ? " ASC" : " DESC");
+
+        TypedQuery<UserResponseDTO> query = entityManager.createQuery(jpql, UserResponseDTO.class).setMaxResults(limit);
+        parameters.forEach(query::setParameter);
+        return query.getResultList();
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,8 @@
+package com.pccw.usermanagementsystem.repository.projection;
+
+public interface UserIdentity {
+
+    Long getId();
+
+    String getUsername();
+}
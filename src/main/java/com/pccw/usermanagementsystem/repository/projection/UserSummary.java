@@ -0,0 +1,10 @@
+package com.pccw.usermanagementsystem.repository.projection;
+
+import com.pccw.usermanagementsystem.entity.enums.Role;
+
+/**
+ * The columns a client may see; selected with a constructor expression, so rows are never managed
+ * by the persistence context and the password hash is never read.
+ */
+public record UserSummary(Long id, String username, Role role, Boolean enabled) {
+}
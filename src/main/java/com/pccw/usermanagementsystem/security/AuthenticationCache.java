@@ -0,0 +1,161 @@
+package com.pccw.usermanagementsystem.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, TTL-evicting cache of successful authentications, keyed by username.
+ * Each entry stores an HMAC of the presented credential under a per-process random key,
+ * so a repeat login with the same password can skip the database lookup and BCrypt check
+ * without the plaintext ever being kept in memory.
+ */
+@Component
+public class AuthenticationCache {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final boolean enabled;
+    private final SecretKeySpec digestKey;
+    private final Cache<String, CachedAuthentication> cache;
+
+    // Bumped on every invalidation so that an authentication which raced with a user mutation is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public AuthenticationCache(@Value("${app.security.auth-cache.enabled:true}") boolean enabled,
+                               @Value("${app.security.auth-cache.max-size:10000}") long maxSize,
+                               @Value("${app.security.auth-cache.ttl:60s}") Duration ttl) {
+        this.enabled = enabled;
+
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        this.digestKey = new SecretKeySpec(key, HMAC_ALGORITHM);
+
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .removalListener((String username, CachedAuthentication entry, RemovalCause cause) -> {
+                    if (cause.wasEvicted()) {
+                        evictions.increment();
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Returns the cached authentication if the same username and password were verified recently, otherwise null.
+     */
+    public Authentication get(String username, String password) {
+        if (!enabled) {
+            return null;
+        }
+
+        CachedAuthentication entry = cache.getIfPresent(username);
+        if (entry != null && MessageDigest.isEqual(entry.credentialDigest(), digest(username, password))) {
+            hits.increment();
+            return entry.authentication();
+        }
+
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Captures the current generation; pass it back to {@link #put} once the delegate has authenticated.
+     */
+    public long currentGeneration() {
+        return generation.get();
+    }
+
+    public void put(String username, String password, Authentication authentication, long expectedGeneration) {
+        if (!enabled) {
+            return;
+        }
+
+        CachedAuthentication entry = new CachedAuthentication(digest(username, password), authentication);
+        cache.put(username, entry);
+
+        // A user was mutated while we were authenticating; drop what we just stored rather than risk serving stale details
+        if (generation.get() != expectedGeneration) {
+            cache.invalidate(username);
+        }
+    }
+
+    /**
+     * Drops the user now and again once the surrounding transaction commits: until then a concurrent login still
+     * reads the old, committed password and would cache it again.
+     */
+    public void invalidate(String username) {
+        invalidateAll(List.of(username));
+    }
+
+    public void invalidateAll(Collection<String> usernames) {
+        evict(usernames);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(usernames);
+                }
+            });
+        }
+    }
+
+    private void evict(Collection<String> usernames) {
+        generation.incrementAndGet();
+        cache.invalidateAll(usernames);
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public long getSize() {
+        return cache.estimatedSize();
+    }
+
+    private byte[] digest(String username, String password) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(digestKey);
+            mac.update(username.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return mac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to compute credential digest", e);
+        }
+    }
+
+    private record CachedAuthentication(byte[] credentialDigest, Authentication authentication) {
+    }
+}
@@ -0,0 +1,116 @@
+package com.pccw.usermanagementsystem.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures how long one BCrypt hash takes on this host at increasing cost factors and recommends the highest cost
+ * whose median stays within {@code app.security.password.latency-budget}. Each step doubles the time, so the
+ * measurement stops at the first cost over budget.
+ * <p>
+ * Runs on startup with {@code app.security.password.calibrate=true}, or without starting the application through
+ * {@link #main(String[])}. Measure on the hardware that serves logins: the result does not carry over between hosts.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.security.password.calibrate", havingValue = "true")
+public class BCryptCostCalibrator implements ApplicationRunner {
+
+    public static final int MIN_STRENGTH = 4;
+    public static final int MAX_STRENGTH = 31;
+    // Below this BCrypt is considered too cheap regardless of the budget
+    public static final int RECOMMENDED_MIN_STRENGTH = 10;
+
+    private static final int SAMPLES = 5;
+    private static final String PASSWORD = "calibration-Password-1";
+
+    private final Duration latencyBudget;
+    private final int configuredStrength;
+
+    public BCryptCostCalibrator(@Value("${app.security.password.latency-budget:250ms}") Duration latencyBudget,
+                                @Value("${app.security.password.bcrypt-strength:10}") int configuredStrength) {
+        this.latencyBudget = latencyBudget;
+        this.configuredStrength = configuredStrength;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Calibration calibration = calibrate(latencyBudget, SAMPLES);
+        calibration.measurements().forEach(measurement ->
+                log.info("BCrypt cost {}: {} ms per hash", measurement.strength(), measurement.median().toMillis()));
+        log.info("Recommended app.security.password.bcrypt-strength={} for a {} ms budget (configured: {})",
+                calibration.recommendedStrength(), latencyBudget.toMillis(), configuredStrength);
+        if (calibration.recommendedStrength() < RECOMMENDED_MIN_STRENGTH) {
+            log.warn("This host cannot hash at cost {} within the budget; raise the budget or add hashing capacity",
+                    RECOMMENDED_MIN_STRENGTH);
+        }
+    }
+
+    public static Calibration calibrate(Duration latencyBudget, int samples) {
+        List<Measurement> measurements = new ArrayList<>();
+        for (int strength = MIN_STRENGTH; strength <= MAX_STRENGTH; strength++) {
+            Measurement measurement = measure(strength, samples);
+            measurements.add(measurement);
+            if (measurement.median().compareTo(latencyBudget) > 0) {
+                break;
+            }
+        }
+        return new Calibration(measurements, recommend(measurements, latencyBudget));
+    }
+
+    /**
+     * The highest measured cost within the budget, or the minimum cost if none is.
+     */
+    public static int recommend(List<Measurement> measurements, Duration latencyBudget) {
+        return measurements.stream()
+                .filter(measurement -> measurement.median().compareTo(latencyBudget) <= 0)
+                .mapToInt(Measurement::strength)
+                .max()
+                .orElse(MIN_STRENGTH);
+    }
+
+    private static Measurement measure(int strength, int samples) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        // The first hash pays for class loading and JIT warm-up
+        encoder.encode(PASSWORD);
+
+        long[] nanos = new long[samples];
+        for (int i = 0; i < samples; i++) {
+            long start = System.nanoTime();
+            encoder.encode(PASSWORD);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return new Measurement(strength, Duration.ofNanos(nanos[samples / 2]));
+    }
+
+    /**
+     * Command-line entry point: {@code java -Dloader.main=com.pccw.usermanagementsystem.security.BCryptCostCalibrator
+     * -cp user-management-system.jar org.springframework.boot.loader.launch.PropertiesLauncher [budget]}, where the
+     * budget is an ISO-8601 duration such as {@code PT0.25S}.
+     */
+    public static void main(String[] args) {
+        Duration latencyBudget = args.length > 0 ? Duration.parse(args[0]) : Duration.ofMillis(250);
+        Calibration calibration = calibrate(latencyBudget, SAMPLES);
+        calibration.measurements().forEach(measurement ->
+                System.out.printf("cost %2d: %6d ms%n", measurement.strength(), measurement.median().toMillis()));
+        System.out.printf("recommended app.security.password.bcrypt-strength=%d for a %d ms budget%n",
+                calibration.recommendedStrength(), latencyBudget.toMillis());
+    }
+
+    public record Measurement(int strength, Duration median) {
+    }
+
+    public record Calibration(List<Measurement> measurements, int recommendedStrength) {
+    }
+}
@@ -0,0 +1,57 @@
+package com.pccw.usermanagementsystem.security;
+
+import com.pccw.usermanagementsystem.exception.HashingCapacityExceededException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+/**
+ * Short-circuits repeat username/password authentications through the {@link AuthenticationCache}
+ * and only falls back to the delegate (database lookup + password check) on a miss.
+ */
+@RequiredArgsConstructor
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+
+    private final AuthenticationProvider delegate;
+    private final AuthenticationCache authenticationCache;
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        String username = authentication.getName();
+        if (!(authentication.getCredentials() instanceof String password)) {
+            return authenticateWithDelegate(authentication);
+        }
+
+        Authentication cached = authenticationCache.get(username, password);
+        if (cached != null) {
+            return cached;
+        }
+
+        long generation = authenticationCache.currentGeneration();
+        Authentication result = authenticateWithDelegate(authentication);
+        if (result != null && result.isAuthenticated()) {
+            authenticationCache.put(username, password, result, generation);
+        }
+        return result;
+    }
+
+    // DaoAuthenticationProvider wraps whatever escapes the user lookup as an InternalAuthenticationServiceException,
+    // which is answered with 401; a check shed by the hashing pool has to stay a 503
+    private Authentication authenticateWithDelegate(Authentication authentication) {
+        try {
+            return delegate.authenticate(authentication);
+        } catch (InternalAuthenticationServiceException e) {
+            if (e.getCause() instanceof HashingCapacityExceededException overloaded) {
+                throw overloaded;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return delegate.supports(authentication);
+    }
+}
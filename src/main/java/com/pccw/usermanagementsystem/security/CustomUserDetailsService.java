@@ -1,31 +1,63 @@
 package com.pccw.usermanagementsystem.security;
 
+import com.pccw.usermanagementsystem.datasource.ReadRouting;
 import com.pccw.usermanagementsystem.entity.User;
 import com.pccw.usermanagementsystem.repository.UserRepository;
+import com.pccw.usermanagementsystem.service.UserCache;
+import com.pccw.usermanagementsystem.service.UserLookupCoalescer;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.core.userdetails.User.UserBuilder;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
+@Slf4j
 @Service
 @RequiredArgsConstructor
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final ReadRouting readRouting;
+    private final UserCache userCache;
+    private final UserLookupCoalescer userLookupCoalescer;
 
 
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
+        User user = readRouting.read(null, username, () -> userLookupCoalescer.findByUsername(username))
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
 
         UserBuilder builder = org.springframework.security.core.userdetails.User.withUsername(user.getUsername());
         builder.password(user.getPassword());
         builder.roles(user.getRole().name());
+        // Soft-deleted users can no longer log in
+        builder.disabled(!Boolean.TRUE.equals(user.getEnabled()));
 
         return builder.build();
     }
+
+    /**
+     * Called after a successful login whose stored hash uses an outdated algorithm or cost, with the password
+     * already rehashed under the current settings.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        if (userRepository.updatePasswordHash(user.getUsername(), user.getPassword(), newPassword) == 0) {
+            // The password changed since it was loaded; keep the newer one
+            return user;
+        }
+
+        // Later logins read the new hash from the primary, so a lagging replica does not trigger another upgrade
+        readRouting.recordWrites(List.of(), List.of(user.getUsername()));
+        userCache.invalidateAll(List.of(), List.of(user.getUsername()));
+        userLookupCoalescer.forget(List.of(), List.of(user.getUsername()));
+        log.debug("Upgraded the password hash of {}", user.getUsername());
+        return org.springframework.security.core.userdetails.User.withUserDetails(user).password(newPassword).build();
+    }
 }
@@ -0,0 +1,33 @@
+package com.pccw.usermanagementsystem.security;
+
+import com.pccw.usermanagementsystem.exception.HashingCapacityExceededException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+import java.io.IOException;
+
+/**
+ * Basic authentication checks the password inside the filter chain, outside any controller, so a request shed by
+ * the hashing pool there would surface as a 500. This hands it to the {@code GlobalExceptionHandler} instead,
+ * which answers {@code 503} with {@code Retry-After}.
+ */
+@RequiredArgsConstructor
+public class HashingOverloadFilter extends OncePerRequestFilter {
+
+    private final HandlerExceptionResolver handlerExceptionResolver;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try {
+            filterChain.doFilter(request, response);
+        } catch (HashingCapacityExceededException e) {
+            handlerExceptionResolver.resolveException(request, response, null, e);
+        }
+    }
+}
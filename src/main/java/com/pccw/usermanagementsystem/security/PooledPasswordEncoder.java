@@ -0,0 +1,30 @@
+package com.pccw.usermanagementsystem.security;
+
+import com.pccw.usermanagementsystem.service.PasswordHashingService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Hands the authentication provider's password checks to the bounded {@link PasswordHashingService} pool,
+ * so logins and Basic-auth requests share its capacity and are shed with it.
+ */
+@RequiredArgsConstructor
+public class PooledPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordHashingService passwordHashingService;
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return passwordHashingService.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return passwordHashingService.matches(rawPassword, encodedPassword);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return passwordHashingService.upgradeEncoding(encodedPassword);
+    }
+}
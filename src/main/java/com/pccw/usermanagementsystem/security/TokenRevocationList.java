@@ -0,0 +1,60 @@
+package com.pccw.usermanagementsystem.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Per-user "not before" instants for access tokens: a token issued at or before the moment its user was
+ * updated or soft deleted is rejected. Entries only need to outlive the access token TTL, after which every
+ * token they could reject has expired anyway.
+ * <p>
+ * The list is held in memory, so after a restart (or on another instance) a revoked access token stays valid
+ * until it expires; refresh tokens are re-checked against the database and are not affected.
+ */
+@Component
+public class TokenRevocationList {
+
+    private final Cache<Long, Long> revokedAtByUserId;
+
+    public TokenRevocationList(@Value("${app.security.token.access-ttl:15m}") Duration accessTokenTtl) {
+        this.revokedAtByUserId = Caffeine.newBuilder()
+                .expireAfterWrite(accessTokenTtl)
+                .build();
+    }
+
+    public void revoke(Long userId) {
+        revokeAll(List.of(userId));
+    }
+
+    public void revokeAll(Collection<Long> userIds) {
+        markRevoked(userIds);
+
+        // A login racing with the change may have issued a token from the old, still uncommitted state
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    markRevoked(userIds);
+                }
+            });
+        }
+    }
+
+    public boolean isRevoked(long userId, long issuedAtMillis) {
+        Long revokedAt = revokedAtByUserId.getIfPresent(userId);
+        return revokedAt != null && issuedAtMillis <= revokedAt;
+    }
+
+    private void markRevoked(Collection<Long> userIds) {
+        long now = System.currentTimeMillis();
+        userIds.forEach(userId -> revokedAtByUserId.put(userId, now));
+    }
+}
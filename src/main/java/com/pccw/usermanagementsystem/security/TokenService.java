@@ -0,0 +1,187 @@
+package com.pccw.usermanagementsystem.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pccw.usermanagementsystem.datasource.ReadRouting;
+import com.pccw.usermanagementsystem.dto.TokenResponseDTO;
+import com.pccw.usermanagementsystem.entity.User;
+import com.pccw.usermanagementsystem.exception.InvalidTokenException;
+import com.pccw.usermanagementsystem.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Issues and verifies HMAC-SHA256 signed tokens of the form {@code base64url(claims).base64url(signature)}.
+ * <p>
+ * Access tokens are short-lived and verified without touching the database: signature, expiry and the
+ * in-memory {@link TokenRevocationList}. Refresh tokens live longer and are re-checked against the user row
+ * on every refresh, including a fingerprint of the user's credentials epoch, so a password change or soft delete
+ * invalidates them even across restarts. The epoch rather than the hash: upgrading the hash of an unchanged
+ * password on login must not sign the user's other devices out.
+ */
+@Slf4j
+@Component
+public class TokenService {
+
+    public static final String TOKEN_TYPE = "Bearer";
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final String ACCESS = "access";
+    private static final String REFRESH = "refresh";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final ObjectMapper objectMapper;
+    private final UserRepository userRepository;
+    private final ReadRouting readRouting;
+    private final TokenRevocationList tokenRevocationList;
+    private final SecretKeySpec signingKey;
+    private final Duration accessTokenTtl;
+    private final Duration refreshTokenTtl;
+
+    public TokenService(ObjectMapper objectMapper,
+                        UserRepository userRepository,
+                        ReadRouting readRouting,
+                        TokenRevocationList tokenRevocationList,
+                        @Value("${app.security.token.secret:}") String secret,
+                        @Value("${app.security.token.access-ttl:15m}") Duration accessTokenTtl,
+                        @Value("${app.security.token.refresh-ttl:7d}") Duration refreshTokenTtl) {
+        this.objectMapper = objectMapper;
+        this.userRepository = userRepository;
+        this.readRouting = readRouting;
+        this.tokenRevocationList = tokenRevocationList;
+        this.signingKey = new SecretKeySpec(signingKeyBytes(secret), HMAC_ALGORITHM);
+        this.accessTokenTtl = accessTokenTtl;
+        this.refreshTokenTtl = refreshTokenTtl;
+    }
+
+    public TokenResponseDTO issueTokens(User user) {
+        long now = System.currentTimeMillis();
+
+        TokenClaims access = new TokenClaims(ACCESS, user.getId(), user.getUsername(), user.getRole().name(),
+                now, now + accessTokenTtl.toMillis(), null);
+        TokenClaims refresh = new TokenClaims(REFRESH, user.getId(), user.getUsername(), user.getRole().name(),
+                now, now + refreshTokenTtl.toMillis(), credentialsFingerprint(user));
+
+        return new TokenResponseDTO(sign(access), sign(refresh), TOKEN_TYPE, accessTokenTtl.toSeconds());
+    }
+
+    /**
+     * Verifies an access token and returns the authentication it carries; no database access.
+     */
+    public Authentication authenticate(String accessToken) {
+        TokenClaims claims = verify(accessToken, ACCESS);
+        return UsernamePasswordAuthenticationToken.authenticated(claims.username(), null,
+                List.of(new SimpleGrantedAuthority("ROLE_" + claims.role())));
+    }
+
+    /**
+     * Exchanges a valid refresh token for a new token pair, provided the user is still enabled and has not
+     * changed their password since the refresh token was issued.
+     */
+    public TokenResponseDTO refresh(String refreshToken) {
+        TokenClaims claims = verify(refreshToken, REFRESH);
+
+        // From the primary: a replica that has not caught up with a password change or soft delete would accept it
+        User user = readRouting.onPrimary(() -> userRepository.findById(claims.sub()))
+                .filter(User::getEnabled)
+                .orElseThrow(() -> new InvalidTokenException("User is no longer active"));
+
+        if (!MessageDigest.isEqual(bytes(credentialsFingerprint(user)), bytes(claims.pwd()))) {
+            throw new InvalidTokenException("Credentials changed since the token was issued");
+        }
+        return issueTokens(user);
+    }
+
+    private TokenClaims verify(String token, String expectedType) {
+        int separator = token.indexOf('.');
+        if (separator <= 0 || separator != token.lastIndexOf('.')) {
+            throw new InvalidTokenException("Malformed token");
+        }
+
+        String payload = token.substring(0, separator);
+        byte[] signature;
+        TokenClaims claims;
+        try {
+            signature = DECODER.decode(token.substring(separator + 1));
+            if (!MessageDigest.isEqual(hmac(payload), signature)) {
+                throw new InvalidTokenException("Invalid token signature");
+            }
+            claims = objectMapper.readValue(DECODER.decode(payload), TokenClaims.class);
+        } catch (IllegalArgumentException | IOException e) {
+            throw new InvalidTokenException("Malformed token");
+        }
+
+        if (!expectedType.equals(claims.typ())) {
+            throw new InvalidTokenException("Wrong token type");
+        }
+        if (System.currentTimeMillis() >= claims.exp()) {
+            throw new InvalidTokenException("Token has expired");
+        }
+        if (tokenRevocationList.isRevoked(claims.sub(), claims.iat())) {
+            throw new InvalidTokenException("Token has been revoked");
+        }
+        return claims;
+    }
+
+    private String sign(TokenClaims claims) {
+        try {
+            String payload = ENCODER.encodeToString(objectMapper.writeValueAsBytes(claims));
+            return payload + "." + ENCODER.encodeToString(hmac(payload));
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to serialize token claims", e);
+        }
+    }
+
+    private String credentialsFingerprint(User user) {
+        return ENCODER.encodeToString(Arrays.copyOf(hmac(user.getId() + ":" + user.getCredentialsEpoch()), 16));
+    }
+
+    private byte[] hmac(String value) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(signingKey);
+            return mac.doFinal(value.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to compute token signature", e);
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] signingKeyBytes(String secret) {
+        if (secret == null || secret.isBlank()) {
+            log.warn("app.security.token.secret is not set; using a random key, tokens will not survive a restart or work across instances");
+            byte[] key = new byte[32];
+            new SecureRandom().nextBytes(key);
+            return key;
+        }
+
+        byte[] key = Base64.getDecoder().decode(secret);
+        if (key.length < 32) {
+            throw new IllegalStateException("app.security.token.secret must be at least 256 bits (base64 encoded)");
+        }
+        return key;
+    }
+
+    record TokenClaims(String typ, long sub, String username, String role, long iat, long exp, String pwd) {
+    }
+}
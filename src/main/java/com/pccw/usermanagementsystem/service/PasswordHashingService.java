@@ -0,0 +1,291 @@
+package com.pccw.usermanagementsystem.service;
+
+import com.pccw.usermanagementsystem.exception.HashingCapacityExceededException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs every password hash and password check on a dedicated pool sized to the available cores, so BCrypt
+ * never runs on request threads and a burst of registrations or logins cannot take every core from cheap requests.
+ * <p>
+ * Every hash in the pool or waiting for it holds one of {@code pool-size + app.security.hashing.queue-capacity}
+ * permits. Single hashes ({@link #encode}, {@link #matches}) come from registrations, updates and authentications;
+ * when no permit is free, or one cannot finish within {@code app.security.hashing.deadline}, a
+ * {@link HashingCapacityExceededException} is thrown straight away instead of letting latency grow.
+ * <p>
+ * Batches ({@link #encodeAll}) hold between one and {@code pool-size} permits and hash their passwords through them
+ * one after another, so a bulk request or import chunk of any size takes no more of the queue than it can keep busy.
+ * A batch that gets no permit within the deadline is rejected the same way. Queued batch hashes run after single
+ * ones, so an import slows down rather than locking users out.
+ */
+@Service
+public class PasswordHashingService {
+
+    private static final int SINGLE_PRIORITY = 0;
+    private static final int BATCH_PRIORITY = 1;
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor hashingPool;
+    private final int poolSize;
+    private final Semaphore capacity;
+    private final Duration deadline;
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final LongAdder rejectedFull = new LongAdder();
+    private final LongAdder rejectedDeadline = new LongAdder();
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder,
+                                  @Value("${app.security.hashing.pool-size:0}") int poolSize,
+                                  @Value("${app.security.hashing.queue-capacity:32}") int queueCapacity,
+                                  @Value("${app.security.hashing.deadline:2s}") Duration deadline) {
+        this.passwordEncoder = passwordEncoder;
+        this.poolSize = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        this.capacity = new Semaphore(this.poolSize + queueCapacity);
+        this.deadline = deadline;
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("password-hashing-");
+        threadFactory.setDaemon(true);
+        this.hashingPool = new ThreadPoolExecutor(this.poolSize, this.poolSize, 0L, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(), threadFactory);
+    }
+
+    public String encode(CharSequence rawPassword) {
+        return runSingle(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return runSingle(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * True when the hash should be upgraded and no hash is waiting for a thread, so the upgrade starts as soon as
+     * one is free. The upgrade is optional work done after a successful login: under load it waits for a later
+     * login rather than queueing behind, or failing, the one that triggered it.
+     */
+    public boolean upgradeEncoding(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword) && hashingPool.getQueue().isEmpty();
+    }
+
+    /**
+     * Starts hashing every password in the background. The returned batch must be closed;
+     * closing it before {@link HashingBatch#join()} cancels whatever has not been hashed yet,
+     * e.g. when the caller rejects the request after a conflict check.
+     *
+     * @throws HashingCapacityExceededException if no permit frees up within the deadline
+     */
+    public HashingBatch encodeAll(List<String> rawPasswords) {
+        HashingBatch batch = new HashingBatch(rawPasswords);
+        batch.start();
+        return batch;
+    }
+
+    private <T> T runSingle(Callable<T> work) {
+        if (!capacity.tryAcquire()) {
+            rejectedFull.increment();
+            throw new HashingCapacityExceededException("Too many passwords are waiting to be hashed");
+        }
+
+        long deadlineNanos = System.nanoTime() + deadline.toNanos();
+        HashingTask<T> task = new HashingTask<>(work, SINGLE_PRIORITY, deadlineNanos, capacity::release);
+        try {
+            hashingPool.execute(task);
+            return task.get(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // A hash already running finishes on its own; one still queued is dropped
+            task.cancel(false);
+            rejectedDeadline.increment();
+            throw new HashingCapacityExceededException("Password hashing did not start in time");
+        } catch (InterruptedException e) {
+            task.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while hashing a password");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public int getQueueDepth() {
+        return hashingPool.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return hashingPool.getActiveCount();
+    }
+
+    public long getRejectedFullCount() {
+        return rejectedFull.sum();
+    }
+
+    public long getRejectedDeadlineCount() {
+        return rejectedDeadline.sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashingPool.shutdownNow();
+    }
+
+    /**
+     * Ordered by priority, then submission order. A task hands its permit to {@code onFinished} exactly once, either
+     * when it has run or when it is cancelled while queued.
+     */
+    private class HashingTask<T> extends FutureTask<T> implements Comparable<HashingTask<?>> {
+
+        private final int priority;
+        private final long order = sequence.getAndIncrement();
+        private final Runnable onFinished;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private HashingTask(Callable<T> work, int priority, Long deadlineNanos, Runnable onFinished) {
+            super(() -> {
+                // Nobody is waiting for a single hash whose deadline passed in the queue
+                if (deadlineNanos != null && System.nanoTime() - deadlineNanos > 0) {
+                    throw new CancellationException("Deadline passed before hashing started");
+                }
+                return work.call();
+            });
+            this.priority = priority;
+            this.onFinished = onFinished;
+        }
+
+        @Override
+        public void run() {
+            try {
+                super.run();
+            } finally {
+                release();
+            }
+        }
+
+        @Override
+        protected void done() {
+            // Runs on completion too; only a task cancelled while queued is released here, the rest by run()
+            if (isCancelled() && hashingPool.remove(this)) {
+                release();
+            }
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                onFinished.run();
+            }
+        }
+
+        @Override
+        public int compareTo(HashingTask<?> other) {
+            int byPriority = Integer.compare(priority, other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(order, other.order);
+        }
+    }
+
+    /**
+     * Hashes its passwords in order through the permits it holds: a finished hash passes its permit on to the next
+     * password, and gives it back once none is left or the batch is closed.
+     */
+    public class HashingBatch implements AutoCloseable {
+
+        private final List<HashingTask<String>> futures;
+        private int next;
+        private boolean closed;
+
+        private HashingBatch(List<String> rawPasswords) {
+            this.futures = new ArrayList<>(rawPasswords.size());
+            for (String rawPassword : rawPasswords) {
+                futures.add(new HashingTask<>(() -> passwordEncoder.encode(rawPassword), BATCH_PRIORITY, null, this::passOn));
+            }
+        }
+
+        private void start() {
+            if (futures.isEmpty()) {
+                return;
+            }
+            try {
+                if (!capacity.tryAcquire(deadline.toNanos(), TimeUnit.NANOSECONDS)) {
+                    rejectedDeadline.increment();
+                    throw new HashingCapacityExceededException("Too many passwords are waiting to be hashed");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Interrupted while waiting to hash passwords");
+            }
+
+            // More threads only if they are free now; a batch never waits for its second permit
+            int wanted = Math.min(futures.size(), poolSize);
+            int acquired = 1;
+            while (acquired < wanted && capacity.tryAcquire()) {
+                acquired++;
+            }
+            synchronized (this) {
+                while (next < acquired) {
+                    hashingPool.execute(futures.get(next++));
+                }
+            }
+        }
+
+        // A hash of this batch finished or was cancelled while queued
+        private synchronized void passOn() {
+            if (!closed && next < futures.size()) {
+                hashingPool.execute(futures.get(next++));
+                return;
+            }
+            capacity.release();
+        }
+
+        /**
+         * Waits for every hash, in the order the passwords were submitted.
+         */
+        public List<String> join() {
+            List<String> encoded = new ArrayList<>(futures.size());
+            try {
+                for (HashingTask<String> future : futures) {
+                    encoded.add(future.get());
+                }
+                return encoded;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Interrupted while hashing passwords");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw new IllegalStateException("Password hashing failed", e.getCause());
+            } finally {
+                close();
+            }
+        }
+
+        @Override
+        public void close() {
+            synchronized (this) {
+                closed = true;
+            }
+            futures.forEach(future -> future.cancel(false));
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.pccw.usermanagementsystem.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pccw.usermanagementsystem.dto.UserResponseDTO;
+import com.pccw.usermanagementsystem.entity.User;
+import com.pccw.usermanagementsystem.entity.enums.Role;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, TTL-evicting read-through cache of users by id and by username in front of {@code UserRepository}.
+ * <p>
+ * Lookups by username serve login and hold the full user; lookups by id serve the API and hold only what the
+ * response shows, never the password hash. Entries are immutable snapshots and every hit returns a fresh copy,
+ * so callers can never modify what other requests see. Only found users are cached; a miss always goes to the database.
+ */
+@Component
+public class UserCache {
+
+    private final boolean enabled;
+    private final Cache<Long, CachedResponse> byId;
+    private final Cache<String, CachedUser> byUsername;
+
+    // Bumped on every invalidation so that a load which raced with a user mutation is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    public UserCache(@Value("${app.user-cache.enabled:true}") boolean enabled,
+                     @Value("${app.user-cache.max-size:10000}") long maxSize,
+                     @Value("${app.user-cache.ttl:5m}") Duration ttl) {
+        this.enabled = enabled;
+        this.byId = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).recordStats().build();
+        this.byUsername = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).recordStats().build();
+    }
+
+    public Optional<UserResponseDTO> getById(Long id, Supplier<Optional<UserResponseDTO>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        CachedResponse cached = byId.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(cached.toDTO());
+        }
+
+        long expectedGeneration = generation.get();
+        Optional<UserResponseDTO> user = loader.get();
+        user.ifPresent(loaded -> store(CachedResponse.of(loaded), null, expectedGeneration));
+        return user;
+    }
+
+    public Optional<User> getByUsername(String username, Supplier<Optional<User>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        CachedUser cached = byUsername.getIfPresent(username);
+        if (cached != null) {
+            return Optional.of(cached.toUser());
+        }
+
+        long expectedGeneration = generation.get();
+        Optional<User> user = loader.get();
+        user.ifPresent(loaded -> {
+            CachedUser entry = CachedUser.of(loaded);
+            store(entry.toResponse(), entry, expectedGeneration);
+        });
+        return user;
+    }
+
+    /**
+     * Drops the user now and again once the surrounding transaction commits, since a concurrent read
+     * could otherwise re-cache the old row between the two.
+     */
+    public void invalidate(Long id, String username) {
+        invalidateAll(List.of(id), List.of(username));
+    }
+
+    public void invalidateAll(Collection<Long> ids, Collection<String> usernames) {
+        evict(ids, usernames);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(ids, usernames);
+                }
+            });
+        }
+    }
+
+    public void bindMetrics(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, byId, "users.by-id");
+        CaffeineCacheMetrics.monitor(registry, byUsername, "users.by-username");
+    }
+
+    private void store(CachedResponse response, CachedUser user, long expectedGeneration) {
+        byId.put(response.id(), response);
+        if (user != null) {
+            byUsername.put(user.username(), user);
+        }
+
+        // A user was mutated while we were loading; drop what we just stored rather than risk serving a stale row
+        if (generation.get() != expectedGeneration) {
+            byId.invalidate(response.id());
+            byUsername.invalidate(response.username());
+        }
+    }
+
+    private void evict(Collection<Long> ids, Collection<String> usernames) {
+        generation.incrementAndGet();
+        byId.invalidateAll(ids);
+        byUsername.invalidateAll(usernames);
+    }
+
+    private record CachedUser(Long id, String username, String password, Role role, Boolean enabled, Long version, long credentialsEpoch) {
+
+        static CachedUser of(User user) {
+            return new CachedUser(user.getId(), user.getUsername(), user.getPassword(), user.getRole(), user.getEnabled(), user.getVersion(),
+                    user.getCredentialsEpoch());
+        }
+
+        User toUser() {
+            return new User(id, username, password, role, enabled, version, credentialsEpoch);
+        }
+
+        CachedResponse toResponse() {
+            return new CachedResponse(id, username, role.getValue(), enabled, version);
+        }
+    }
+
+    private record CachedResponse(Long id, String username, String role, Boolean enabled, Long version) {
+
+        static CachedResponse of(UserResponseDTO user) {
+            return new CachedResponse(user.getId(), user.getUsername(), user.getRole(), user.getEnabled(), user.getVersion());
+        }
+
+        UserResponseDTO toDTO() {
+            return new UserResponseDTO(id, username, role, enabled, version);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.pccw.usermanagementsystem.service;
+
+import com.pccw.usermanagementsystem.datasource.ReadRouting;
+import com.pccw.usermanagementsystem.dto.UserResponseDTO;
+import com.pccw.usermanagementsystem.entity.User;
+import com.pccw.usermanagementsystem.repository.UserRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Sits in front of the single-user reads of {@link UserRepository}: concurrent lookups of the same username
+ * (a burst of Basic-auth requests with the same credentials) or the same id (a hot {@code GET /api/users/{id}})
+ * share one query and one result. Callers must treat a shared {@link User} as read-only.
+ * <p>
+ * Lookups inside a read-write transaction are never shared, since they must see that transaction's own writes.
+ * Lookups routed to the primary and to a replica are not shared with each other either.
+ */
+@Component
+public class UserLookupCoalescer {
+
+    private final UserRepository userRepository;
+    private final ReadRouting readRouting;
+    private final boolean enabled;
+
+    private final SingleFlight<LookupKey<String>, Optional<User>> byUsername = new SingleFlight<>();
+    private final SingleFlight<LookupKey<Long>, Optional<UserResponseDTO>> byId = new SingleFlight<>();
+
+    public UserLookupCoalescer(UserRepository userRepository,
+                               ReadRouting readRouting,
+                               @Value("${app.user-lookup.coalescing.enabled:true}") boolean enabled) {
+        this.userRepository = userRepository;
+        this.readRouting = readRouting;
+        this.enabled = enabled;
+    }
+
+    public Optional<User> findByUsername(String username) {
+        if (!coalesce()) {
+            return userRepository.findByUsername(username);
+        }
+        return byUsername.load(new LookupKey<>(username, readRouting.isPrimaryRequired()), () -> userRepository.findByUsername(username));
+    }
+
+    public Optional<UserResponseDTO> findResponseById(Long id) {
+        if (!coalesce()) {
+            return userRepository.findResponseById(id);
+        }
+        return byId.load(new LookupKey<>(id, readRouting.isPrimaryRequired()), () -> userRepository.findResponseById(id));
+    }
+
+    /**
+     * Stops lookups that started before a write from being shared with callers arriving after it, now and again
+     * once the surrounding transaction commits.
+     */
+    public void forget(Collection<Long> ids, Collection<String> usernames) {
+        evict(ids, usernames);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(ids, usernames);
+                }
+            });
+        }
+    }
+
+    public void bindMetrics(MeterRegistry registry) {
+        bind(registry, "by-username", byUsername);
+        bind(registry, "by-id", byId);
+    }
+
+    private boolean coalesce() {
+        return enabled && !(TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+    }
+
+    private void evict(Collection<Long> ids, Collection<String> usernames) {
+        for (boolean primary : List.of(false, true)) {
+            ids.forEach(id -> byId.forget(new LookupKey<>(id, primary)));
+            usernames.forEach(username -> byUsername.forget(new LookupKey<>(username, primary)));
+        }
+    }
+
+    private static void bind(MeterRegistry registry, String lookup, SingleFlight<?, ?> flight) {
+        FunctionCounter.builder("user.lookup.calls", flight, SingleFlight::getLoadCount)
+                .tag("lookup", lookup)
+                .tag("result", "queried")
+                .description("Single-user lookups, by whether they ran a query or shared a concurrent one")
+                .register(registry);
+        FunctionCounter.builder("user.lookup.calls", flight, SingleFlight::getCoalescedCount)
+                .tag("lookup", lookup)
+                .tag("result", "coalesced")
+                .description("Single-user lookups, by whether they ran a query or shared a concurrent one")
+                .register(registry);
+    }
+
+    private record LookupKey<K>(K key, boolean primary) {
+    }
+}
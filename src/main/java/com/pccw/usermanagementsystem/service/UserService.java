@@ -1,38 +1,75 @@
 package com.pccw.usermanagementsystem.service;
 
 
-import com.pccw.usermanagementsystem.service.email.EmailService;
+import com.pccw.usermanagementsystem.datasource.ReadRouting;
+import com.pccw.usermanagementsystem.service.email.EmailOutboxService;
+import com.pccw.usermanagementsystem.dto.UserResponseDTO;
 import com.pccw.usermanagementsystem.entity.User;
 import com.pccw.usermanagementsystem.exception.*;
 import com.pccw.usermanagementsystem.repository.UserRepository;
+import com.pccw.usermanagementsystem.repository.UserSearchCriteria;
+import com.pccw.usermanagementsystem.repository.projection.UserIdentity;
+import com.pccw.usermanagementsystem.security.AuthenticationCache;
+import com.pccw.usermanagementsystem.security.TokenRevocationList;
+import io.micrometer.core.annotation.Timed;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
+@Timed(value = "user.service", description = "UserService calls by method and exception")
 @RequiredArgsConstructor
 public class UserService {
 
-    private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
-    private final EmailService emailService;
+    // Not a BCrypt hash, so no password matches it; replaced before the inserting transaction commits
+    private static final String PENDING_PASSWORD_HASH = "!pending";
 
+    private final UserRepository userRepository;
+    private final PasswordHashingService passwordHashingService;
+    private final EmailOutboxService emailOutboxService;
+    private final AuthenticationCache authenticationCache;
+    private final TokenRevocationList tokenRevocationList;
+    private final UserCache userCache;
+    private final UserLookupCoalescer userLookupCoalescer;
+    private final UsernameFilter usernameFilter;
+    private final ReadRouting readRouting;
 
     @Transactional
     public User registerUser(User user) {
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
+        user.setPassword(passwordHashingService.encode(user.getPassword()));
 
-        if (userRepository.findByUsername(user.getUsername()).isPresent()) {
+        if (usernameExists(user.getUsername())) {
             throw new UserAlreadyExistsException(user.getUsername());
         }
-        User savedUser = userRepository.save(user);
 
-        emailService.sendWelcomeEmail(savedUser.getUsername(), "Welcome!", "Thank you for registering!");
+        User savedUser;
+        try {
+            // Flush now so a registration racing this one hits the unique index here rather than at commit
+            savedUser = userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            if (isUniqueViolation(e)) {
+                throw new UserAlreadyExistsException(user.getUsername());
+            }
+            throw e;
+        }
+        usersAdded(List.of(savedUser.getId()), List.of(savedUser.getUsername()));
+
+        emailOutboxService.enqueue(savedUser.getUsername(), "Welcome!", "Thank you for registering!");
 
         return savedUser;
 
@@ -40,77 +77,296 @@ public class UserService {
 
     @Transactional
     public List<User> registerUsers(List<User> users) {
-        users.forEach(user -> user.setPassword(passwordEncoder.encode(user.getPassword())));
+        // Hashing runs on the hashing pool while we check for conflicts; leaving the block early cancels it
+        try (PasswordHashingService.HashingBatch hashing = passwordHashingService.encodeAll(users.stream().map(User::getPassword).toList())) {
+            List<String> usernames = users.stream()
+                    .map(User::getUsername)
+                    .collect(Collectors.toList());
+
+            List<String> existingUsernames = findExistingUsernames(usernames);
+
+            if (!existingUsernames.isEmpty()) {
+                throw new UserAlreadyExistsException(String.join(", ", existingUsernames));
+            }
+
+            List<String> encodedPasswords = hashing.join();
+            for (int i = 0; i < users.size(); i++) {
+                users.get(i).setPassword(encodedPasswords.get(i));
+            }
+        }
 
-        List<String> usernames = users.stream()
-                .map(User::getUsername)
-                .collect(Collectors.toList());
+        List<User> savedUsers;
+        try {
+            // The check above misses usernames committed since, or registered on another instance the filter has
+            // not caught up with yet; flushing here turns those into a conflict instead of a failed commit
+            savedUsers = userRepository.saveAllAndFlush(users);
+        } catch (DataIntegrityViolationException e) {
+            if (isUniqueViolation(e)) {
+                // The transaction is aborted, so which one collided cannot be looked up any more
+                throw new UserAlreadyExistsException("one of " + String.join(", ", users.stream().map(User::getUsername).toList()));
+            }
+            throw e;
+        }
+        usersAdded(savedUsers.stream().map(User::getId).toList(), savedUsers.stream().map(User::getUsername).toList());
+
+        emailOutboxService.enqueueAll(savedUsers.stream().map(User::getUsername).toList(), "Welcome!", "Thank you for registering!");
+
+        return savedUsers;
+    }
 
-        List<String> existingUsernames = findExistingUsernames(usernames);
+    /**
+     * Inserts the users whose username is not taken yet and returns only those, with their generated ids.
+     * Existing usernames are skipped rather than failing the batch, so a client retrying a partially applied
+     * request gets the same outcome without a prior existence check. Only the inserted rows' passwords are
+     * hashed, so a retry of an applied batch costs no BCrypt work.
+     */
+    @Transactional
+    public List<User> registerUsersSkippingExisting(List<User> users) {
+        if (users.isEmpty()) {
+            return List.of();
+        }
 
-        if (!existingUsernames.isEmpty()) {
-            throw new UserAlreadyExistsException(String.join(", ", existingUsernames));
+        // Rows go in with a placeholder hash first: which ones were inserted is only known after ON CONFLICT
+        List<UserIdentity> inserted = userRepository.insertAllSkippingExisting(
+                users.stream().map(User::getUsername).toArray(String[]::new),
+                Collections.nCopies(users.size(), PENDING_PASSWORD_HASH).toArray(String[]::new),
+                users.stream().map(user -> user.getRole().name()).toArray(String[]::new),
+                users.stream().map(User::getEnabled).toArray(Boolean[]::new));
+        if (inserted.isEmpty()) {
+            return List.of();
         }
 
-        List<User> savedUsers = userRepository.saveAll(users);
+        Map<String, Long> insertedIds = inserted.stream().collect(Collectors.toMap(UserIdentity::getUsername, UserIdentity::getId));
+        // A username given twice is inserted once, for its first occurrence
+        Set<String> unclaimed = new HashSet<>(insertedIds.keySet());
+        List<User> insertedUsers = users.stream().filter(user -> unclaimed.remove(user.getUsername())).toList();
 
-        savedUsers.forEach(user -> emailService.sendWelcomeEmail(user.getUsername(), "Welcome!", "Thank you for registering!"));
+        List<String> encodedPasswords;
+        try (PasswordHashingService.HashingBatch hashing = passwordHashingService.encodeAll(insertedUsers.stream().map(User::getPassword).toList())) {
+            encodedPasswords = hashing.join();
+        }
 
-        return savedUsers;
+        List<User> createdUsers = new ArrayList<>(insertedUsers.size());
+        for (int i = 0; i < insertedUsers.size(); i++) {
+            User user = insertedUsers.get(i);
+            createdUsers.add(new User(insertedIds.get(user.getUsername()), user.getUsername(), encodedPasswords.get(i), user.getRole(), user.getEnabled()));
+        }
+        userRepository.updatePasswordsById(
+                createdUsers.stream().map(User::getId).toArray(Long[]::new),
+                encodedPasswords.toArray(String[]::new));
+
+        usersAdded(createdUsers.stream().map(User::getId).toList(), createdUsers.stream().map(User::getUsername).toList());
+        emailOutboxService.enqueueAll(createdUsers.stream().map(User::getUsername).toList(), "Welcome!", "Thank you for registering!");
+        return createdUsers;
     }
 
     public Optional<User> findUserByUsername(String username) {
-        return userRepository.findByUsername(username);
+        return readRouting.read(null, username, () -> userCache.getByUsername(username, () -> userLookupCoalescer.findByUsername(username)));
+    }
+
+    /**
+     * Answers from the username filter when the username is definitely free, and from the database otherwise.
+     */
+    public boolean isUsernameAvailable(String username) {
+        return readRouting.read(null, username, () -> !usernameExists(username));
     }
 
     public List<String> findExistingUsernames(List<String> usernames) {
-        return userRepository.findByUsernameIn(usernames).stream().map(User::getUsername).collect(Collectors.toList());
+        // Only usernames the filter cannot rule out need to be looked up
+        List<String> candidates = usernames.stream().filter(usernameFilter::mightContain).toList();
+        if (candidates.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return userRepository.findByUsernameIn(candidates).stream().map(User::getUsername).collect(Collectors.toList());
+    }
+
+    public UserResponseDTO findActiveUserById(Long userId) {
+        return readRouting.read(userId, null, () -> userCache.getById(userId, () -> userLookupCoalescer.findResponseById(userId)))
+                .orElseThrow(() -> new UserNotFoundException(userId));
     }
 
-    public User findActiveUserById(Long userId) {
-        return userRepository.findById(userId).orElseThrow(() -> new UserNotFoundException(userId));
+    public List<UserResponseDTO> findUsersAfter(long afterId, int limit) {
+        return userRepository.findResponsesByIdGreaterThan(afterId, Limit.of(limit));
     }
 
-    public List<User> findAllUsers() {
-        return userRepository.findAll();
+    public List<UserResponseDTO> searchUsers(UserSearchCriteria criteria, int limit) {
+        return userRepository.search(criteria, limit);
     }
 
+    /**
+     * A non-null version on {@code toBeUpdated} is the one the client last read; the update is refused when the
+     * user changed since.
+     */
     @Transactional
     public User updateUser(User toBeUpdated) {
         User user = userRepository.findById(toBeUpdated.getId()).orElseThrow(() -> new UserNotFoundException(toBeUpdated.getId()));
+        checkVersion(user, toBeUpdated.getVersion());
+        userChanged(user.getId(), user.getUsername());
 
         user.setUsername(toBeUpdated.getUsername());
-        user.setPassword(passwordEncoder.encode(toBeUpdated.getPassword()));
+        user.changePassword(passwordHashingService.encode(toBeUpdated.getPassword()));
         user.setRole(toBeUpdated.getRole());
         user.setEnabled(toBeUpdated.getEnabled());
+        usersAdded(List.of(), List.of(user.getUsername()));
         return userRepository.save(user);
     }
 
     @Transactional
     public List<User> updateUsers(List<User> toBeUpdated) {
-        List<Long> toBeUpdatedIds = toBeUpdated.stream().map(User::getId).collect(Collectors.toList());
-
-        List<User> foundUsers = userRepository.findAllById(toBeUpdatedIds);
-
-        // Check if there are any missing IDs and throw an exception for the first missing id found
-        validateAllUsersFound(toBeUpdatedIds, foundUsers.stream().map(User::getId).toList());
+        // Index the requested changes by id once, so matching each loaded user is a hash lookup rather than a scan
+        Map<Long, User> detailsById = indexById(toBeUpdated);
+        List<Long> toBeUpdatedIds = List.copyOf(detailsById.keySet());
+
+        List<User> foundUsers;
+        // Hash the new passwords while the users are loaded; a missing id cancels the remaining work
+        try (PasswordHashingService.HashingBatch hashing = passwordHashingService.encodeAll(toBeUpdated.stream().map(User::getPassword).toList())) {
+            foundUsers = userRepository.findAllById(toBeUpdatedIds);
+
+            // Check if there are any missing IDs and report all of them
+            validateAllUsersFound(toBeUpdatedIds, foundUsers.stream().map(User::getId).toList());
+
+            List<String> encodedPasswords = hashing.join();
+            for (int i = 0; i < toBeUpdated.size(); i++) {
+                toBeUpdated.get(i).setPassword(encodedPasswords.get(i));
+            }
+        }
+        usersChanged(toBeUpdatedIds, foundUsers.stream().map(User::getUsername).toList());
 
         foundUsers.forEach(user -> {
-            User userDetails = toBeUpdated.stream().filter(details -> details.getId().equals(user.getId())).findFirst().get();
+            User userDetails = detailsById.get(user.getId());
 
             user.setUsername(userDetails.getUsername());
-            user.setPassword(passwordEncoder.encode(userDetails.getPassword()));
+            user.changePassword(userDetails.getPassword());
             user.setRole(userDetails.getRole());
             user.setEnabled(userDetails.getEnabled());
+            usersAdded(List.of(), List.of(user.getUsername()));
         });
 
         return userRepository.saveAll(foundUsers);
     }
 
+    /**
+     * Applies the non-null fields of {@code patch} to the stored user. The password is only hashed when one is
+     * supplied, and a patch that changes nothing leaves the row (and the authentication cache) untouched.
+     * A non-null version on {@code patch} must match the stored one, as in {@link #updateUser}.
+     */
+    @Transactional
+    public User patchUser(User patch) {
+        User user = userRepository.findById(patch.getId()).orElseThrow(() -> new UserNotFoundException(patch.getId()));
+        checkVersion(user, patch.getVersion());
+
+        String encodedPassword = patch.getPassword() == null ? null : passwordHashingService.encode(patch.getPassword());
+        String previousUsername = user.getUsername();
+
+        // The user is managed, so dirty checking flushes only what applyPatch changed
+        if (applyPatch(user, patch, encodedPassword)) {
+            userChanged(user.getId(), previousUsername);
+        }
+        return user;
+    }
+
+    @Transactional
+    public List<User> patchUsers(List<User> patches) {
+        Map<Long, User> patchesById = indexById(patches);
+        List<Long> patchedIds = List.copyOf(patchesById.keySet());
+
+        // Only the patches that carry a new password cost a BCrypt round
+        List<User> passwordPatches = patches.stream().filter(patch -> patch.getPassword() != null).toList();
+
+        List<User> foundUsers;
+        Map<Long, String> encodedPasswordsById = new HashMap<>();
+        try (PasswordHashingService.HashingBatch hashing = passwordHashingService.encodeAll(passwordPatches.stream().map(User::getPassword).toList())) {
+            foundUsers = userRepository.findAllById(patchedIds);
+
+            validateAllUsersFound(patchedIds, foundUsers.stream().map(User::getId).toList());
+
+            List<String> encodedPasswords = hashing.join();
+            for (int i = 0; i < passwordPatches.size(); i++) {
+                encodedPasswordsById.put(passwordPatches.get(i).getId(), encodedPasswords.get(i));
+            }
+        }
+
+        List<String> changedUsernames = new ArrayList<>();
+        List<Long> changedIds = new ArrayList<>();
+        for (User user : foundUsers) {
+            String previousUsername = user.getUsername();
+            if (applyPatch(user, patchesById.get(user.getId()), encodedPasswordsById.get(user.getId()))) {
+                changedUsernames.add(previousUsername);
+                changedIds.add(user.getId());
+            }
+        }
+        usersChanged(changedIds, changedUsernames);
+
+        return foundUsers;
+    }
+
+    private boolean applyPatch(User user, User patch, String encodedPassword) {
+        boolean changed = false;
+
+        if (patch.getUsername() != null && !patch.getUsername().equals(user.getUsername())) {
+            user.setUsername(patch.getUsername());
+            usersAdded(List.of(), List.of(user.getUsername()));
+            changed = true;
+        }
+        if (encodedPassword != null) {
+            user.changePassword(encodedPassword);
+            changed = true;
+        }
+        if (patch.getRole() != null && patch.getRole() != user.getRole()) {
+            user.setRole(patch.getRole());
+            changed = true;
+        }
+        if (patch.getEnabled() != null && !patch.getEnabled().equals(user.getEnabled())) {
+            user.setEnabled(patch.getEnabled());
+            changed = true;
+        }
+        return changed;
+    }
+
+    // A concurrent update committing after this check is still caught by the @Version check on flush
+    private static void checkVersion(User user, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(user.getVersion())) {
+            throw new PreconditionFailedException(String.format("User %d is at version %d, not %d",
+                    user.getId(), user.getVersion(), expectedVersion));
+        }
+    }
+
+    private boolean usernameExists(String username) {
+        if (!usernameFilter.mightContain(username)) {
+            return false;
+        }
+        boolean exists = userRepository.existsByUsername(username);
+        if (!exists) {
+            usernameFilter.recordFalsePositive();
+        }
+        return exists;
+    }
+
+    private static boolean isUniqueViolation(DataIntegrityViolationException e) {
+        return e.getMostSpecificCause() instanceof SQLException sqlException && "23505".equals(sqlException.getSQLState());
+    }
+
+    private Map<Long, User> indexById(List<User> users) {
+        Map<Long, User> usersById = new LinkedHashMap<>(users.size() * 4 / 3 + 1);
+        Set<Long> duplicateIds = new LinkedHashSet<>();
+
+        for (User user : users) {
+            if (usersById.putIfAbsent(user.getId(), user) != null) {
+                duplicateIds.add(user.getId());
+            }
+        }
+
+        if (!duplicateIds.isEmpty()) {
+            throw new DuplicateUserIdException(duplicateIds);
+        }
+        return usersById;
+    }
+
 
     @Transactional
     public void softDeleteUser(Long userId) {
         User user = userRepository.findById(userId).orElseThrow(() -> new UserNotFoundException(userId));
+        userChanged(user.getId(), user.getUsername());
 
         user.setEnabled(false);
         userRepository.save(user);
@@ -119,20 +375,47 @@ public class UserService {
 
     @Transactional
     public void softDeleteUsers(List<Long> toBeDeletedIds) {
-        List<User> foundUsers = userRepository.findAllById(toBeDeletedIds);
+        List<Long> distinctIds = toBeDeletedIds.stream().distinct().toList();
+
+        List<UserIdentity> disabledUsers = userRepository.disableAllById(distinctIds.toArray(Long[]::new));
+
+        // Throwing here rolls the UPDATE back, so a missing id still leaves every user untouched
+        validateAllUsersFound(distinctIds, disabledUsers.stream().map(UserIdentity::getId).toList());
+        usersChanged(distinctIds, disabledUsers.stream().map(UserIdentity::getUsername).toList());
+    }
+
+    // Everything derived from a user row (cached reads, cached credentials, issued tokens) must go when it changes,
+    // and replicas may still serve the old row for a while
+    private void userChanged(Long userId, String previousUsername) {
+        authenticationCache.invalidate(previousUsername);
+        tokenRevocationList.revoke(userId);
+        userCache.invalidate(userId, previousUsername);
+        userLookupCoalescer.forget(List.of(userId), List.of(previousUsername));
+        readRouting.recordWrites(List.of(userId), List.of(previousUsername));
+    }
 
-        validateAllUsersFound(toBeDeletedIds, foundUsers.stream().map(User::getId).toList());
+    private void usersChanged(List<Long> userIds, List<String> previousUsernames) {
+        authenticationCache.invalidateAll(previousUsernames);
+        tokenRevocationList.revokeAll(userIds);
+        userCache.invalidateAll(userIds, previousUsernames);
+        userLookupCoalescer.forget(userIds, previousUsernames);
+        readRouting.recordWrites(userIds, previousUsernames);
+    }
 
-        foundUsers.forEach(user -> user.setEnabled(false));
-        userRepository.saveAll(foundUsers);
+    // New or renamed usernames: the username filter must know them at once, replicas may not have them yet
+    private void usersAdded(List<Long> userIds, List<String> usernames) {
+        usernames.forEach(usernameFilter::put);
+        userLookupCoalescer.forget(userIds, usernames);
+        readRouting.recordWrites(userIds, usernames);
     }
 
     private void validateAllUsersFound(List<Long> toBeUpdatedIds, List<Long> foundIds) {
         if (foundIds.size() != toBeUpdatedIds.size()) {
+            Set<Long> foundIdSet = new HashSet<>(foundIds);
 
-            Long missingId = toBeUpdatedIds.stream().filter(id -> !foundIds.contains(id)).findFirst().get();
+            List<Long> missingIds = toBeUpdatedIds.stream().filter(id -> !foundIdSet.contains(id)).toList();
 
-            throw new UserNotFoundException(missingId);
+            throw new UserNotFoundException(missingIds);
         }
     }
 }
@@ -0,0 +1,266 @@
+package com.pccw.usermanagementsystem.service;
+
+import com.pccw.usermanagementsystem.datasource.ReadRouting;
+import com.pccw.usermanagementsystem.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory Bloom filter over every username in {@code users}, so "is this username taken?" is answered without
+ * a query whenever the answer is no. A "maybe" still has to be confirmed by the database.
+ * <p>
+ * Built on startup and rebuilt periodically to drop usernames that changed and to resize for growth; in between,
+ * every registration and username change on this instance is added as it happens, and the ones made by other
+ * instances are caught up every few seconds from {@code users.username_changed_at}. Until the first build finishes
+ * every username reads as "maybe". The unique index on {@code users.username} stays the source of truth: the filter only decides
+ * when a query can be skipped.
+ */
+@Slf4j
+@Component
+public class UsernameFilter {
+
+    private final UserRepository userRepository;
+    private final ReadRouting readRouting;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final long minExpectedInsertions;
+    private final double falsePositiveRate;
+    private final Duration commitGrace;
+    private final Duration catchUpOverlap;
+
+    private volatile BloomFilter current;
+    // Receives additions while a rebuild is reading the table, so none are lost in the swap
+    private volatile BloomFilter building;
+    // Database time the next catch-up reads changes from; only touched while holding refreshLock
+    private Instant changedSince;
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    private final LongAdder definitelyAbsent = new LongAdder();
+    private final LongAdder possiblyPresent = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    public UsernameFilter(UserRepository userRepository,
+                          ReadRouting readRouting,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${app.username-filter.enabled:true}") boolean enabled,
+                          @Value("${app.username-filter.expected-insertions:100000}") long minExpectedInsertions,
+                          @Value("${app.username-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                          @Value("${app.username-filter.commit-grace:1s}") Duration commitGrace,
+                          @Value("${app.username-filter.catch-up-overlap:PT1M}") Duration catchUpOverlap) {
+        this.userRepository = userRepository;
+        this.readRouting = readRouting;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.minExpectedInsertions = minExpectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.commitGrace = commitGrace;
+        this.catchUpOverlap = catchUpOverlap;
+    }
+
+    /**
+     * False means the username is definitely not in the table; true means it may be.
+     */
+    public boolean mightContain(String username) {
+        BloomFilter filter = current;
+        if (filter == null || filter.mightContain(username)) {
+            possiblyPresent.increment();
+            return true;
+        }
+        definitelyAbsent.increment();
+        return false;
+    }
+
+    public void put(String username) {
+        BloomFilter filter = current;
+        if (filter != null) {
+            filter.put(username);
+        }
+        BloomFilter next = building;
+        if (next != null) {
+            next.put(username);
+        }
+    }
+
+    /**
+     * Called when the database did not confirm a "maybe", to track the false positive rate actually observed.
+     */
+    public void recordFalsePositive() {
+        falsePositives.increment();
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${app.username-filter.rebuild-interval:PT1H}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+
+        refreshLock.lock();
+        try {
+            // Twice the current size leaves room for growth until the next rebuild
+            long expectedInsertions = Math.max(minExpectedInsertions, userRepository.count() * 2);
+            BloomFilter next = BloomFilter.create(expectedInsertions, falsePositiveRate);
+            building = next;
+
+            // Writers add a username shortly before they commit. Waiting lets the ones that added it before
+            // 'building' was published commit first, so the snapshot read below includes them
+            Thread.sleep(commitGrace.toMillis());
+
+            // A lagging replica would leave out recent usernames until the next rebuild, so read the primary
+            Instant readFrom = readRouting.onPrimary(() -> readOnlyTransaction.execute(status -> {
+                Instant startedAt = userRepository.currentDatabaseTime();
+                try (Stream<String> usernames = userRepository.streamAllUsernames()) {
+                    usernames.forEach(next::put);
+                }
+                return startedAt;
+            }));
+            current = next;
+            changedSince = readFrom.minus(catchUpOverlap);
+            log.info("Username filter rebuilt with {} usernames ({} bits, {} hash functions)",
+                    next.getApproximateSize(), next.getBitCount(), next.getHashFunctions());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.warn("Rebuilding the username filter failed; keeping the previous one", e);
+        } finally {
+            building = null;
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Adds the usernames other instances registered or renamed since the last catch-up. A row is stamped when it
+     * is written but only visible once committed, so each catch-up re-reads the last catch-up-overlap as well;
+     * a transaction committing later than that is only picked up by the next rebuild.
+     */
+    @Scheduled(initialDelayString = "${app.username-filter.catch-up-interval:PT5S}",
+            fixedDelayString = "${app.username-filter.catch-up-interval:PT5S}")
+    public void catchUp() {
+        // Nothing to catch up before the first build, and a rebuild in progress reads everything anyway
+        if (!enabled || current == null || !refreshLock.tryLock()) {
+            return;
+        }
+
+        try {
+            Instant since = changedSince;
+            Instant readFrom = readRouting.onPrimary(() -> readOnlyTransaction.execute(status -> {
+                Instant startedAt = userRepository.currentDatabaseTime();
+                List<String> usernames = userRepository.findUsernamesChangedSince(since);
+                BloomFilter filter = current;
+                // The overlap returns most names again; skipping known ones keeps the size estimate honest
+                usernames.stream().filter(username -> !filter.mightContain(username)).forEach(filter::put);
+                return startedAt;
+            }));
+            changedSince = readFrom.minus(catchUpOverlap);
+        } catch (RuntimeException e) {
+            log.warn("Catching up the username filter failed; retrying from the same point", e);
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    public long getDefinitelyAbsentCount() {
+        return definitelyAbsent.sum();
+    }
+
+    public long getPossiblyPresentCount() {
+        return possiblyPresent.sum();
+    }
+
+    public long getFalsePositiveCount() {
+        return falsePositives.sum();
+    }
+
+    public long getApproximateSize() {
+        BloomFilter filter = current;
+        return filter == null ? 0 : filter.getApproximateSize();
+    }
+
+    /**
+     * Lock-free Bloom filter; the k bit positions come from two 64-bit hashes (Kirsch-Mitzenmacher).
+     */
+    static final class BloomFilter {
+
+        private static final long SEED_1 = 0xCBF29CE484222325L;
+        private static final long SEED_2 = 0x9E3779B97F4A7C15L;
+
+        private final AtomicLongArray words;
+        private final long bitCount;
+        private final int hashFunctions;
+        private final LongAdder size = new LongAdder();
+
+        private BloomFilter(long bitCount, int hashFunctions) {
+            this.words = new AtomicLongArray((int) Math.ceilDiv(bitCount, 64L));
+            this.bitCount = words.length() * 64L;
+            this.hashFunctions = hashFunctions;
+        }
+
+        static BloomFilter create(long expectedInsertions, double falsePositiveRate) {
+            long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            int hashFunctions = Math.max(1, (int) Math.round((double) bits / expectedInsertions * Math.log(2)));
+            return new BloomFilter(Math.max(bits, 64), hashFunctions);
+        }
+
+        void put(String value) {
+            long hash1 = hash(value, SEED_1);
+            long hash2 = hash(value, SEED_2);
+            for (int i = 0; i < hashFunctions; i++) {
+                long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+                long mask = 1L << bit;
+                words.getAndAccumulate((int) (bit >>> 6), mask, (word, m) -> word | m);
+            }
+            size.increment();
+        }
+
+        boolean mightContain(String value) {
+            long hash1 = hash(value, SEED_1);
+            long hash2 = hash(value, SEED_2);
+            for (int i = 0; i < hashFunctions; i++) {
+                long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        long getApproximateSize() {
+            return size.sum();
+        }
+
+        long getBitCount() {
+            return bitCount;
+        }
+
+        int getHashFunctions() {
+            return hashFunctions;
+        }
+
+        // FNV-1a over the UTF-16 code units, finished with the MurmurHash3 64-bit mixer
+        private static long hash(String value, long seed) {
+            long hash = seed;
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= 0x100000001B3L;
+            }
+            hash ^= hash >>> 33;
+            hash *= 0xFF51AFD7ED558CCDL;
+            hash ^= hash >>> 33;
+            hash *= 0xC4CEB9F53FE9A87BL;
+            hash ^= hash >>> 33;
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.pccw.usermanagementsystem.service.email;
+
+import com.pccw.usermanagementsystem.entity.EmailOutboxMessage;
+import com.pccw.usermanagementsystem.entity.enums.OutboxStatus;
+import com.pccw.usermanagementsystem.repository.EmailOutboxRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+/**
+ * Delivers pending {@code email_outbox} rows in the background.
+ * <p>
+ * Each poll claims a batch with {@code FOR UPDATE SKIP LOCKED} and pushes its {@code next_attempt_at} out by a lease,
+ * so the claim survives the short claiming transaction and other instances skip those rows. Messages are then sent
+ * concurrently on the application task executor (virtual threads when {@code spring.threads.virtual.enabled} is set,
+ * otherwise Spring Boot's bounded platform pool); failures are retried with exponential backoff and moved to {@link OutboxStatus#DEAD}
+ * once the attempt limit is reached. If an instance dies mid-send the lease expires and another instance retries, unless
+ * that was the last attempt.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.email.outbox.dispatcher.enabled", havingValue = "true", matchIfMissing = true)
+public class EmailOutboxDispatcher {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final EmailService emailService;
+    private final TransactionTemplate transactionTemplate;
+    private final AsyncTaskExecutor senders;
+
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration lease;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+
+    public EmailOutboxDispatcher(EmailOutboxRepository emailOutboxRepository,
+                                 EmailService emailService,
+                                 TransactionTemplate transactionTemplate,
+                                 @Qualifier("applicationTaskExecutor") AsyncTaskExecutor senders,
+                                 @Value("${app.email.outbox.batch-size:50}") int batchSize,
+                                 @Value("${app.email.outbox.max-attempts:8}") int maxAttempts,
+                                 @Value("${app.email.outbox.lease:5m}") Duration lease,
+                                 @Value("${app.email.outbox.initial-backoff:10s}") Duration initialBackoff,
+                                 @Value("${app.email.outbox.max-backoff:1h}") Duration maxBackoff) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.emailService = emailService;
+        this.transactionTemplate = transactionTemplate;
+        this.senders = senders;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.lease = lease;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    @Scheduled(fixedDelayString = "${app.email.outbox.poll-interval-ms:1000}")
+    public void dispatchDueMessages() {
+        List<EmailOutboxMessage> claimed;
+        do {
+            claimed = claimDueMessages();
+
+            List<Future<?>> deliveries = claimed.stream()
+                    .<Future<?>>map(message -> senders.submit(() -> deliver(message)))
+                    .toList();
+
+            for (Future<?> delivery : deliveries) {
+                try {
+                    delivery.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    log.error("Unexpected failure while delivering outbox message", e);
+                }
+            }
+        } while (claimed.size() == batchSize);
+    }
+
+    private List<EmailOutboxMessage> claimDueMessages() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<EmailOutboxMessage> due = emailOutboxRepository.lockDueMessages(now, batchSize);
+            List<EmailOutboxMessage> claimed = new ArrayList<>(due.size());
+            for (EmailOutboxMessage message : due) {
+                // Its last attempt was claimed but never recorded: the instance sending it died and the lease ran out
+                if (message.getAttempts() >= maxAttempts) {
+                    log.error("Giving up on outbox message {} to {} after {} attempts, the last one never reported back",
+                            message.getId(), message.getRecipient(), message.getAttempts());
+                    message.setStatus(OutboxStatus.DEAD);
+                    message.setLastError("Lease expired during the last attempt");
+                    continue;
+                }
+                message.setAttempts(message.getAttempts() + 1);
+                message.setNextAttemptAt(now.plus(lease));
+                claimed.add(message);
+            }
+            return claimed;
+        });
+    }
+
+    private void deliver(EmailOutboxMessage message) {
+        try {
+            emailService.sendWelcomeEmail(message.getRecipient(), message.getSubject(), message.getBody());
+            transactionTemplate.executeWithoutResult(status ->
+                    emailOutboxRepository.markSent(message.getId(), LocalDateTime.now()));
+        } catch (Exception e) {
+            recordFailure(message, e);
+        }
+    }
+
+    private void recordFailure(EmailOutboxMessage message, Exception e) {
+        boolean exhausted = message.getAttempts() >= maxAttempts;
+        OutboxStatus status = exhausted ? OutboxStatus.DEAD : OutboxStatus.PENDING;
+        LocalDateTime nextAttemptAt = LocalDateTime.now().plus(backoff(message.getAttempts()));
+
+        if (exhausted) {
+            log.error("Giving up on outbox message {} to {} after {} attempts", message.getId(), message.getRecipient(), message.getAttempts(), e);
+        } else {
+            log.warn("Delivery of outbox message {} failed (attempt {}), retrying at {}: {}", message.getId(), message.getAttempts(), nextAttemptAt, e.getMessage());
+        }
+
+        transactionTemplate.executeWithoutResult(txStatus ->
+                emailOutboxRepository.markFailed(message.getId(), status, nextAttemptAt, truncate(String.valueOf(e.getMessage()))));
+    }
+
+    private Duration backoff(int attempts) {
+        // initialBackoff * 2^(attempts - 1), capped at maxBackoff
+        int exponent = Math.min(Math.max(attempts - 1, 0), 30);
+        Duration delay = initialBackoff.multipliedBy(1L << exponent);
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private static String truncate(String error) {
+        return error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+    }
+}
@@ -0,0 +1,34 @@
+package com.pccw.usermanagementsystem.service.email;
+
+import com.pccw.usermanagementsystem.entity.EmailOutboxMessage;
+import com.pccw.usermanagementsystem.repository.EmailOutboxRepository;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Records outgoing emails in the {@code email_outbox} table as part of the caller's transaction.
+ * Delivery happens later through {@link EmailOutboxDispatcher}, so SMTP latency never holds a registration open.
+ */
+@Service
+@RequiredArgsConstructor
+public class EmailOutboxService {
+
+    private final EmailOutboxRepository emailOutboxRepository;
+
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void enqueue(String to, String subject, String text) {
+        emailOutboxRepository.save(new EmailOutboxMessage(to, subject, text, LocalDateTime.now()));
+    }
+
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void enqueueAll(List<String> recipients, String subject, String text) {
+        LocalDateTime now = LocalDateTime.now();
+        emailOutboxRepository.saveAll(recipients.stream()
+                .map(to -> new EmailOutboxMessage(to, subject, text, now))
+                .toList());
+    }
+}
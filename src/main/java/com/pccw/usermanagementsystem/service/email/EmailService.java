@@ -1,5 +1,6 @@
 package com.pccw.usermanagementsystem.service.email;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import org.springframework.mail.SimpleMailMessage;
@@ -13,6 +14,7 @@ public class EmailService {
 
     private final JavaMailSender mailSender;
 
+    @Timed(value = "user.email.send", description = "Time spent handing a welcome email to the SMTP server")
     public void sendWelcomeEmail(String to, String subject, String text) {
         SimpleMailMessage message = new SimpleMailMessage();
         message.setTo(to);
@@ -0,0 +1,83 @@
+package com.pccw.usermanagementsystem.service.exporting;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.pccw.usermanagementsystem.dto.UserResponseDTO;
+import com.pccw.usermanagementsystem.mapper.UserMapper;
+import com.pccw.usermanagementsystem.repository.UserRepository;
+import com.pccw.usermanagementsystem.repository.projection.UserSummary;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes every user to a stream as NDJSON or CSV straight from a database cursor. Rows are projections rather
+ * than entities, so nothing accumulates in the persistence context and memory stays flat however many users
+ * there are; the output is flushed once per fetched batch so the client starts receiving data immediately.
+ */
+@Service
+public class UserExportService {
+
+    private static final CsvMapper CSV_MAPPER = new CsvMapper();
+    private static final CsvSchema CSV_SCHEMA = CsvSchema.builder()
+            .addColumn("id").addColumn("username").addColumn("role").addColumn("enabled")
+            .build();
+    private static final byte[] CSV_HEADER = "id,username,role,enabled\n".getBytes(StandardCharsets.UTF_8);
+
+    private final UserRepository userRepository;
+    private final UserMapper userMapper;
+    private final ObjectWriter jsonWriter;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public UserExportService(UserRepository userRepository,
+                             UserMapper userMapper,
+                             ObjectMapper objectMapper,
+                             PlatformTransactionManager transactionManager) {
+        this.userRepository = userRepository;
+        this.userMapper = userMapper;
+        this.jsonWriter = objectMapper.writerFor(UserResponseDTO.class);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Timed(value = "user.export", description = "Streaming user exports", longTask = true)
+    public void exportUsers(ExportFormat format, OutputStream output) {
+        ObjectWriter rowWriter = format == ExportFormat.CSV ? CSV_MAPPER.writer(CSV_SCHEMA) : jsonWriter;
+        OutputStream buffered = new BufferedOutputStream(output, 64 * 1024);
+
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<UserSummary> users = userRepository.streamAllSummaries()) {
+                if (format == ExportFormat.CSV) {
+                    buffered.write(CSV_HEADER);
+                }
+                buffered.flush();
+
+                long rows = 0;
+                Iterator<UserSummary> iterator = users.iterator();
+                while (iterator.hasNext()) {
+                    buffered.write(rowWriter.writeValueAsBytes(userMapper.toDTO(iterator.next())));
+                    if (format == ExportFormat.NDJSON) {
+                        buffered.write('\n');
+                    }
+                    if (++rows % UserRepository.STREAM_FETCH_SIZE == 0) {
+                        buffered.flush();
+                    }
+                }
+                buffered.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+}
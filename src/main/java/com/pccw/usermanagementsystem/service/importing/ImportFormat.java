@@ -0,0 +1,24 @@
+package com.pccw.usermanagementsystem.service.importing;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+
+@Getter
+@RequiredArgsConstructor
+public enum ImportFormat {
+    CSV("text/csv"),
+    NDJSON(MediaType.APPLICATION_NDJSON_VALUE);
+
+    private final String mediaType;
+
+    public static ImportFormat fromContentType(String contentType) {
+        MediaType mediaType = MediaType.parseMediaType(contentType);
+        for (ImportFormat format : values()) {
+            if (MediaType.parseMediaType(format.mediaType).includes(mediaType)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported import content type: " + contentType);
+    }
+}
@@ -0,0 +1,17 @@
+package com.pccw.usermanagementsystem.service.importing;
+
+import com.pccw.usermanagementsystem.dto.UserRequestDTO;
+
+/**
+ * One non-blank line of an import file: either the parsed user or the reason it could not be parsed.
+ */
+record ImportRow(long line, UserRequestDTO user, String error) {
+
+    static ImportRow parsed(long line, UserRequestDTO user) {
+        return new ImportRow(line, user, null);
+    }
+
+    static ImportRow malformed(long line, String error) {
+        return new ImportRow(line, null, error);
+    }
+}
@@ -0,0 +1,85 @@
+package com.pccw.usermanagementsystem.service.importing;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.pccw.usermanagementsystem.dto.UserRequestDTO;
+import com.pccw.usermanagementsystem.exception.InvalidImportException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads an import file one line at a time, so memory use does not depend on the file size.
+ * <p>
+ * NDJSON has one user object per line. CSV needs a header row naming the columns (username, password, role
+ * and enabled, in any order); since rows are split on line breaks, quoted fields cannot contain one.
+ */
+class UserImportReader {
+
+    private static final List<String> REQUIRED_COLUMNS = List.of("username", "password", "role", "enabled");
+    private static final CsvMapper CSV_MAPPER = new CsvMapper();
+
+    private final BufferedReader reader;
+    private final ObjectReader rowReader;
+    private long lineNumber;
+
+    UserImportReader(InputStream input, ImportFormat format, ObjectMapper objectMapper) throws IOException {
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        this.rowReader = format == ImportFormat.CSV ? readCsvHeader() : objectMapper.readerFor(UserRequestDTO.class);
+    }
+
+    /**
+     * Returns the next non-blank line, or null at the end of the input.
+     */
+    ImportRow next() throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+
+            try {
+                UserRequestDTO user = rowReader.readValue(line);
+                return user != null ? ImportRow.parsed(lineNumber, user) : ImportRow.malformed(lineNumber, "Row is empty");
+            } catch (JsonProcessingException e) {
+                return ImportRow.malformed(lineNumber, "Malformed row: " + e.getOriginalMessage());
+            }
+        }
+        return null;
+    }
+
+    private ObjectReader readCsvHeader() throws IOException {
+        String header;
+        do {
+            header = reader.readLine();
+            lineNumber++;
+        } while (header != null && header.isBlank());
+
+        if (header == null) {
+            throw new InvalidImportException("CSV import is empty; expected a header row");
+        }
+
+        // Spreadsheet exports often start with a byte order mark
+        // Without a schema the CSV parser exposes a row as an array of its fields
+        String[] columns = CSV_MAPPER.readerFor(String[].class).readValue(header.startsWith("\uFEFF") ? header.substring(1) : header);
+        List<String> names = Arrays.stream(columns).map(String::trim).toList();
+        if (!names.containsAll(REQUIRED_COLUMNS)) {
+            throw new InvalidImportException("CSV header must name the columns " + String.join(", ", REQUIRED_COLUMNS) + "; got " + names);
+        }
+
+        CsvSchema schema = CsvSchema.builder().addColumns(names, CsvSchema.ColumnType.STRING).build();
+        return CSV_MAPPER.readerFor(UserRequestDTO.class)
+                .with(schema)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+}
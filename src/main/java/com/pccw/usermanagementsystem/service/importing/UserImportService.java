@@ -0,0 +1,277 @@
+package com.pccw.usermanagementsystem.service.importing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pccw.usermanagementsystem.datasource.ReadRouting;
+import com.pccw.usermanagementsystem.dto.RegistrationStatus;
+import com.pccw.usermanagementsystem.dto.UserImportIssueDTO;
+import com.pccw.usermanagementsystem.dto.UserImportResultDTO;
+import com.pccw.usermanagementsystem.dto.UserRequestDTO;
+import com.pccw.usermanagementsystem.entity.enums.Role;
+import com.pccw.usermanagementsystem.repository.UserRepository;
+import com.pccw.usermanagementsystem.service.PasswordHashingService;
+import com.pccw.usermanagementsystem.service.UsernameFilter;
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.Validator;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Loads large user files without holding them in memory. Rows are read, validated and hashed one chunk at a
+ * time and streamed with {@code COPY} into the {@code user_import_rows} staging table under an id of their own,
+ * then merged into {@code users} with a single {@code INSERT ... ON CONFLICT (username) DO NOTHING}.
+ * <p>
+ * Each chunk is copied on a connection borrowed only for the copy and committed on its own, so hashing a large
+ * file ties up neither a connection nor a transaction. The merge runs in one transaction: either every valid,
+ * new row is created or none is. Staged rows are deleted once the import ends, whether it succeeded or not.
+ */
+@Service
+public class UserImportService {
+
+    private static final String COPY_INTO_STAGING =
+            "COPY user_import_rows (import_id, line, username, password, role, enabled) FROM STDIN WITH (FORMAT csv)";
+
+    // Keeps the first line of every username that occurs more than once in the file
+    private static final String DELETE_DUPLICATES = "WITH removed AS (" +
+            "DELETE FROM user_import_rows d WHERE d.import_id = ? AND EXISTS (" +
+            "SELECT 1 FROM user_import_rows f WHERE f.import_id = d.import_id AND f.username = d.username AND f.line < d.line) " +
+            "RETURNING line, username) " +
+            "SELECT line, username, count(*) OVER () AS total FROM removed ORDER BY line LIMIT ?";
+
+    private static final String MERGE_INTO_USERS = "WITH inserted AS (" +
+            "INSERT INTO users (username, password, role, enabled) " +
+            "SELECT username, password, role, enabled FROM user_import_rows WHERE import_id = ? ORDER BY line " +
+            "ON CONFLICT (username) DO NOTHING RETURNING username) " +
+            "UPDATE user_import_rows s SET created = true FROM inserted i WHERE s.import_id = ? AND s.username = i.username";
+
+    // Same message UserService queues on registration, written set-based instead of one entity per user
+    private static final String ENQUEUE_WELCOME_EMAILS = "INSERT INTO email_outbox " +
+            "(recipient, subject, body, status, attempts, next_attempt_at, created_at) " +
+            "SELECT username, 'Welcome!', 'Thank you for registering!', 'PENDING', 0, ?, ? FROM user_import_rows " +
+            "WHERE import_id = ? AND created ORDER BY line";
+
+    private static final String SELECT_CREATED_USERNAMES = "SELECT username FROM user_import_rows WHERE import_id = ? AND created";
+
+    private static final String SELECT_NOT_CREATED = "SELECT line, username, count(*) OVER () AS total FROM user_import_rows " +
+            "WHERE import_id = ? AND NOT created ORDER BY line LIMIT ?";
+
+    private static final String DELETE_STAGED = "DELETE FROM user_import_rows WHERE import_id = ?";
+
+    // Rows left behind by an instance that died mid-import; no import runs anywhere near this long
+    private static final String DELETE_ABANDONED = "DELETE FROM user_import_rows WHERE staged_at < now() - interval '1 day'";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final PasswordHashingService passwordHashingService;
+    private final UsernameFilter usernameFilter;
+    private final ReadRouting readRouting;
+    private final int chunkSize;
+    private final int maxReportedIssues;
+
+    public UserImportService(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             ObjectMapper objectMapper,
+                             Validator validator,
+                             PasswordHashingService passwordHashingService,
+                             UsernameFilter usernameFilter,
+                             ReadRouting readRouting,
+                             @Value("${app.import.chunk-size:500}") int chunkSize,
+                             @Value("${app.import.max-reported-issues:100}") int maxReportedIssues) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.passwordHashingService = passwordHashingService;
+        this.usernameFilter = usernameFilter;
+        this.readRouting = readRouting;
+        this.chunkSize = chunkSize;
+        this.maxReportedIssues = maxReportedIssues;
+    }
+
+    @Timed(value = "user.import", description = "Streaming user imports", longTask = true)
+    public UserImportResultDTO importUsers(InputStream input, ImportFormat format) throws IOException {
+        ImportRun run = new ImportRun(UUID.randomUUID(), new UserImportReader(input, format, objectMapper));
+
+        jdbcTemplate.update(DELETE_ABANDONED);
+        try {
+            stageAll(run);
+            return transactionTemplate.execute(status -> merge(run));
+        } finally {
+            jdbcTemplate.update(DELETE_STAGED, run.importId);
+        }
+    }
+
+    // The next chunk is parsed and validated while the hashing pool works on the current one,
+    // so at most two chunks are in memory at any time
+    private void stageAll(ImportRun run) throws IOException {
+        List<StagedRow> pendingRows = List.of();
+        PasswordHashingService.HashingBatch pendingHashes = null;
+        try {
+            List<StagedRow> rows;
+            while (!(rows = run.readValidChunk()).isEmpty()) {
+                List<StagedRow> previousRows = pendingRows;
+                PasswordHashingService.HashingBatch previousHashes = pendingHashes;
+
+                pendingRows = rows;
+                pendingHashes = passwordHashingService.encodeAll(rows.stream().map(StagedRow::password).toList());
+
+                if (previousHashes != null) {
+                    copy(run.importId, previousRows, previousHashes.join());
+                }
+            }
+            if (pendingHashes != null) {
+                copy(run.importId, pendingRows, pendingHashes.join());
+            }
+        } finally {
+            if (pendingHashes != null) {
+                pendingHashes.close();
+            }
+        }
+    }
+
+    // Outside any transaction the COPY commits by itself, and the connection goes back to the pool right after
+    private void copy(UUID importId, List<StagedRow> rows, List<String> encodedPasswords) {
+        StringBuilder csv = new StringBuilder(rows.size() * 160);
+        for (int i = 0; i < rows.size(); i++) {
+            StagedRow row = rows.get(i);
+            csv.append(importId).append(',').append(row.line()).append(',');
+            appendQuoted(csv, row.username()).append(',');
+            appendQuoted(csv, encodedPasswords.get(i)).append(',');
+            csv.append(row.role().name()).append(',').append(row.enabled()).append('\n');
+        }
+        byte[] bytes = csv.toString().getBytes(StandardCharsets.UTF_8);
+
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_INTO_STAGING);
+            try {
+                copyIn.writeToCopy(bytes, 0, bytes.length);
+                copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+            return null;
+        });
+    }
+
+    private UserImportResultDTO merge(ImportRun run) {
+        long duplicates = report(run, DELETE_DUPLICATES, RegistrationStatus.INVALID, List.of("username: duplicate of an earlier line"));
+
+        long created = jdbcTemplate.update(MERGE_INTO_USERS, run.importId, run.importId);
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update(ENQUEUE_WELCOME_EMAILS, now, now, run.importId);
+        // Read through a cursor; an import can create more usernames than we want to hold at once
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT_CREATED_USERNAMES);
+            statement.setObject(1, run.importId);
+            statement.setFetchSize(UserRepository.STREAM_FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) resultSet -> usernameFilter.put(resultSet.getString("username")));
+        if (created > 0) {
+            // Too many users to track one by one; the importer's own reads go to the primary instead
+            readRouting.recordWrites(List.of(), List.of());
+        }
+
+        long alreadyExists = report(run, SELECT_NOT_CREATED, RegistrationStatus.ALREADY_EXISTS, null);
+
+        List<UserImportIssueDTO> issues = run.issues.stream()
+                .sorted(Comparator.comparingLong(UserImportIssueDTO::getLine))
+                .limit(maxReportedIssues)
+                .collect(Collectors.toList());
+        long invalid = run.invalid + duplicates;
+
+        return new UserImportResultDTO(run.received, created, alreadyExists, invalid, issues, invalid + alreadyExists > issues.size());
+    }
+
+    // Adds up to maxReportedIssues rows of the query to the report and returns how many rows it matched in total
+    private long report(ImportRun run, String sql, RegistrationStatus status, List<String> errors) {
+        long[] total = {0};
+        jdbcTemplate.query(sql, resultSet -> {
+            total[0] = resultSet.getLong("total");
+            run.issues.add(new UserImportIssueDTO(resultSet.getLong("line"), resultSet.getString("username"), status, errors));
+        }, run.importId, maxReportedIssues);
+        return total[0];
+    }
+
+    private static StringBuilder appendQuoted(StringBuilder csv, String value) {
+        return csv.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    private record StagedRow(long line, String username, String password, Role role, boolean enabled) {
+    }
+
+    /**
+     * Counters and the capped issue list of one import; valid rows are handed out chunk by chunk.
+     */
+    private class ImportRun {
+
+        private final UUID importId;
+        private final UserImportReader reader;
+        private final List<UserImportIssueDTO> issues = new ArrayList<>();
+        private long received;
+        private long invalid;
+
+        private ImportRun(UUID importId, UserImportReader reader) {
+            this.importId = importId;
+            this.reader = reader;
+        }
+
+        private List<StagedRow> readValidChunk() throws IOException {
+            List<StagedRow> chunk = new ArrayList<>(chunkSize);
+            ImportRow row;
+            while (chunk.size() < chunkSize && (row = reader.next()) != null) {
+                received++;
+
+                List<String> errors = new ArrayList<>();
+                Role role = null;
+                if (row.error() != null) {
+                    errors.add(row.error());
+                } else {
+                    validator.validate(row.user()).stream()
+                            .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                            .sorted()
+                            .forEach(errors::add);
+                    if (errors.isEmpty()) {
+                        try {
+                            role = Role.fromValue(row.user().getRole());
+                        } catch (IllegalArgumentException e) {
+                            errors.add("role: " + e.getMessage());
+                        }
+                    }
+                }
+
+                if (errors.isEmpty()) {
+                    UserRequestDTO user = row.user();
+                    chunk.add(new StagedRow(row.line(), user.getUsername(), user.getPassword(), role, user.getEnabled()));
+                } else {
+                    invalid++;
+                    if (issues.size() < maxReportedIssues) {
+                        String username = row.user() != null ? row.user().getUsername() : null;
+                        issues.add(new UserImportIssueDTO(row.line(), username, RegistrationStatus.INVALID, errors));
+                    }
+                }
+            }
+            return chunk;
+        }
+    }
+}
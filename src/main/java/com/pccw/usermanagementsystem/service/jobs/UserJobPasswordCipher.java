@@ -0,0 +1,98 @@
+package com.pccw.usermanagementsystem.service.jobs;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Encrypts the passwords of pending job items with AES-256-GCM under {@code app.user-jobs.encryption-key}, so the
+ * database, its WAL, replicas and backups only ever hold ciphertext. Hashing them on submission instead would keep
+ * a large job's request open for as long as the synchronous bulk endpoints do.
+ * <p>
+ * Each value is bound to its job id and item index, so a ciphertext copied to another row does not decrypt.
+ * Stored as {@code base64(iv || ciphertext || tag)}.
+ */
+@Slf4j
+@Component
+public class UserJobPasswordCipher {
+
+    private static final String ALGORITHM = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+
+    private final SecretKeySpec key;
+    private final SecureRandom random = new SecureRandom();
+
+    public UserJobPasswordCipher(@Value("${app.user-jobs.encryption-key:}") String key) {
+        this.key = new SecretKeySpec(keyBytes(key), "AES");
+    }
+
+    public String encrypt(UUID jobId, int index, String password) {
+        byte[] iv = new byte[IV_LENGTH];
+        random.nextBytes(iv);
+        try {
+            Cipher cipher = Cipher.getInstance(ALGORITHM);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(associatedData(jobId, index));
+            byte[] ciphertext = cipher.doFinal(password.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(ByteBuffer.allocate(IV_LENGTH + ciphertext.length)
+                    .put(iv).put(ciphertext).array());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not encrypt a job password", e);
+        }
+    }
+
+    /**
+     * Empty when the value was encrypted under another key, e.g. a random one from before a restart, or altered.
+     */
+    public Optional<String> decrypt(UUID jobId, int index, String encrypted) {
+        try {
+            byte[] bytes = Base64.getDecoder().decode(encrypted);
+            if (bytes.length <= IV_LENGTH) {
+                return Optional.empty();
+            }
+            Cipher cipher = Cipher.getInstance(ALGORITHM);
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, bytes, 0, IV_LENGTH));
+            cipher.updateAAD(associatedData(jobId, index));
+            byte[] password = cipher.doFinal(bytes, IV_LENGTH, bytes.length - IV_LENGTH);
+            return Optional.of(new String(password, StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static byte[] associatedData(UUID jobId, int index) {
+        return ByteBuffer.allocate(20)
+                .putLong(jobId.getMostSignificantBits())
+                .putLong(jobId.getLeastSignificantBits())
+                .putInt(index)
+                .array();
+    }
+
+    private static byte[] keyBytes(String key) {
+        if (key == null || key.isBlank()) {
+            log.warn("app.user-jobs.encryption-key is not set; using a random key, items pending at a restart or " +
+                    "submitted to another instance will fail");
+            byte[] random = new byte[32];
+            new SecureRandom().nextBytes(random);
+            return random;
+        }
+
+        byte[] bytes = Base64.getDecoder().decode(key);
+        if (bytes.length != 32) {
+            throw new IllegalStateException("app.user-jobs.encryption-key must be 256 bits (base64 encoded)");
+        }
+        return bytes;
+    }
+}
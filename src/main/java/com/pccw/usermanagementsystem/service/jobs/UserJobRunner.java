@@ -0,0 +1,369 @@
+package com.pccw.usermanagementsystem.service.jobs;
+
+import com.pccw.usermanagementsystem.entity.User;
+import com.pccw.usermanagementsystem.entity.UserJob;
+import com.pccw.usermanagementsystem.entity.enums.UserJobItemStatus;
+import com.pccw.usermanagementsystem.entity.enums.UserJobStatus;
+import com.pccw.usermanagementsystem.exception.HashingCapacityExceededException;
+import com.pccw.usermanagementsystem.exception.UserNotFoundException;
+import com.pccw.usermanagementsystem.repository.UserJobItem;
+import com.pccw.usermanagementsystem.repository.UserJobItemRepository;
+import com.pccw.usermanagementsystem.repository.UserJobRepository;
+import com.pccw.usermanagementsystem.repository.UserRepository;
+import com.pccw.usermanagementsystem.service.UserService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the jobs accepted by {@link UserJobService} on {@code app.user-jobs.workers} dedicated threads.
+ * <p>
+ * Each poll claims due jobs with {@code FOR UPDATE SKIP LOCKED} and sets their lease, as {@code EmailOutboxDispatcher}
+ * does for emails. A job is then worked off in chunks of {@code app.user-jobs.chunk-size} items: applying a chunk,
+ * storing its per-item results and adding to the job's counters commit together, and every chunk extends the lease.
+ * After a crash the lease expires and any instance resumes from the first unprocessed item; on a clean shutdown the
+ * current chunk is finished and the lease handed back, so the next start resumes at once.
+ * <p>
+ * A chunk that fails as a whole, e.g. because one update takes a username that is in use, is retried item by item
+ * so only the offending items are marked failed. Database outages and lock conflicts are not blamed on items: the
+ * job is released and retried after {@code app.user-jobs.retry-delay}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.user-jobs.runner.enabled", havingValue = "true", matchIfMissing = true)
+public class UserJobRunner {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+    private static final String UNREADABLE_PASSWORD = "password: could not be decrypted, submit the item again";
+    // Enough for a chunk to finish; a job cut off later resumes from its last committed chunk
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(30);
+
+    private final UserJobRepository userJobRepository;
+    private final UserJobItemRepository userJobItemRepository;
+    private final UserRepository userRepository;
+    private final UserService userService;
+    private final UserJobPasswordCipher passwordCipher;
+    private final TransactionTemplate transactionTemplate;
+
+    private final int workers;
+    private final int chunkSize;
+    private final Duration lease;
+    private final Duration retryDelay;
+    private final Duration retention;
+
+    private final ExecutorService workerPool;
+    private final Semaphore idleWorkers;
+    private volatile boolean stopping;
+
+    private final LongAdder succeededItems = new LongAdder();
+    private final LongAdder failedItems = new LongAdder();
+
+    public UserJobRunner(UserJobRepository userJobRepository,
+                         UserJobItemRepository userJobItemRepository,
+                         UserRepository userRepository,
+                         UserService userService,
+                         UserJobPasswordCipher passwordCipher,
+                         TransactionTemplate transactionTemplate,
+                         @Value("${app.user-jobs.workers:2}") int workers,
+                         @Value("${app.user-jobs.chunk-size:500}") int chunkSize,
+                         @Value("${app.user-jobs.lease:2m}") Duration lease,
+                         @Value("${app.user-jobs.retry-delay:30s}") Duration retryDelay,
+                         @Value("${app.user-jobs.retention:7d}") Duration retention) {
+        this.userJobRepository = userJobRepository;
+        this.userJobItemRepository = userJobItemRepository;
+        this.userRepository = userRepository;
+        this.userService = userService;
+        this.passwordCipher = passwordCipher;
+        this.transactionTemplate = transactionTemplate;
+        this.workers = workers;
+        this.chunkSize = chunkSize;
+        this.lease = lease;
+        this.retryDelay = retryDelay;
+        this.retention = retention;
+        this.workerPool = Executors.newFixedThreadPool(workers, new CustomizableThreadFactory("user-jobs-"));
+        this.idleWorkers = new Semaphore(workers);
+    }
+
+    @Scheduled(fixedDelayString = "${app.user-jobs.poll-interval-ms:1000}")
+    public void startDueJobs() {
+        while (!stopping && idleWorkers.tryAcquire()) {
+            Optional<UserJob> claimed;
+            try {
+                claimed = claimNextJob();
+            } catch (RuntimeException e) {
+                idleWorkers.release();
+                throw e;
+            }
+            if (claimed.isEmpty()) {
+                idleWorkers.release();
+                return;
+            }
+
+            UserJob job = claimed.get();
+            try {
+                workerPool.execute(() -> {
+                    try {
+                        run(job);
+                    } finally {
+                        idleWorkers.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Shutting down between the claim and the hand-off
+                idleWorkers.release();
+                releaseLease(job, LocalDateTime.now(), null);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.user-jobs.purge-interval:PT1H}")
+    public void purgeCompletedJobs() {
+        Integer purged = transactionTemplate.execute(status ->
+                userJobRepository.deleteCompletedBefore(LocalDateTime.now().minus(retention)));
+        if (purged != null && purged > 0) {
+            log.info("Purged {} jobs completed more than {} ago", purged, retention);
+        }
+    }
+
+    private Optional<UserJob> claimNextJob() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            return userJobRepository.lockNextDueJob(now).map(job -> {
+                if (job.getStartedAt() == null) {
+                    job.setStartedAt(now);
+                }
+                job.setStatus(UserJobStatus.RUNNING);
+                job.setAttempts(job.getAttempts() + 1);
+                job.setLeaseUntil(now.plus(lease));
+                return job;
+            });
+        });
+    }
+
+    /**
+     * Works off a claimed job until no pending item is left, the runner stops or the database fails.
+     */
+    public void run(UserJob job) {
+        log.info("Running {} job {} (attempt {})", job.getType(), job.getId(), job.getAttempts());
+        try {
+            while (!stopping) {
+                if (!processChunk(job)) {
+                    transactionTemplate.executeWithoutResult(status ->
+                            userJobRepository.markCompleted(job.getId(), LocalDateTime.now()));
+                    log.info("Completed {} job {}", job.getType(), job.getId());
+                    return;
+                }
+            }
+            releaseLease(job, LocalDateTime.now(), null);
+        } catch (RuntimeException e) {
+            LocalDateTime retryAt = LocalDateTime.now().plus(retryDelay);
+            log.warn("Job {} failed, retrying at {}: {}", job.getId(), retryAt, e.getMessage());
+            releaseLease(job, retryAt, truncate(String.valueOf(e.getMessage())));
+        }
+    }
+
+    // False once no pending item is left
+    private boolean processChunk(UserJob job) {
+        AtomicReference<List<UserJobItem>> claimed = new AtomicReference<>(List.of());
+        try {
+            return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                List<UserJobItem> items = userJobItemRepository.lockPending(job.getId(), chunkSize);
+                claimed.set(items);
+                if (items.isEmpty()) {
+                    return false;
+                }
+                store(job, apply(job, items));
+                return true;
+            }));
+        } catch (RuntimeException e) {
+            if (claimed.get().isEmpty() || isTransient(e)) {
+                throw e;
+            }
+            log.debug("Chunk of job {} failed as a whole, retrying its {} items one by one: {}", job.getId(), claimed.get().size(), e.getMessage());
+            claimed.get().forEach(item -> processItem(job, item));
+            return true;
+        }
+    }
+
+    private void processItem(UserJob job, UserJobItem item) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> store(job, apply(job, List.of(item))));
+        } catch (RuntimeException e) {
+            if (isTransient(e)) {
+                throw e;
+            }
+            transactionTemplate.executeWithoutResult(status -> store(job, List.of(item.failed(List.of(describe(e))))));
+        }
+    }
+
+    private List<UserJobItem> apply(UserJob job, List<UserJobItem> items) {
+        return switch (job.getType()) {
+            case REGISTER -> register(job.getId(), items);
+            case UPDATE -> update(job.getId(), items);
+            case SOFT_DELETE -> softDelete(items);
+        };
+    }
+
+    // Skipping taken usernames keeps one conflict from failing the whole chunk
+    private List<UserJobItem> register(UUID jobId, List<UserJobItem> items) {
+        Map<Integer, String> passwords = decryptPasswords(jobId, items);
+        List<User> users = items.stream()
+                .filter(item -> passwords.containsKey(item.index()))
+                .map(item -> new User(null, item.username(), passwords.get(item.index()), item.role(), item.enabled()))
+                .collect(Collectors.toList());
+        Map<String, Long> createdIds = userService.registerUsersSkippingExisting(users).stream()
+                .collect(Collectors.toMap(User::getUsername, User::getId));
+
+        return items.stream()
+                .map(item -> !passwords.containsKey(item.index()) ? item.failed(List.of(UNREADABLE_PASSWORD))
+                        : createdIds.containsKey(item.username()) ? item.succeeded(createdIds.get(item.username()))
+                        : item.failed(List.of("username: already exists")))
+                .toList();
+    }
+
+    private List<UserJobItem> update(UUID jobId, List<UserJobItem> items) {
+        Map<Integer, String> passwords = decryptPasswords(jobId, items);
+        Set<Long> existingIds = findExistingIds(items);
+        List<User> updates = items.stream()
+                .filter(item -> existingIds.contains(item.userId()) && passwords.containsKey(item.index()))
+                .map(item -> new User(item.userId(), item.username(), passwords.get(item.index()), item.role(), item.enabled()))
+                .collect(Collectors.toList());
+        if (!updates.isEmpty()) {
+            userService.updateUsers(updates);
+        }
+        return items.stream()
+                .map(item -> existingIds.contains(item.userId()) && !passwords.containsKey(item.index())
+                        ? item.failed(List.of(UNREADABLE_PASSWORD))
+                        : result(item, existingIds))
+                .toList();
+    }
+
+    // By item index; items whose password does not decrypt are left out
+    private Map<Integer, String> decryptPasswords(UUID jobId, List<UserJobItem> items) {
+        Map<Integer, String> passwords = new HashMap<>();
+        for (UserJobItem item : items) {
+            passwordCipher.decrypt(jobId, item.index(), item.password())
+                    .ifPresent(password -> passwords.put(item.index(), password));
+        }
+        return passwords;
+    }
+
+    private List<UserJobItem> softDelete(List<UserJobItem> items) {
+        Set<Long> existingIds = findExistingIds(items);
+        if (!existingIds.isEmpty()) {
+            userService.softDeleteUsers(List.copyOf(existingIds));
+        }
+        return items.stream().map(item -> result(item, existingIds)).toList();
+    }
+
+    private Set<Long> findExistingIds(List<UserJobItem> items) {
+        return new HashSet<>(userRepository.findExistingIds(items.stream().map(UserJobItem::userId).toList()));
+    }
+
+    private static UserJobItem result(UserJobItem item, Set<Long> existingIds) {
+        return existingIds.contains(item.userId())
+                ? item.succeeded(item.userId())
+                : item.failed(List.of(new UserNotFoundException(item.userId()).getMessage()));
+    }
+
+    private void store(UserJob job, List<UserJobItem> results) {
+        int succeeded = (int) results.stream().filter(item -> item.status() == UserJobItemStatus.SUCCEEDED).count();
+        int failed = results.size() - succeeded;
+
+        userJobItemRepository.saveResults(job.getId(), results);
+        userJobRepository.recordProgress(job.getId(), succeeded, failed, LocalDateTime.now().plus(lease));
+
+        succeededItems.add(succeeded);
+        failedItems.add(failed);
+    }
+
+    private void releaseLease(UserJob job, LocalDateTime leaseUntil, String lastError) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> userJobRepository.releaseLease(job.getId(), leaseUntil, lastError));
+        } catch (RuntimeException e) {
+            // The lease runs out by itself
+            log.warn("Could not release the lease of job {}: {}", job.getId(), e.getMessage());
+        }
+    }
+
+    // Worth retrying later rather than failing the item: the database or the hashing pool was unavailable, or a
+    // concurrent write won. Connections are fetched at the first statement, so an exhausted pool shows up as a
+    // resource failure there
+    private static boolean isTransient(RuntimeException e) {
+        return e instanceof TransientDataAccessException || e instanceof CannotCreateTransactionException
+                || e instanceof DataAccessResourceFailureException || e instanceof HashingCapacityExceededException;
+    }
+
+    private static String describe(RuntimeException e) {
+        if (e instanceof DataIntegrityViolationException violation && violation.getMostSpecificCause() instanceof SQLException sqlException
+                && "23505".equals(sqlException.getSQLState())) {
+            return "username: already exists";
+        }
+        return truncate(String.valueOf(e.getMessage()));
+    }
+
+    private static String truncate(String error) {
+        return error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    public int getRunningJobs() {
+        return workers - idleWorkers.availablePermits();
+    }
+
+    public void bindMetrics(MeterRegistry registry) {
+        Gauge.builder("user.jobs.running", this, UserJobRunner::getRunningJobs)
+                .description("Jobs being worked on by this instance")
+                .register(registry);
+        FunctionCounter.builder("user.jobs.items", succeededItems, LongAdder::sum)
+                .tag("result", "succeeded")
+                .description("Job items processed by this instance")
+                .register(registry);
+        FunctionCounter.builder("user.jobs.items", failedItems, LongAdder::sum)
+                .tag("result", "failed")
+                .description("Job items processed by this instance")
+                .register(registry);
+    }
+
+    /**
+     * Lets running jobs finish their current chunk and hand their lease back.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        stopping = true;
+        workerPool.shutdown();
+        if (!workerPool.awaitTermination(SHUTDOWN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+            log.warn("Jobs still running at shutdown; they resume when their lease expires");
+        }
+    }
+}
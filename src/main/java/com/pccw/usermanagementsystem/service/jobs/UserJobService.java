@@ -0,0 +1,188 @@
+package com.pccw.usermanagementsystem.service.jobs;
+
+import com.pccw.usermanagementsystem.datasource.ReadRouting;
+import com.pccw.usermanagementsystem.dto.UpdateUserRequestDTO;
+import com.pccw.usermanagementsystem.dto.UserJobDTO;
+import com.pccw.usermanagementsystem.dto.UserJobItemDTO;
+import com.pccw.usermanagementsystem.dto.UserRequestDTO;
+import com.pccw.usermanagementsystem.entity.UserJob;
+import com.pccw.usermanagementsystem.entity.enums.Role;
+import com.pccw.usermanagementsystem.entity.enums.UserJobItemStatus;
+import com.pccw.usermanagementsystem.entity.enums.UserJobStatus;
+import com.pccw.usermanagementsystem.entity.enums.UserJobType;
+import com.pccw.usermanagementsystem.exception.UserJobNotFoundException;
+import com.pccw.usermanagementsystem.repository.UserJobItem;
+import com.pccw.usermanagementsystem.repository.UserJobItemRepository;
+import com.pccw.usermanagementsystem.repository.UserJobRepository;
+import jakarta.transaction.Transactional;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Accepts bulk registrations, updates and soft deletes as jobs that {@link UserJobRunner} processes in the
+ * background, and reports their progress.
+ * <p>
+ * Submitting only validates and stores the payload, so it takes seconds even for tens of thousands of items.
+ * Passwords are stored encrypted by {@link UserJobPasswordCipher} until their item is processed.
+ * Items that fail validation, or repeat an earlier username or id, are stored as failed straight away; the rest are
+ * applied later, a chunk per transaction.
+ */
+@Service
+public class UserJobService {
+
+    private final UserJobRepository userJobRepository;
+    private final UserJobItemRepository userJobItemRepository;
+    private final ReadRouting readRouting;
+    private final Validator validator;
+    private final UserJobPasswordCipher passwordCipher;
+    private final int maxReportedErrors;
+
+    public UserJobService(UserJobRepository userJobRepository,
+                          UserJobItemRepository userJobItemRepository,
+                          ReadRouting readRouting,
+                          Validator validator,
+                          UserJobPasswordCipher passwordCipher,
+                          @Value("${app.user-jobs.max-reported-errors:100}") int maxReportedErrors) {
+        this.userJobRepository = userJobRepository;
+        this.userJobItemRepository = userJobItemRepository;
+        this.readRouting = readRouting;
+        this.validator = validator;
+        this.passwordCipher = passwordCipher;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    @Transactional
+    public UserJobDTO submitRegistrations(List<UserRequestDTO> users) {
+        List<UserJobItem> items = new ArrayList<>(users.size());
+        Map<String, Integer> indexByUsername = new HashMap<>();
+
+        for (int i = 0; i < users.size(); i++) {
+            UserRequestDTO user = users.get(i);
+            List<String> errors = validate(user);
+            Role role = errors.isEmpty() ? parseRole(user.getRole(), errors) : null;
+            if (errors.isEmpty()) {
+                Integer first = indexByUsername.putIfAbsent(user.getUsername(), i);
+                if (first != null) {
+                    errors.add("username: duplicate of item " + first);
+                }
+            }
+
+            items.add(errors.isEmpty()
+                    ? UserJobItem.pending(i, null, user.getUsername(), user.getPassword(), role, user.getEnabled())
+                    : UserJobItem.rejected(i, null, user.getUsername(), errors));
+        }
+        return submit(UserJobType.REGISTER, items);
+    }
+
+    @Transactional
+    public UserJobDTO submitUpdates(List<UpdateUserRequestDTO> users) {
+        List<UserJobItem> items = new ArrayList<>(users.size());
+        Map<Long, Integer> indexById = new HashMap<>();
+
+        for (int i = 0; i < users.size(); i++) {
+            UpdateUserRequestDTO user = users.get(i);
+            List<String> errors = validate(user);
+            Role role = errors.isEmpty() ? parseRole(user.getRole(), errors) : null;
+            // Two updates of one user in a job would race each other across chunks
+            if (errors.isEmpty()) {
+                Integer first = indexById.putIfAbsent(user.getId(), i);
+                if (first != null) {
+                    errors.add("id: duplicate of item " + first);
+                }
+            }
+
+            items.add(errors.isEmpty()
+                    ? UserJobItem.pending(i, user.getId(), user.getUsername(), user.getPassword(), role, user.getEnabled())
+                    : UserJobItem.rejected(i, user.getId(), user.getUsername(), errors));
+        }
+        return submit(UserJobType.UPDATE, items);
+    }
+
+    @Transactional
+    public UserJobDTO submitSoftDeletes(List<Long> ids) {
+        List<UserJobItem> items = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            items.add(UserJobItem.pending(i, ids.get(i), null, null, null, null));
+        }
+        return submit(UserJobType.SOFT_DELETE, items);
+    }
+
+    // Progress is written moments before it is polled; a lagging replica would even report a new job as missing
+    public UserJobDTO getJob(UUID jobId) {
+        return readRouting.onPrimary(() -> {
+            UserJob job = userJobRepository.findById(jobId).orElseThrow(() -> new UserJobNotFoundException(jobId));
+            return toDTO(job, userJobItemRepository.findFailed(jobId, maxReportedErrors));
+        });
+    }
+
+    /**
+     * Items of the job in submission order, starting after {@code afterIndex}.
+     */
+    public List<UserJobItemDTO> getItems(UUID jobId, int afterIndex, int limit) {
+        return readRouting.onPrimary(() -> {
+            if (!userJobRepository.existsById(jobId)) {
+                throw new UserJobNotFoundException(jobId);
+            }
+            return userJobItemRepository.findAfter(jobId, afterIndex, limit).stream()
+                    .map(UserJobService::toDTO)
+                    .collect(Collectors.toList());
+        });
+    }
+
+    private UserJobDTO submit(UserJobType type, List<UserJobItem> items) {
+        List<UserJobItem> rejected = items.stream().filter(item -> item.status() == UserJobItemStatus.FAILED).toList();
+        LocalDateTime now = LocalDateTime.now();
+
+        UserJob job = new UserJob(type, items.size(), rejected.size(), now);
+        if (rejected.size() == items.size()) {
+            // Nothing left to run
+            job.setStatus(UserJobStatus.COMPLETED);
+            job.setFinishedAt(now);
+        }
+        // Flushed first: the items are inserted over JDBC and reference the job row
+        job = userJobRepository.saveAndFlush(job);
+        UUID jobId = job.getId();
+        userJobItemRepository.insertAll(jobId, items.stream()
+                .map(item -> item.password() == null ? item
+                        : item.withPassword(passwordCipher.encrypt(jobId, item.index(), item.password())))
+                .toList());
+
+        return toDTO(job, rejected.stream().limit(maxReportedErrors).toList());
+    }
+
+    private List<String> validate(Object item) {
+        return validator.validate(item).stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    private static Role parseRole(String role, List<String> errors) {
+        try {
+            return Role.fromValue(role);
+        } catch (IllegalArgumentException e) {
+            errors.add("role: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static UserJobDTO toDTO(UserJob job, List<UserJobItem> failedItems) {
+        return new UserJobDTO(job.getId(), job.getType(), job.getStatus(), job.getTotal(), job.getProcessed(),
+                job.getSucceeded(), job.getFailed(), job.getCreatedAt(), job.getStartedAt(), job.getFinishedAt(),
+                failedItems.stream().map(UserJobService::toDTO).collect(Collectors.toList()),
+                job.getFailed() > failedItems.size());
+    }
+
+    private static UserJobItemDTO toDTO(UserJobItem item) {
+        return new UserJobItemDTO(item.index(), item.status(), item.userId(), item.username(), item.errors());
+    }
+}
@@ -0,0 +1,3 @@
+-- Bumped by every password change. Refresh tokens carry a fingerprint of it rather than of the password hash,
+-- so upgrading a hash on login (same password, new hash) leaves the user's other sessions signed in.
+ALTER TABLE users ADD COLUMN credentials_epoch BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,17 @@
+-- Staging for POST /api/users/import. Each chunk is copied in and committed on its own, so no connection or
+-- transaction is held while the next chunk is hashed; only the final merge into users runs in one transaction.
+-- Unlogged: the rows are transient and cheaper to write without WAL, and a crash only loses imports in flight.
+CREATE UNLOGGED TABLE user_import_rows (
+    import_id UUID        NOT NULL,
+    line      BIGINT      NOT NULL,
+    username  TEXT        NOT NULL,
+    password  TEXT        NOT NULL,
+    role      TEXT        NOT NULL,
+    enabled   BOOLEAN     NOT NULL,
+    created   BOOLEAN     NOT NULL DEFAULT false,
+    staged_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    PRIMARY KEY (import_id, line)
+);
+
+-- Finds the earlier lines of a username within one import
+CREATE INDEX user_import_rows_username_idx ON user_import_rows (import_id, username, line);
@@ -0,0 +1,17 @@
+-- Identity/serial ids force Hibernate to insert one row per round trip to read the generated key.
+-- Replace them with a sequence incremented by 50 so Hibernate's pooled optimizer can pre-allocate
+-- ids and batch the INSERTs. Existing tables may have been created either with SERIAL (schema.sql)
+-- or as an identity column (Hibernate ddl-auto), so handle both.
+ALTER TABLE users ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE users ALTER COLUMN id DROP DEFAULT;
+ALTER TABLE users ALTER COLUMN id TYPE BIGINT;
+DROP SEQUENCE IF EXISTS users_id_seq;
+
+CREATE SEQUENCE users_id_seq INCREMENT BY 50;
+ALTER SEQUENCE users_id_seq OWNED BY users.id;
+
+-- The pooled optimizer hands out (value - 49 .. value), so the first value must leave room above the current max id
+SELECT setval('users_id_seq', COALESCE((SELECT MAX(id) FROM users), 0) + 50, false);
+
+-- Plain SQL inserts still get a unique id; each nextval claims a whole block, so they never collide with Hibernate's
+ALTER TABLE users ALTER COLUMN id SET DEFAULT nextval('users_id_seq');
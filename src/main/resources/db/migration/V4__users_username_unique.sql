@@ -0,0 +1,4 @@
+-- Tables created before V1 (schema.sql or Hibernate ddl-auto) have no unique constraint on username.
+-- INSERT ... ON CONFLICT (username) needs one; on tables created by V1 the constraint's index already
+-- has this name, so this is a no-op there. Fails if duplicate usernames exist, which must be cleaned up first.
+CREATE UNIQUE INDEX IF NOT EXISTS users_username_key ON users (username);
@@ -0,0 +1,10 @@
+-- Indexes behind GET /api/users/search. Equality filters walk (role, enabled, id) or (enabled, id) in keyset
+-- order, and (role, enabled, username) or (enabled, username) when sorted by username; prefix filters use
+-- pattern_ops indexes, which serve LIKE 'prefix%' under any database collation.
+-- Built CONCURRENTLY so registrations are not blocked while they build; Flyway runs this script outside a transaction.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS users_role_enabled_id_idx ON users (role, enabled, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS users_enabled_id_idx ON users (enabled, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS users_role_enabled_username_idx ON users (role, enabled, username);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS users_enabled_username_idx ON users (enabled, username);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS users_username_pattern_idx ON users (username text_pattern_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS users_email_domain_pattern_idx ON users (lower(split_part(username, '@', 2)) text_pattern_ops);
@@ -0,0 +1,2 @@
+-- Row version for optimistic locking and the ETag of GET /api/users/{id}; existing rows start at 0
+ALTER TABLE users ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
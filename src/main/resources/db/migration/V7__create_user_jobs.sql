@@ -0,0 +1,35 @@
+-- Asynchronous bulk jobs (POST /api/users/jobs/...). A job is claimed by one instance at a time through lease_until,
+-- like email_outbox.next_attempt_at, so a job whose instance died or restarted is picked up again when it expires
+CREATE TABLE user_jobs (
+    id          UUID PRIMARY KEY,
+    type        VARCHAR(20) NOT NULL,
+    status      VARCHAR(20) NOT NULL,
+    total       INTEGER     NOT NULL,
+    processed   INTEGER     NOT NULL DEFAULT 0,
+    succeeded   INTEGER     NOT NULL DEFAULT 0,
+    failed      INTEGER     NOT NULL DEFAULT 0,
+    attempts    INTEGER     NOT NULL DEFAULT 0,
+    lease_until TIMESTAMP   NOT NULL,
+    last_error  TEXT,
+    created_at  TIMESTAMP   NOT NULL,
+    started_at  TIMESTAMP,
+    finished_at TIMESTAMP
+);
+
+CREATE INDEX user_jobs_due_idx ON user_jobs (lease_until) WHERE status <> 'COMPLETED';
+
+-- One row per payload item, processed in item_index order. The password is cleared once the item is processed
+CREATE TABLE user_job_items (
+    job_id     UUID    NOT NULL REFERENCES user_jobs (id) ON DELETE CASCADE,
+    item_index INTEGER NOT NULL,
+    status     VARCHAR(20) NOT NULL,
+    user_id    BIGINT,
+    username   TEXT,
+    password   TEXT,
+    role       TEXT,
+    enabled    BOOLEAN,
+    errors     TEXT[],
+    PRIMARY KEY (job_id, item_index)
+);
+
+CREATE INDEX user_job_items_pending_idx ON user_job_items (job_id, item_index) WHERE status = 'PENDING';
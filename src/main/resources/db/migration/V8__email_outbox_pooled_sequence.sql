@@ -0,0 +1,14 @@
+-- Same as V3 for users: a bulk registration writes one outbox row per user, and a BIGSERIAL/identity id makes
+-- Hibernate insert them one round trip at a time. A sequence incremented by 50 lets the pooled optimizer batch them.
+ALTER TABLE email_outbox ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE email_outbox ALTER COLUMN id DROP DEFAULT;
+DROP SEQUENCE IF EXISTS email_outbox_id_seq;
+
+CREATE SEQUENCE email_outbox_id_seq INCREMENT BY 50;
+ALTER SEQUENCE email_outbox_id_seq OWNED BY email_outbox.id;
+
+-- The pooled optimizer hands out (value - 49 .. value), so the first value must leave room above the current max id
+SELECT setval('email_outbox_id_seq', COALESCE((SELECT MAX(id) FROM email_outbox), 0) + 50, false);
+
+-- Plain SQL inserts (the import's welcome emails) still get a unique id; each nextval claims a whole block
+ALTER TABLE email_outbox ALTER COLUMN id SET DEFAULT nextval('email_outbox_id_seq');
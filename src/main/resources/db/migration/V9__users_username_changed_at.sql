@@ -0,0 +1,20 @@
+-- Lets every instance pick up usernames registered or renamed by the others between username filter rebuilds.
+-- The trigger stamps inserts and renames on every write path (JPA, ON CONFLICT inserts, the import merge).
+-- now() is a stable default, so existing rows take the migration time without rewriting the table.
+ALTER TABLE users ADD COLUMN username_changed_at TIMESTAMPTZ NOT NULL DEFAULT now();
+
+-- clock_timestamp() rather than now(): the row's time is close to its commit, not to the start of a long transaction
+CREATE FUNCTION users_stamp_username_changed_at() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP = 'INSERT' OR NEW.username IS DISTINCT FROM OLD.username THEN
+        NEW.username_changed_at := clock_timestamp();
+    END IF;
+    RETURN NEW;
+END;
+$$;
+
+CREATE TRIGGER users_username_changed_at
+    BEFORE INSERT OR UPDATE OF username ON users
+    FOR EACH ROW EXECUTE FUNCTION users_stamp_username_changed_at();
+
+CREATE INDEX users_username_changed_at_idx ON users (username_changed_at);
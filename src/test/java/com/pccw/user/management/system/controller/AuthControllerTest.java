@@ -0,0 +1,158 @@
+package com.pccw.user.management.system.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pccw.user.management.system.fixtures.UserFixture;
+import com.pccw.usermanagementsystem.UserManagementSystemApplication;
+import com.pccw.usermanagementsystem.dto.LoginRequestDTO;
+import com.pccw.usermanagementsystem.dto.TokenResponseDTO;
+import com.pccw.usermanagementsystem.entity.User;
+import com.pccw.usermanagementsystem.mapper.UserMapper;
+import com.pccw.usermanagementsystem.repository.UserRepository;
+import com.pccw.usermanagementsystem.security.CustomUserDetailsService;
+import com.pccw.usermanagementsystem.security.TokenRevocationList;
+import com.pccw.usermanagementsystem.service.UserService;
+import com.pccw.usermanagementsystem.service.email.EmailService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.security.core.userdetails.User.withUsername;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// The username filter rebuilds on a scheduler thread; it would race the test thread stubbing the mocked repository
+@SpringBootTest(classes = UserManagementSystemApplication.class, properties = "app.username-filter.enabled=false")
+@AutoConfigureMockMvc
+class AuthControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
+    @MockBean
+    private UserRepository userRepository;
+
+    @MockBean
+    private CustomUserDetailsService customUserDetailsService;
+
+    @MockBean
+    private EmailService emailService;
+
+    @MockBean
+    private UserService userService;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = UserFixture.getInstance().getDefaultUser();
+        user.setPassword(passwordEncoder.encode("defaultPassword"));
+
+        when(customUserDetailsService.loadUserByUsername(user.getUsername())).thenReturn(withUsername(user.getUsername())
+                .password(user.getPassword())
+                .roles(user.getRole().name())
+                .build());
+        when(userService.findUserByUsername(user.getUsername())).thenReturn(Optional.of(user));
+        when(userService.findActiveUserById(user.getId())).thenReturn(new UserMapper().toDTO(user));
+    }
+
+    private TokenResponseDTO login() throws Exception {
+        String response = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new LoginRequestDTO(user.getUsername(), "defaultPassword"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tokenType").value("Bearer"))
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(response, TokenResponseDTO.class);
+    }
+
+    @Test
+    void testBearerTokenAuthenticatesWithoutLoadingTheUser() throws Exception {
+        // Given
+        TokenResponseDTO tokens = login();
+        clearInvocations(customUserDetailsService);
+
+        // When & Then
+        mockMvc.perform(get("/api/users/{id}", user.getId())
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + tokens.getAccessToken()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username").value(user.getUsername()));
+
+        verify(customUserDetailsService, never()).loadUserByUsername(anyString());
+    }
+
+    @Test
+    void testLoginUpgradesLegacyPasswordHash() throws Exception {
+        // Given
+        String legacyHash = new BCryptPasswordEncoder(4).encode("legacyPassword");
+        UserDetails legacyUser = withUsername("legacy@example.com").password(legacyHash).roles("USER").build();
+        when(customUserDetailsService.loadUserByUsername("legacy@example.com")).thenReturn(legacyUser);
+        when(customUserDetailsService.updatePassword(any(UserDetails.class), anyString()))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        when(userService.findUserByUsername("legacy@example.com")).thenReturn(Optional.of(user));
+
+        // When
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new LoginRequestDTO("legacy@example.com", "legacyPassword"))))
+                .andExpect(status().isOk());
+
+        // Then
+        ArgumentCaptor<String> newHash = ArgumentCaptor.forClass(String.class);
+        verify(customUserDetailsService, times(1)).updatePassword(eq(legacyUser), newHash.capture());
+        assertTrue(newHash.getValue().startsWith("{bcrypt}$2a$10$"));
+        assertTrue(passwordEncoder.matches("legacyPassword", newHash.getValue()));
+        assertFalse(passwordEncoder.upgradeEncoding(newHash.getValue()));
+    }
+
+    @Test
+    void testLoginWithWrongPassword() throws Exception {
+        // When & Then
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new LoginRequestDTO(user.getUsername(), "wrongPassword"))))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void testInvalidBearerTokenIsUnauthorized() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/api/users/{id}", user.getId())
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer not-a-token"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void testRevokedBearerTokenIsUnauthorized() throws Exception {
+        // Given
+        TokenResponseDTO tokens = login();
+        tokenRevocationList.revoke(user.getId());
+
+        // When & Then
+        mockMvc.perform(get("/api/users/{id}", user.getId())
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + tokens.getAccessToken()))
+                .andExpect(status().isUnauthorized());
+    }
+}
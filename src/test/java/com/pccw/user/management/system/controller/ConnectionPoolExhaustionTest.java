@@ -0,0 +1,48 @@
+package com.pccw.user.management.system.controller;
+
+import com.pccw.usermanagementsystem.UserManagementSystemApplication;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Connection;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// A single connection, held by the test; nothing in the background may take it
+@SpringBootTest(classes = UserManagementSystemApplication.class, properties = {
+        "spring.datasource.hikari.maximum-pool-size=1",
+        "spring.datasource.hikari.connection-timeout=250",
+        "app.username-filter.enabled=false",
+        "app.user-cache.enabled=false",
+        "app.email.outbox.dispatcher.enabled=false",
+        "app.user-jobs.runner.enabled=false"})
+@AutoConfigureMockMvc
+class ConnectionPoolExhaustionTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private HikariDataSource primaryDataSource;
+
+    @Test
+    void testRequestIsShedWhenNoConnectionIsFree() throws Exception {
+        // Given
+        try (Connection held = primaryDataSource.getConnection()) {
+
+            // When & Then
+            mockMvc.perform(get("/api/users/1")
+                            .with(SecurityMockMvcRequestPostProcessors.user("admin@example.com").roles("ADMIN")))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+                    .andExpect(jsonPath("$.error").value("Service Unavailable"));
+        }
+    }
+}
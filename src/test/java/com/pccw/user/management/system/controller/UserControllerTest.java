@@ -7,26 +7,46 @@ import com.pccw.user.management.system.fixtures.UserRequestDTOFixture;
 import com.pccw.user.management.system.fixtures.UserResponseDTOFixture;
 import com.pccw.usermanagementsystem.UserManagementSystemApplication;
 import com.pccw.usermanagementsystem.dto.UpdateUserRequestDTO;
+import com.pccw.usermanagementsystem.dto.UserImportResultDTO;
+import com.pccw.usermanagementsystem.dto.UserPatchRequestDTO;
 import com.pccw.usermanagementsystem.dto.UserRequestDTO;
 import com.pccw.usermanagementsystem.dto.UserResponseDTO;
 import com.pccw.usermanagementsystem.entity.User;
+import com.pccw.usermanagementsystem.entity.enums.Role;
+import com.pccw.usermanagementsystem.exception.HashingCapacityExceededException;
+import com.pccw.usermanagementsystem.exception.InvalidImportException;
+import com.pccw.usermanagementsystem.exception.PreconditionFailedException;
 import com.pccw.usermanagementsystem.exception.UserNotFoundException;
 import com.pccw.usermanagementsystem.mapper.UserMapper;
+import com.pccw.usermanagementsystem.pagination.KeysetCursor;
+import com.pccw.usermanagementsystem.pagination.UserSearchSort;
 import com.pccw.usermanagementsystem.repository.UserRepository;
+import com.pccw.usermanagementsystem.repository.UserSearchCriteria;
 import com.pccw.usermanagementsystem.security.CustomUserDetailsService;
+import com.pccw.usermanagementsystem.service.PasswordHashingService;
 import com.pccw.usermanagementsystem.service.UserService;
+import com.pccw.usermanagementsystem.service.exporting.ExportFormat;
+import com.pccw.usermanagementsystem.service.exporting.UserExportService;
+import com.pccw.usermanagementsystem.service.importing.ImportFormat;
+import com.pccw.usermanagementsystem.service.importing.UserImportService;
 import com.pccw.usermanagementsystem.service.email.EmailService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -38,7 +58,8 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 
-@SpringBootTest(classes = UserManagementSystemApplication.class)
+// The username filter rebuilds on a scheduler thread; it would race the test thread stubbing the mocked repository
+@SpringBootTest(classes = UserManagementSystemApplication.class, properties = "app.username-filter.enabled=false")
 @AutoConfigureMockMvc
 public class UserControllerTest {
 
@@ -60,6 +81,15 @@ public class UserControllerTest {
     @MockBean
     private UserMapper userMapper;
 
+    @MockBean
+    private UserImportService userImportService;
+
+    @MockBean
+    private UserExportService userExportService;
+
+    @MockBean
+    private PasswordHashingService passwordHashingService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -97,6 +127,58 @@ public class UserControllerTest {
                 .andExpect(jsonPath("$.enabled").value(userResponseDTO.getEnabled()));
     }
 
+    @Test
+    void testRegisterUserIsShedWhenHashingIsSaturated() throws Exception {
+        // Given
+        UserRequestDTO userRequestDTO = UserRequestDTOFixture.getInstance().getDefaultUserRequestDTO();
+        User user = UserFixture.getInstance().getDefaultUser();
+
+        when(userMapper.toEntity(userRequestDTO)).thenReturn(user);
+        when(userService.registerUser(user)).thenThrow(new HashingCapacityExceededException("Too many passwords are waiting to be hashed"));
+
+        // When & Then
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/users/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userRequestDTO)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+                .andExpect(jsonPath("$.error").value("Service Unavailable"));
+    }
+
+    @Test
+    void testBasicAuthenticationIsShedWhenHashingIsSaturated() throws Exception {
+        // Given
+        when(customUserDetailsService.loadUserByUsername("default@example.com")).thenReturn(withUsername("default@example.com")
+                .password("encodedPassword")
+                .roles("USER")
+                .build());
+        when(passwordHashingService.matches(anyString(), anyString()))
+                .thenThrow(new HashingCapacityExceededException("Password hashing did not start in time"));
+
+        // When & Then
+        mockMvc.perform(get("/api/users/1")
+                        .with(SecurityMockMvcRequestPostProcessors.httpBasic("default@example.com", "defaultPassword")))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+        verify(userService, never()).findActiveUserById(anyLong());
+    }
+
+    @Test
+    void testBasicAuthenticationOfUnknownUserIsShedWhenHashingIsSaturated() throws Exception {
+        // Given
+        when(customUserDetailsService.loadUserByUsername("ghost@example.com"))
+                .thenThrow(new UsernameNotFoundException("User not found: ghost@example.com"));
+        // The dummy check against unknown usernames is shed like any other
+        when(passwordHashingService.matches(anyString(), any()))
+                .thenThrow(new HashingCapacityExceededException("Password hashing did not start in time"));
+
+        // When & Then
+        mockMvc.perform(get("/api/users/1")
+                        .with(SecurityMockMvcRequestPostProcessors.httpBasic("ghost@example.com", "defaultPassword")))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+    }
+
     @Test
     void testBulkRegisterUsersSuccessfully() throws Exception {
         // Given
@@ -150,15 +232,153 @@ public class UserControllerTest {
                 .andExpect(jsonPath("$[1].enabled").value(userResponseDTOs.get(1).getEnabled()));
     }
 
+    @Test
+    void testIdempotentBulkRegisterReportsStatusPerItem() throws Exception {
+        // Given
+        UserRequestDTO admin = UserRequestDTOFixture.getInstance().getAdminUserRequestDTO();
+        UserRequestDTO existing = UserRequestDTOFixture.getInstance().getDefaultUserRequestDTO();
+        UserRequestDTO invalid = new UserRequestDTO("not-an-email", "short", "user", true);
+        UserRequestDTO unknownRole = new UserRequestDTO("owner@example.com", "ownerPassword", "owner", true);
+
+        User adminUser = UserFixture.getInstance().getAdminUser();
+        User existingUser = UserFixture.getInstance().getDefaultUser();
+        UserResponseDTO adminResponse = UserResponseDTOFixture.getInstance().getAdminUserResponseDTO();
+
+        when(userMapper.toEntity(admin)).thenReturn(adminUser);
+        when(userMapper.toEntity(existing)).thenReturn(existingUser);
+        when(userMapper.toEntity(unknownRole)).thenThrow(new IllegalArgumentException("Unknown role value: owner"));
+        when(userService.registerUsersSkippingExisting(List.of(adminUser, existingUser))).thenReturn(List.of(adminUser));
+        when(userMapper.toDTO(adminUser)).thenReturn(adminResponse);
+
+        UserDetails adminUserDetails = withUsername("admin@example.com").password("adminPassword").roles("ADMIN").build();
+
+        // When & Then
+        mockMvc.perform(post("/api/users/register/bulk-idempotent")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(admin, existing, invalid, unknownRole, admin)))
+                        .with(SecurityMockMvcRequestPostProcessors.user(adminUserDetails)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(5))
+                .andExpect(jsonPath("$[0].status").value("created"))
+                .andExpect(jsonPath("$[0].user.id").value(adminResponse.getId()))
+                .andExpect(jsonPath("$[1].status").value("already-exists"))
+                .andExpect(jsonPath("$[1].user").doesNotExist())
+                .andExpect(jsonPath("$[2].status").value("invalid"))
+                .andExpect(jsonPath("$[2].errors.length()").value(2))
+                .andExpect(jsonPath("$[3].status").value("invalid"))
+                .andExpect(jsonPath("$[3].errors[0]").value("role: Unknown role value: owner"))
+                .andExpect(jsonPath("$[4].index").value(4))
+                .andExpect(jsonPath("$[4].status").value("invalid"))
+                .andExpect(jsonPath("$[4].errors[0]").value("username: duplicate of item 0"));
+
+        verify(userService, times(1)).registerUsersSkippingExisting(List.of(adminUser, existingUser));
+    }
+
+    @Test
+    void testUsernameAvailabilityWithoutAuthentication() throws Exception {
+        // Given
+        when(userService.isUsernameAvailable("new@example.com")).thenReturn(true);
+
+        // When & Then
+        mockMvc.perform(get("/api/users/availability").param("username", "new@example.com"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-store"))
+                .andExpect(jsonPath("$.username").value("new@example.com"))
+                .andExpect(jsonPath("$.available").value(true));
+    }
+
+    @Test
+    void testImportUsersFromCsv() throws Exception {
+        // Given
+        String csv = "username,password,role,enabled\ndefault@example.com,defaultPassword,user,true\n";
+        UserImportResultDTO result = new UserImportResultDTO(1, 1, 0, 0, List.of(), false);
+        when(userImportService.importUsers(any(InputStream.class), eq(ImportFormat.CSV))).thenReturn(result);
+
+        UserDetails adminUserDetails = withUsername("admin@example.com").password("adminPassword").roles("ADMIN").build();
+
+        // When & Then
+        mockMvc.perform(post("/api/users/import")
+                        .contentType("text/csv")
+                        .content(csv)
+                        .with(SecurityMockMvcRequestPostProcessors.user(adminUserDetails)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received").value(1))
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.issuesTruncated").value(false));
+    }
+
+    @Test
+    void testImportUsersWithInvalidCsvHeader() throws Exception {
+        // Given
+        when(userImportService.importUsers(any(InputStream.class), eq(ImportFormat.CSV)))
+                .thenThrow(new InvalidImportException("CSV header must name the columns username, password, role, enabled"));
+
+        UserDetails adminUserDetails = withUsername("admin@example.com").password("adminPassword").roles("ADMIN").build();
+
+        // When & Then
+        mockMvc.perform(post("/api/users/import")
+                        .contentType("text/csv")
+                        .content("user,pass\n")
+                        .with(SecurityMockMvcRequestPostProcessors.user(adminUserDetails)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Invalid import"));
+    }
+
+    @Test
+    void testImportUsersRejectsUnsupportedContentType() throws Exception {
+        // Given
+        UserDetails adminUserDetails = withUsername("admin@example.com").password("adminPassword").roles("ADMIN").build();
+
+        // When & Then
+        mockMvc.perform(post("/api/users/import")
+                        .contentType(MediaType.APPLICATION_XML)
+                        .content("<users/>")
+                        .with(SecurityMockMvcRequestPostProcessors.user(adminUserDetails)))
+                .andExpect(status().isUnsupportedMediaType());
+        verifyNoInteractions(userImportService);
+    }
+
+    @Test
+    void testExportUsersAsCsv() throws Exception {
+        // Given
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(1).write("id,username,role,enabled\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(userExportService).exportUsers(eq(ExportFormat.CSV), any(OutputStream.class));
+
+        UserDetails adminUserDetails = withUsername("admin@example.com").password("adminPassword").roles("ADMIN").build();
+
+        // When & Then
+        mockMvc.perform(get("/api/users/export")
+                        .param("format", "CSV")
+                        .with(SecurityMockMvcRequestPostProcessors.user(adminUserDetails)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv;charset=UTF-8"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"users.csv\""))
+                .andExpect(content().string("id,username,role,enabled\n"));
+    }
+
+    @Test
+    void testExportUsersDefaultsToNdjson() throws Exception {
+        // Given
+        UserDetails adminUserDetails = withUsername("admin@example.com").password("adminPassword").roles("ADMIN").build();
+
+        // When & Then
+        mockMvc.perform(get("/api/users/export")
+                        .with(SecurityMockMvcRequestPostProcessors.user(adminUserDetails)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson;charset=UTF-8"));
+        verify(userExportService, times(1)).exportUsers(eq(ExportFormat.NDJSON), any(OutputStream.class));
+    }
+
     @Test
     void testGetUserByIdSuccessfully() throws Exception {
         // Given
         User user = UserFixture.getInstance().getDefaultUser();
         UserResponseDTO userResponseDTO = UserResponseDTOFixture.getInstance().getDefaultUserResponseDTO();
 
-        when(userService.findActiveUserById(user.getId())).thenReturn(user);
+        when(userService.findActiveUserById(user.getId())).thenReturn(userResponseDTO);
         doNothing().when(emailService).sendWelcomeEmail(anyString(), anyString(), anyString());
-        when(userMapper.toDTO(user)).thenReturn(userResponseDTO);
 
         UserDetails userDetails = withUsername(user.getUsername())
                 .password(user.getPassword())
@@ -177,6 +397,33 @@ public class UserControllerTest {
                 .andExpect(jsonPath("$.enabled").value(userResponseDTO.getEnabled()));
     }
 
+    @Test
+    void testGetUserByIdAnswersNotModifiedForCurrentETag() throws Exception {
+        // Given
+        UserResponseDTO userResponseDTO = new UserResponseDTO(1L, "default@example.com", "user", true, 3L);
+        when(userService.findActiveUserById(1L)).thenReturn(userResponseDTO);
+
+        // When & Then
+        mockMvc.perform(get("/api/users/{id}", 1L)
+                        .with(SecurityMockMvcRequestPostProcessors.user("default@example.com")))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(jsonPath("$.version").doesNotExist());
+
+        mockMvc.perform(get("/api/users/{id}", 1L)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"3\"")
+                        .with(SecurityMockMvcRequestPostProcessors.user("default@example.com")))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(content().string(""));
+
+        mockMvc.perform(get("/api/users/{id}", 1L)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"2\"")
+                        .with(SecurityMockMvcRequestPostProcessors.user("default@example.com")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(1L));
+    }
+
     @Test
     void testGetUserByIdNotFound() throws Exception {
         // Given
@@ -198,6 +445,181 @@ public class UserControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void testGetAllUsersReturnsPageWithNextCursor() throws Exception {
+        // Given
+        List<UserResponseDTO> userResponseDTOs = Arrays.asList(
+                UserResponseDTOFixture.getInstance().getDefaultUserResponseDTO(),
+                UserResponseDTOFixture.getInstance().getAdminUserResponseDTO(),
+                new UserResponseDTO(3L, "third@example.com", "user", true)
+        );
+
+        when(userService.findUsersAfter(eq(0L), eq(3))).thenReturn(userResponseDTOs);
+
+        UserDetails userDetails = withUsername("admin@example.com")
+                .password("adminPassword")
+                .roles("ADMIN")
+                .build();
+
+        // When & Then
+        mockMvc.perform(get("/api/users/bulk")
+                        .param("size", "2")
+                        .with(SecurityMockMvcRequestPostProcessors.user(userDetails)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users.length()").value(2))
+                .andExpect(jsonPath("$.users[0].id").value(userResponseDTOs.get(0).getId()))
+                .andExpect(jsonPath("$.users[1].id").value(userResponseDTOs.get(1).getId()))
+                .andExpect(jsonPath("$.next").value(KeysetCursor.encode(2L)));
+    }
+
+    @Test
+    void testGetAllUsersLastPageHasNoNextCursor() throws Exception {
+        // Given
+        List<UserResponseDTO> userResponseDTOs = List.of(UserResponseDTOFixture.getInstance().getAdminUserResponseDTO());
+
+        when(userService.findUsersAfter(eq(1L), eq(3))).thenReturn(userResponseDTOs);
+
+        UserDetails userDetails = withUsername("admin@example.com")
+                .password("adminPassword")
+                .roles("ADMIN")
+                .build();
+
+        // When & Then
+        mockMvc.perform(get("/api/users/bulk")
+                        .param("size", "2")
+                        .param("cursor", KeysetCursor.encode(1L))
+                        .with(SecurityMockMvcRequestPostProcessors.user(userDetails)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users.length()").value(1))
+                .andExpect(jsonPath("$.next").doesNotExist());
+    }
+
+    @Test
+    void testGetAllUsersSendsPageETagAndAnswersNotModified() throws Exception {
+        // Given
+        UserResponseDTO admin = new UserResponseDTO(2L, "admin@example.com", Role.ADMIN, true, 7L);
+        when(userService.findUsersAfter(eq(0L), eq(51))).thenReturn(List.of(admin));
+
+        UserDetails userDetails = withUsername("admin@example.com").password("adminPassword").roles("ADMIN").build();
+
+        // When & Then
+        String etag = mockMvc.perform(get("/api/users/bulk")
+                        .with(SecurityMockMvcRequestPostProcessors.user(userDetails)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+                .andExpect(jsonPath("$.users.length()").value(1))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/users/bulk")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag)
+                        .with(SecurityMockMvcRequestPostProcessors.user(userDetails)))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+
+        // Once the user on the page is updated, the same tag no longer matches
+        when(userService.findUsersAfter(eq(0L), eq(51)))
+                .thenReturn(List.of(new UserResponseDTO(2L, "admin@example.com", Role.ADMIN, false, 8L)));
+        mockMvc.perform(get("/api/users/bulk")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag)
+                        .with(SecurityMockMvcRequestPostProcessors.user(userDetails)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users[0].enabled").value(false));
+
+        // As it does once another user joins the page
+        when(userService.findUsersAfter(eq(0L), eq(51)))
+                .thenReturn(List.of(admin, new UserResponseDTO(3L, "third@example.com", Role.USER, true, 0L)));
+        mockMvc.perform(get("/api/users/bulk")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag)
+                        .with(SecurityMockMvcRequestPostProcessors.user(userDetails)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users.length()").value(2));
+    }
+
+    @Test
+    void testSearchUsersByRoleAndEnabled() throws Exception {
+        // Given
+        List<UserResponseDTO> userResponseDTOs = Arrays.asList(
+                UserResponseDTOFixture.getInstance().getAdminUserResponseDTO(),
+                new UserResponseDTO(7L, "other-admin@example.com", "admin", false)
+        );
+        UserSearchCriteria criteria = new UserSearchCriteria(Role.ADMIN, false, null, "example", UserSearchSort.USERNAME,
+                Sort.Direction.DESC, null);
+        when(userService.searchUsers(eq(criteria), eq(2))).thenReturn(userResponseDTOs);
+
+        UserDetails userDetails = withUsername("admin@example.com").password("adminPassword").roles("ADMIN").build();
+
+        // When & Then
+        mockMvc.perform(get("/api/users/search")
+                        .param("role", "admin")
+                        .param("enabled", "false")
+                        .param("domainPrefix", "example")
+                        .param("sort", "USERNAME")
+                        .param("direction", "DESC")
+                        .param("size", "1")
+                        .with(SecurityMockMvcRequestPostProcessors.user(userDetails)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users.length()").value(1))
+                .andExpect(jsonPath("$.users[0].username").value("admin@example.com"))
+                .andExpect(jsonPath("$.next").value(KeysetCursor.encode("username", "admin@example.com")));
+    }
+
+    @Test
+    void testSearchUsersContinuesFromCursor() throws Exception {
+        // Given
+        UserSearchCriteria criteria = new UserSearchCriteria(null, null, "adm", null, UserSearchSort.ID, Sort.Direction.ASC, 2L);
+        when(userService.searchUsers(eq(criteria), eq(51))).thenReturn(List.of());
+
+        UserDetails userDetails = withUsername("admin@example.com").password("adminPassword").roles("ADMIN").build();
+
+        // When & Then
+        mockMvc.perform(get("/api/users/search")
+                        .param("usernamePrefix", "adm")
+                        .param("cursor", KeysetCursor.encode(2L))
+                        .with(SecurityMockMvcRequestPostProcessors.user(userDetails)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users.length()").value(0))
+                .andExpect(jsonPath("$.next").doesNotExist());
+    }
+
+    @Test
+    void testSearchUsersRejectsUnknownRoleAndForeignCursor() throws Exception {
+        // Given
+        UserDetails userDetails = withUsername("admin@example.com").password("adminPassword").roles("ADMIN").build();
+
+        // When & Then
+        mockMvc.perform(get("/api/users/search")
+                        .param("role", "owner")
+                        .with(SecurityMockMvcRequestPostProcessors.user(userDetails)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Type Mismatch"));
+
+        // A cursor issued for the id order cannot continue a username-ordered search
+        mockMvc.perform(get("/api/users/search")
+                        .param("sort", "USERNAME")
+                        .param("cursor", KeysetCursor.encode(2L))
+                        .with(SecurityMockMvcRequestPostProcessors.user(userDetails)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Invalid cursor"));
+
+        verify(userService, never()).searchUsers(any(), anyInt());
+    }
+
+    @Test
+    void testGetAllUsersInvalidCursor() throws Exception {
+        // Given
+        UserDetails userDetails = withUsername("admin@example.com")
+                .password("adminPassword")
+                .roles("ADMIN")
+                .build();
+
+        // When & Then
+        mockMvc.perform(get("/api/users/bulk")
+                        .param("cursor", "not-a-cursor")
+                        .with(SecurityMockMvcRequestPostProcessors.user(userDetails)))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void testUpdateUserSuccessfully() throws Exception {
         // Given
@@ -257,6 +679,116 @@ public class UserControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void testUpdateUserWithIfMatchReturnsNewETag() throws Exception {
+        // Given
+        UpdateUserRequestDTO userRequestDTO = UpdateUserRequestDTOFixture.getInstance().getDefaultUpdateUserRequestDTO();
+        User user = UserFixture.getInstance().getDefaultUser();
+        UserResponseDTO userResponseDTO = new UserResponseDTO(user.getId(), user.getUsername(), "user", true, 4L);
+
+        when(userMapper.toEntity(userRequestDTO)).thenReturn(user);
+        when(userService.updateUser(user)).thenReturn(user);
+        when(userMapper.toDTO(user)).thenReturn(userResponseDTO);
+
+        // When & Then
+        mockMvc.perform(put("/api/users")
+                        .header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userRequestDTO))
+                        .with(SecurityMockMvcRequestPostProcessors.user("default@example.com")))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""));
+
+        verify(userService).updateUser(argThat(carrier -> carrier.getVersion() == 3L));
+    }
+
+    @Test
+    void testUpdateUserWithStaleIfMatchIsRejected() throws Exception {
+        // Given
+        UpdateUserRequestDTO userRequestDTO = UpdateUserRequestDTOFixture.getInstance().getDefaultUpdateUserRequestDTO();
+        User user = UserFixture.getInstance().getDefaultUser();
+
+        when(userMapper.toEntity(userRequestDTO)).thenReturn(user);
+        when(userService.updateUser(user)).thenThrow(new PreconditionFailedException("User 1 is at version 4, not 3"));
+
+        // When & Then
+        mockMvc.perform(put("/api/users")
+                        .header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userRequestDTO))
+                        .with(SecurityMockMvcRequestPostProcessors.user("default@example.com")))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.error").value("Precondition Failed"));
+
+        // A weak tag can never match a strong one, so the service is not even asked
+        mockMvc.perform(put("/api/users")
+                        .header(HttpHeaders.IF_MATCH, "W/\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userRequestDTO))
+                        .with(SecurityMockMvcRequestPostProcessors.user("default@example.com")))
+                .andExpect(status().isPreconditionFailed());
+
+        verify(userService, times(1)).updateUser(any(User.class));
+    }
+
+    @Test
+    void testPatchUserSuccessfully() throws Exception {
+        // Given
+        User user = UserFixture.getInstance().getDefaultUser();
+        User patch = new User(user.getId(), null, null, null, false);
+        UserResponseDTO userResponseDTO = UserResponseDTOFixture.getInstance().getDefaultUserResponseDTO();
+        userResponseDTO.setEnabled(false);
+
+        when(userMapper.toEntity(eq(user.getId()), any(UserPatchRequestDTO.class))).thenReturn(patch);
+        when(userService.patchUser(patch)).thenReturn(user);
+        when(userMapper.toDTO(user)).thenReturn(userResponseDTO);
+
+        // When & Then
+        mockMvc.perform(patch("/api/users/{id}", user.getId())
+                        .contentType("application/merge-patch+json")
+                        .content("{\"enabled\": false}")
+                        .with(SecurityMockMvcRequestPostProcessors.user("default@example.com")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(userResponseDTO.getId()))
+                .andExpect(jsonPath("$.enabled").value(false));
+
+        verify(userMapper).toEntity(user.getId(), new UserPatchRequestDTO(null, null, null, false));
+    }
+
+    @Test
+    void testPatchUserWithInvalidPassword() throws Exception {
+        // When & Then
+        mockMvc.perform(patch("/api/users/{id}", 1L)
+                        .contentType("application/merge-patch+json")
+                        .content("{\"password\": \"short\"}")
+                        .with(SecurityMockMvcRequestPostProcessors.user("default@example.com")))
+                .andExpect(status().isBadRequest());
+
+        verify(userService, never()).patchUser(any(User.class));
+    }
+
+    @Test
+    void testBulkPatchUsersSuccessfully() throws Exception {
+        // Given
+        User user = UserFixture.getInstance().getDefaultUser();
+        User patch = new User(user.getId(), null, null, null, false);
+        UserResponseDTO userResponseDTO = UserResponseDTOFixture.getInstance().getDefaultUserResponseDTO();
+        userResponseDTO.setEnabled(false);
+
+        when(userMapper.toEntity(eq(user.getId()), any(UserPatchRequestDTO.class))).thenReturn(patch);
+        when(userService.patchUsers(List.of(patch))).thenReturn(List.of(user));
+        when(userMapper.toDTOs(List.of(user))).thenReturn(List.of(userResponseDTO));
+
+        // When & Then
+        mockMvc.perform(patch("/api/users/bulk-patch")
+                        .contentType("application/merge-patch+json")
+                        .content("[{\"id\": 1, \"enabled\": false}]")
+                        .with(SecurityMockMvcRequestPostProcessors.user("default@example.com")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(userResponseDTO.getId()))
+                .andExpect(jsonPath("$[0].enabled").value(false));
+    }
+
     @Test
     void testBulkUpdateUsersSuccessfully() throws Exception {
         // Given
@@ -447,6 +979,4 @@ public class UserControllerTest {
                         .with(SecurityMockMvcRequestPostProcessors.user(userDetails)))
                 .andExpect(status().isNotFound());  // Expecting 404 Not Found
     }
-
-
 }
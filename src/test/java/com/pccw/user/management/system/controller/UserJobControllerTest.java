@@ -0,0 +1,110 @@
+package com.pccw.user.management.system.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pccw.user.management.system.fixtures.UserRequestDTOFixture;
+import com.pccw.usermanagementsystem.UserManagementSystemApplication;
+import com.pccw.usermanagementsystem.dto.UserJobDTO;
+import com.pccw.usermanagementsystem.dto.UserJobItemDTO;
+import com.pccw.usermanagementsystem.dto.UserRequestDTO;
+import com.pccw.usermanagementsystem.entity.enums.UserJobItemStatus;
+import com.pccw.usermanagementsystem.entity.enums.UserJobStatus;
+import com.pccw.usermanagementsystem.entity.enums.UserJobType;
+import com.pccw.usermanagementsystem.exception.UserJobNotFoundException;
+import com.pccw.usermanagementsystem.pagination.KeysetCursor;
+import com.pccw.usermanagementsystem.service.jobs.UserJobService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// No runner: the jobs are never stored, and it would poll the database throughout the test
+@SpringBootTest(classes = UserManagementSystemApplication.class,
+        properties = {"app.username-filter.enabled=false", "app.user-jobs.runner.enabled=false"})
+@AutoConfigureMockMvc
+public class UserJobControllerTest {
+
+    private static final UUID JOB_ID = UUID.fromString("0bc07cea-fffa-4bb9-ad74-33a27ba4fb66");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private UserJobService userJobService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private static UserJobDTO job(UserJobStatus status, int processed, List<UserJobItemDTO> errors) {
+        return new UserJobDTO(JOB_ID, UserJobType.REGISTER, status, 2, processed, 0, errors.size(),
+                LocalDateTime.now(), null, null, errors, false);
+    }
+
+    @Test
+    void testSubmitRegistrationsReturnsAcceptedJob() throws Exception {
+        // Given
+        UserRequestDTO valid = UserRequestDTOFixture.getInstance().getDefaultUserRequestDTO();
+        UserRequestDTO invalid = new UserRequestDTO("admin@example.com", "abc", "admin", true);
+        UserJobItemDTO rejected = new UserJobItemDTO(1, UserJobItemStatus.FAILED, null, "admin@example.com",
+                List.of("password: Password must be at least 6 characters long"));
+        when(userJobService.submitRegistrations(anyList())).thenReturn(job(UserJobStatus.QUEUED, 1, List.of(rejected)));
+
+        // When & Then
+        mockMvc.perform(post("/api/users/jobs/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(valid, invalid)))
+                        .with(SecurityMockMvcRequestPostProcessors.user("admin@example.com").roles("ADMIN")))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string(HttpHeaders.LOCATION, "http://localhost/api/users/jobs/" + JOB_ID))
+                .andExpect(jsonPath("$.status").value("QUEUED"))
+                .andExpect(jsonPath("$.processed").value(1))
+                .andExpect(jsonPath("$.errors[0].index").value(1))
+                .andExpect(jsonPath("$.errors[0].errors[0]").value("password: Password must be at least 6 characters long"));
+    }
+
+    @Test
+    void testGetUnknownJobReturnsNotFound() throws Exception {
+        // Given
+        when(userJobService.getJob(JOB_ID)).thenThrow(new UserJobNotFoundException(JOB_ID));
+
+        // When & Then
+        mockMvc.perform(get("/api/users/jobs/" + JOB_ID)
+                        .with(SecurityMockMvcRequestPostProcessors.user("admin@example.com").roles("ADMIN")))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testGetJobItemsReturnsNextCursor() throws Exception {
+        // Given
+        List<UserJobItemDTO> items = List.of(
+                new UserJobItemDTO(5, UserJobItemStatus.SUCCEEDED, 11L, "five@example.com", null),
+                new UserJobItemDTO(6, UserJobItemStatus.SUCCEEDED, 12L, "six@example.com", null),
+                new UserJobItemDTO(7, UserJobItemStatus.SUCCEEDED, 13L, "seven@example.com", null));
+        when(userJobService.getItems(JOB_ID, 4, 3)).thenReturn(items);
+
+        // When & Then
+        mockMvc.perform(get("/api/users/jobs/" + JOB_ID + "/items")
+                        .param("cursor", KeysetCursor.encode(4))
+                        .param("size", "2")
+                        .with(SecurityMockMvcRequestPostProcessors.user("admin@example.com").roles("ADMIN")))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-store"))
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[0].userId").value(11))
+                .andExpect(jsonPath("$.items[0].errors").doesNotExist())
+                .andExpect(jsonPath("$.next").value(KeysetCursor.encode(6)));
+    }
+}
@@ -0,0 +1,72 @@
+package com.pccw.user.management.system.datasource;
+
+import com.pccw.usermanagementsystem.datasource.ReadRouting;
+import com.pccw.usermanagementsystem.datasource.ReplicaProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadRoutingTest {
+
+    private final ReadRouting readRouting = new ReadRouting(new ReplicaProperties());
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testReadsOfRecentlyWrittenUserGoToPrimary() {
+        // Given
+        readRouting.recordWrites(List.of(1L), List.of("default@example.com"));
+
+        // When & Then
+        assertTrue(readRouting.read(1L, null, readRouting::isPrimaryRequired));
+        assertTrue(readRouting.read(null, "default@example.com", readRouting::isPrimaryRequired));
+        assertFalse(readRouting.read(2L, "admin@example.com", readRouting::isPrimaryRequired));
+        assertFalse(readRouting.isPrimaryRequired());
+    }
+
+    @Test
+    void testEveryReadByTheWriterGoesToPrimary() {
+        // Given
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("admin@example.com", null, List.of()));
+        readRouting.recordWrites(List.of(1L), List.of("default@example.com"));
+
+        // When & Then
+        assertTrue(readRouting.isPrimaryRequired());
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("other@example.com", null, List.of()));
+        assertFalse(readRouting.isPrimaryRequired());
+    }
+
+    @Test
+    void testWindowExpires() throws InterruptedException {
+        // Given
+        ReplicaProperties properties = new ReplicaProperties();
+        properties.setReadYourWritesWindow(Duration.ofMillis(50));
+        ReadRouting shortWindow = new ReadRouting(properties);
+        shortWindow.recordWrites(List.of(1L), List.of());
+
+        // When
+        Thread.sleep(100);
+
+        // Then
+        assertFalse(shortWindow.read(1L, null, shortWindow::isPrimaryRequired));
+    }
+
+    @Test
+    void testOnPrimaryIsScopedToTheCall() {
+        // When & Then
+        assertTrue(readRouting.onPrimary(() -> readRouting.onPrimary(readRouting::isPrimaryRequired) && readRouting.isPrimaryRequired()));
+        assertFalse(readRouting.isPrimaryRequired());
+    }
+}
@@ -0,0 +1,126 @@
+package com.pccw.user.management.system.datasource;
+
+import com.pccw.usermanagementsystem.datasource.ReadRouting;
+import com.pccw.usermanagementsystem.datasource.ReplicaProperties;
+import com.pccw.usermanagementsystem.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReplicaRoutingDataSourceTest {
+
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replicaConnection = mock(Connection.class);
+
+    private DataSource primary;
+    private HikariDataSource replica1;
+    private HikariDataSource replica2;
+    private ReadRouting readRouting;
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        primary = mock(DataSource.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        replica1 = replica(0);
+        replica2 = replica(0);
+        readRouting = new ReadRouting(new ReplicaProperties());
+        routingDataSource = new ReplicaRoutingDataSource(primary, List.of(replica1, replica2), readRouting, Duration.ofSeconds(10));
+    }
+
+    private HikariDataSource replica(long lagMillis) throws SQLException {
+        HikariDataSource replica = mock(HikariDataSource.class);
+        Connection probe = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(replica.getConnection()).thenReturn(probe, replicaConnection);
+        when(probe.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getLong(1)).thenReturn(lagMillis);
+        return replica;
+    }
+
+    @Test
+    void testReplicasAreOutOfRotationUntilProbed() throws SQLException {
+        // When & Then
+        assertSame(primaryConnection, routingDataSource.getConnection());
+        assertEquals(0, routingDataSource.getHealthyReplicaCount());
+    }
+
+    @Test
+    void testReadsAlternateBetweenHealthyReplicas() throws SQLException {
+        // Given
+        routingDataSource.checkHealth();
+
+        // When
+        routingDataSource.getConnection();
+        routingDataSource.getConnection();
+
+        // Then
+        verify(replica1, times(2)).getConnection();
+        verify(replica2, times(2)).getConnection();
+        verify(primary, never()).getConnection();
+        assertEquals(2, routingDataSource.getReplicaConnectionCount());
+    }
+
+    @Test
+    void testPrimaryRequiredBypassesReplicas() throws SQLException {
+        // Given
+        routingDataSource.checkHealth();
+
+        // When
+        Connection connection = readRouting.onPrimary(() -> {
+            try {
+                return routingDataSource.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        // Then
+        assertSame(primaryConnection, connection);
+        assertEquals(1, routingDataSource.getPrimaryConnectionCount());
+    }
+
+    @Test
+    void testFailingReplicaIsSkippedAndPrimaryIsTheLastResort() throws SQLException {
+        // Given
+        routingDataSource.checkHealth();
+        when(replica1.getConnection()).thenThrow(new SQLTransientConnectionException("replica-1 - Connection is not available"));
+        when(replica2.getConnection()).thenThrow(new SQLTransientConnectionException("replica-2 - Connection is not available"));
+
+        // When
+        Connection connection = routingDataSource.getConnection();
+
+        // Then
+        assertSame(primaryConnection, connection);
+        assertEquals(0, routingDataSource.getHealthyReplicaCount());
+    }
+
+    @Test
+    void testLaggingReplicaIsTakenOutOfRotation() throws SQLException {
+        // Given
+        HikariDataSource lagging = replica(60_000);
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(primary, List.of(lagging), readRouting, Duration.ofSeconds(10));
+
+        // When
+        dataSource.checkHealth();
+
+        // Then
+        assertEquals(0, dataSource.getHealthyReplicaCount());
+        assertSame(primaryConnection, dataSource.getConnection());
+    }
+}
@@ -4,9 +4,11 @@ import com.pccw.user.management.system.fixtures.UpdateUserRequestDTOFixture;
 import com.pccw.user.management.system.fixtures.UserFixture;
 import com.pccw.user.management.system.fixtures.UserRequestDTOFixture;
 import com.pccw.usermanagementsystem.dto.UpdateUserRequestDTO;
+import com.pccw.usermanagementsystem.dto.UserPatchRequestDTO;
 import com.pccw.usermanagementsystem.dto.UserRequestDTO;
 import com.pccw.usermanagementsystem.dto.UserResponseDTO;
 import com.pccw.usermanagementsystem.entity.User;
+import com.pccw.usermanagementsystem.entity.enums.Role;
 import com.pccw.usermanagementsystem.mapper.UserMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,6 +18,7 @@ import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 @SpringBootTest(classes = UserMapper.class)
 public class UserMapperTest {
@@ -103,4 +106,20 @@ public class UserMapperTest {
 
 
 
+
+    @Test
+    void testToEntityForUserPatchRequestDTO() {
+        // Given
+        UserPatchRequestDTO userPatchRequestDTO = new UserPatchRequestDTO(null, null, "admin", false);
+
+        // When
+        User user = userMapper.toEntity(5L, userPatchRequestDTO);
+
+        // Then
+        assertEquals(5L, user.getId());
+        assertNull(user.getUsername());
+        assertNull(user.getPassword());
+        assertEquals(Role.ADMIN, user.getRole());
+        assertEquals(false, user.getEnabled());
+    }
 }
@@ -0,0 +1,191 @@
+package com.pccw.user.management.system.repository;
+
+import com.pccw.usermanagementsystem.UserManagementSystemApplication;
+import com.pccw.usermanagementsystem.dto.UserResponseDTO;
+import com.pccw.usermanagementsystem.entity.enums.Role;
+import com.pccw.usermanagementsystem.pagination.UserSearchSort;
+import com.pccw.usermanagementsystem.repository.UserRepository;
+import com.pccw.usermanagementsystem.repository.UserSearchCriteria;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Seeds enough users that Postgres plans the search queries the way it would in production, then checks both the
+// results and that every filter and sort combination is served by an index rather than a sequential scan
+@SpringBootTest(classes = UserManagementSystemApplication.class, properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+                "com.pccw.user.management.system.repository.UserSearchRepositoryImplTest$RecordingStatementInspector",
+        "app.username-filter.enabled=false",
+        "app.user-cache.enabled=false",
+        "app.email.outbox.dispatcher.enabled=false",
+        "app.user-jobs.runner.enabled=false"})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class UserSearchRepositoryImplTest {
+
+    private static final String PREFIX = "search-db-test-";
+    private static final int SEEDED = 20_000;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // User i is search-db-test-<i, 5 digits>@domain-<i % 50>.example.com; every 10th is an admin, every 20th disabled
+    @BeforeAll
+    void seed() {
+        cleanUp();
+        jdbcTemplate.update("INSERT INTO users (username, password, role, enabled) " +
+                "SELECT format('" + PREFIX + "%s@domain-%s.example.com', lpad(i::text, 5, '0'), i % 50), 'hash', " +
+                "CASE WHEN i % 10 = 0 THEN 'ADMIN' ELSE 'USER' END, i % 20 <> 0 FROM generate_series(1, ?) AS i", SEEDED);
+        jdbcTemplate.execute("ANALYZE users");
+    }
+
+    @AfterAll
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM users WHERE username LIKE ?", PREFIX + "%");
+    }
+
+    private static String username(int i) {
+        return String.format("%s%05d@domain-%d.example.com", PREFIX, i, i % 50);
+    }
+
+    @Test
+    void testFiltersAndUsernameCursorPageThroughEveryMatch() {
+        // Given
+        List<String> expected = IntStream.rangeClosed(1, SEEDED)
+                .filter(i -> i % 10 == 0 && i % 20 != 0 && i % 50 == 10)
+                .mapToObj(UserSearchRepositoryImplTest::username)
+                .toList();
+
+        // When
+        List<String> found = new ArrayList<>();
+        int pages = 0;
+        Object after = null;
+        List<UserResponseDTO> page;
+        do {
+            page = userRepository.search(new UserSearchCriteria(Role.ADMIN, true, PREFIX, "Domain-10.",
+                    UserSearchSort.USERNAME, Sort.Direction.ASC, after), 51);
+            page.forEach(user -> found.add(user.getUsername()));
+            after = page.isEmpty() ? null : page.get(page.size() - 1).getUsername();
+            pages++;
+        } while (page.size() == 51);
+
+        // Then
+        assertEquals(200, expected.size());
+        assertEquals(expected, found);
+        assertEquals(4, pages);
+    }
+
+    @Test
+    void testIdCursorPagesDescendingWithoutGapsOrRepeats() {
+        // When
+        List<UserResponseDTO> found = new ArrayList<>();
+        Object after = null;
+        List<UserResponseDTO> page;
+        do {
+            page = userRepository.search(new UserSearchCriteria(null, false, PREFIX, null,
+                    UserSearchSort.ID, Sort.Direction.DESC, after), 100);
+            found.addAll(page);
+            after = page.isEmpty() ? null : page.get(page.size() - 1).getId();
+        } while (page.size() == 100);
+
+        // Then
+        assertEquals(SEEDED / 20, found.size());
+        assertTrue(found.stream().noneMatch(UserResponseDTO::getEnabled));
+        assertTrue(IntStream.range(1, found.size()).allMatch(i -> found.get(i).getId() < found.get(i - 1).getId()));
+    }
+
+    @Test
+    void testLikeWildcardsInPrefixesAreLiteral() {
+        // When
+        List<UserResponseDTO> underscore = userRepository.search(new UserSearchCriteria(null, null, "search_db", null,
+                UserSearchSort.ID, Sort.Direction.ASC, null), 10);
+        List<UserResponseDTO> percent = userRepository.search(new UserSearchCriteria(null, null, null, "%",
+                UserSearchSort.ID, Sort.Direction.ASC, null), 10);
+
+        // Then
+        assertTrue(underscore.isEmpty());
+        assertTrue(percent.isEmpty());
+    }
+
+    @Test
+    void testEveryFilterAndSortCombinationUsesAnIndex() {
+        for (Role role : Arrays.asList(null, Role.ADMIN)) {
+            for (Boolean enabled : Arrays.asList(null, false)) {
+                for (String usernamePrefix : Arrays.asList(null, PREFIX + "001")) {
+                    for (String domainPrefix : Arrays.asList(null, "Domain-7.")) {
+                        for (UserSearchSort sort : UserSearchSort.values()) {
+                            for (Sort.Direction direction : Sort.Direction.values()) {
+                                for (boolean nextPage : new boolean[]{false, true}) {
+                                    Object after = !nextPage ? null : sort == UserSearchSort.ID ? (Object) 1000L : username(10_000);
+                                    UserSearchCriteria criteria = new UserSearchCriteria(role, enabled, usernamePrefix, domainPrefix,
+                                            sort, direction, after);
+
+                                    // When
+                                    userRepository.search(criteria, 51);
+                                    String plan = String.join("\n", explain(RecordingStatementInspector.LAST_SQL.get(), criteria, 51));
+
+                                    // Then
+                                    assertFalse(plan.contains("Seq Scan on users"), criteria + "\n" + plan);
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // Binds the parameters in the order UserSearchRepositoryImpl adds the conditions, followed by the row limit
+    private List<String> explain(String sql, UserSearchCriteria criteria, int limit) {
+        List<Object> parameters = new ArrayList<>();
+        if (criteria.role() != null) {
+            parameters.add(criteria.role().name());
+        }
+        if (criteria.enabled() != null) {
+            parameters.add(criteria.enabled());
+        }
+        if (criteria.usernamePrefix() != null) {
+            parameters.add(criteria.usernamePrefix() + "%");
+        }
+        if (criteria.emailDomainPrefix() != null) {
+            parameters.add(criteria.emailDomainPrefix().toLowerCase(Locale.ROOT) + "%");
+        }
+        if (criteria.after() != null) {
+            parameters.add(criteria.after());
+        }
+        parameters.add(limit);
+
+        assertEquals(parameters.size(), sql.chars().filter(c -> c == '?').count(), sql);
+        return jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, parameters.toArray());
+    }
+
+    /**
+     * Keeps the last SQL statement Hibernate prepared on each thread, so the test can EXPLAIN exactly what ran.
+     */
+    public static class RecordingStatementInspector implements StatementInspector {
+
+        static final ThreadLocal<String> LAST_SQL = new ThreadLocal<>();
+
+        @Override
+        public String inspect(String sql) {
+            LAST_SQL.set(sql);
+            return sql;
+        }
+    }
+}
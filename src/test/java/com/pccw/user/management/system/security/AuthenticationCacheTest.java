@@ -0,0 +1,112 @@
+package com.pccw.user.management.system.security;
+
+import com.pccw.usermanagementsystem.security.AuthenticationCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthenticationCacheTest {
+
+    private AuthenticationCache authenticationCache;
+
+    private final Authentication authentication =
+            UsernamePasswordAuthenticationToken.authenticated("default@example.com", null, List.of());
+
+    @BeforeEach
+    void setUp() {
+        authenticationCache = new AuthenticationCache(true, 100, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void testCachedAuthenticationIsReturnedForSameCredentials() {
+        // Given
+        authenticationCache.put("default@example.com", "defaultPassword", authentication, authenticationCache.currentGeneration());
+
+        // When
+        Authentication cached = authenticationCache.get("default@example.com", "defaultPassword");
+
+        // Then
+        assertSame(authentication, cached);
+        assertEquals(1, authenticationCache.getHitCount());
+        assertEquals(0, authenticationCache.getMissCount());
+    }
+
+    @Test
+    void testDifferentPasswordIsAMiss() {
+        // Given
+        authenticationCache.put("default@example.com", "defaultPassword", authentication, authenticationCache.currentGeneration());
+
+        // When & Then
+        assertNull(authenticationCache.get("default@example.com", "wrongPassword"));
+        assertEquals(1, authenticationCache.getMissCount());
+    }
+
+    @Test
+    void testInvalidateRemovesEntry() {
+        // Given
+        authenticationCache.put("default@example.com", "defaultPassword", authentication, authenticationCache.currentGeneration());
+
+        // When
+        authenticationCache.invalidate("default@example.com");
+
+        // Then
+        assertNull(authenticationCache.get("default@example.com", "defaultPassword"));
+    }
+
+    @Test
+    void testPutIsDiscardedWhenInvalidatedConcurrently() {
+        // Given
+        long generation = authenticationCache.currentGeneration();
+        authenticationCache.invalidate("admin@example.com");
+
+        // When
+        authenticationCache.put("default@example.com", "defaultPassword", authentication, generation);
+
+        // Then
+        assertNull(authenticationCache.get("default@example.com", "defaultPassword"));
+    }
+
+    @Test
+    void testLoginRacingWithAnUncommittedUpdateIsDroppedOnCommit() {
+        // Given
+        authenticationCache.put("default@example.com", "oldPassword", authentication, authenticationCache.currentGeneration());
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // The update evicts the user, but has not committed its new password yet
+            authenticationCache.invalidate("default@example.com");
+
+            // When
+            // A concurrent login still reads the committed, old password and caches it again
+            long generation = authenticationCache.currentGeneration();
+            authenticationCache.put("default@example.com", "oldPassword", authentication, generation);
+            assertSame(authentication, authenticationCache.get("default@example.com", "oldPassword"));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+            // Then
+            assertNull(authenticationCache.get("default@example.com", "oldPassword"));
+            // A login that loaded the old password before the commit and stores it afterwards is discarded too
+            authenticationCache.put("default@example.com", "oldPassword", authentication, generation);
+            assertNull(authenticationCache.get("default@example.com", "oldPassword"));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testDisabledCacheNeverHits() {
+        // Given
+        AuthenticationCache disabled = new AuthenticationCache(false, 100, Duration.ofMinutes(1));
+        disabled.put("default@example.com", "defaultPassword", authentication, disabled.currentGeneration());
+
+        // When & Then
+        assertNull(disabled.get("default@example.com", "defaultPassword"));
+    }
+}
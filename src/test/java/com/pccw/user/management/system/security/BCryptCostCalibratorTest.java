@@ -0,0 +1,40 @@
+package com.pccw.user.management.system.security;
+
+import com.pccw.usermanagementsystem.security.BCryptCostCalibrator;
+import com.pccw.usermanagementsystem.security.BCryptCostCalibrator.Calibration;
+import com.pccw.usermanagementsystem.security.BCryptCostCalibrator.Measurement;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BCryptCostCalibratorTest {
+
+    @Test
+    void testRecommendsHighestCostWithinBudget() {
+        // Given
+        List<Measurement> measurements = List.of(
+                new Measurement(10, Duration.ofMillis(60)),
+                new Measurement(11, Duration.ofMillis(120)),
+                new Measurement(12, Duration.ofMillis(240)),
+                new Measurement(13, Duration.ofMillis(480)));
+
+        // When & Then
+        assertEquals(12, BCryptCostCalibrator.recommend(measurements, Duration.ofMillis(250)));
+        assertEquals(11, BCryptCostCalibrator.recommend(measurements, Duration.ofMillis(120)));
+        assertEquals(BCryptCostCalibrator.MIN_STRENGTH, BCryptCostCalibrator.recommend(measurements, Duration.ofMillis(10)));
+    }
+
+    @Test
+    void testCalibrationStopsAtFirstCostOverBudget() {
+        // When
+        Calibration calibration = BCryptCostCalibrator.calibrate(Duration.ofNanos(1), 1);
+
+        // Then
+        assertEquals(1, calibration.measurements().size());
+        assertEquals(BCryptCostCalibrator.MIN_STRENGTH, calibration.measurements().get(0).strength());
+        assertEquals(BCryptCostCalibrator.MIN_STRENGTH, calibration.recommendedStrength());
+    }
+}
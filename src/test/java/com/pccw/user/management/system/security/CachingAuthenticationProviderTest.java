@@ -0,0 +1,55 @@
+package com.pccw.user.management.system.security;
+
+import com.pccw.usermanagementsystem.exception.HashingCapacityExceededException;
+import com.pccw.usermanagementsystem.security.AuthenticationCache;
+import com.pccw.usermanagementsystem.security.CachingAuthenticationProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class CachingAuthenticationProviderTest {
+
+    private AuthenticationProvider delegate;
+    private CachingAuthenticationProvider cachingAuthenticationProvider;
+
+    private final Authentication login =
+            UsernamePasswordAuthenticationToken.unauthenticated("ghost@example.com", "defaultPassword");
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(AuthenticationProvider.class);
+        cachingAuthenticationProvider = new CachingAuthenticationProvider(delegate,
+                new AuthenticationCache(true, 100, Duration.ofMinutes(1)));
+    }
+
+    @Test
+    void testShedPasswordCheckIsNotTurnedIntoAuthenticationFailure() {
+        // Given
+        HashingCapacityExceededException overloaded = new HashingCapacityExceededException("Password hashing did not start in time");
+        when(delegate.authenticate(any())).thenThrow(new InternalAuthenticationServiceException(overloaded.getMessage(), overloaded));
+
+        // When & Then
+        assertSame(overloaded, assertThrows(HashingCapacityExceededException.class,
+                () -> cachingAuthenticationProvider.authenticate(login)));
+    }
+
+    @Test
+    void testOtherInternalFailuresArePassedOn() {
+        // Given
+        InternalAuthenticationServiceException failure = new InternalAuthenticationServiceException("Lookup failed");
+        when(delegate.authenticate(any())).thenThrow(failure);
+
+        // When & Then
+        assertSame(failure, assertThrows(InternalAuthenticationServiceException.class,
+                () -> cachingAuthenticationProvider.authenticate(login)));
+    }
+}
@@ -0,0 +1,55 @@
+package com.pccw.user.management.system.security;
+
+import com.pccw.usermanagementsystem.datasource.ReadRouting;
+import com.pccw.usermanagementsystem.datasource.ReplicaProperties;
+import com.pccw.usermanagementsystem.repository.UserRepository;
+import com.pccw.usermanagementsystem.security.CustomUserDetailsService;
+import com.pccw.usermanagementsystem.service.UserCache;
+import com.pccw.usermanagementsystem.service.UserLookupCoalescer;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.security.core.userdetails.User.withUsername;
+
+class CustomUserDetailsServiceTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserCache userCache = mock(UserCache.class);
+    private final ReadRouting readRouting = new ReadRouting(new ReplicaProperties());
+    private final CustomUserDetailsService customUserDetailsService =
+            new CustomUserDetailsService(userRepository, readRouting, userCache, new UserLookupCoalescer(userRepository, readRouting, true));
+
+    private final UserDetails user = withUsername("default@example.com").password("$2a$04$old").roles("USER").build();
+
+    @Test
+    void testUpdatePasswordStoresUpgradedHash() {
+        // Given
+        when(userRepository.updatePasswordHash("default@example.com", "$2a$04$old", "{bcrypt}$2a$10$new")).thenReturn(1);
+
+        // When
+        UserDetails upgraded = customUserDetailsService.updatePassword(user, "{bcrypt}$2a$10$new");
+
+        // Then
+        assertEquals("{bcrypt}$2a$10$new", upgraded.getPassword());
+        assertEquals(user.getAuthorities(), upgraded.getAuthorities());
+        verify(userCache, times(1)).invalidateAll(List.of(), List.of("default@example.com"));
+        assertTrue(readRouting.read(null, "default@example.com", readRouting::isPrimaryRequired));
+    }
+
+    @Test
+    void testUpdatePasswordKeepsConcurrentPasswordChange() {
+        // Given
+        when(userRepository.updatePasswordHash(anyString(), anyString(), anyString())).thenReturn(0);
+
+        // When
+        UserDetails result = customUserDetailsService.updatePassword(user, "{bcrypt}$2a$10$new");
+
+        // Then
+        assertSame(user, result);
+        verifyNoInteractions(userCache);
+    }
+}
@@ -0,0 +1,41 @@
+package com.pccw.user.management.system.security;
+
+import com.pccw.usermanagementsystem.security.TimedPasswordEncoder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TimedPasswordEncoderTest {
+
+    private final PasswordEncoder delegate = mock(PasswordEncoder.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TimedPasswordEncoder passwordEncoder = new TimedPasswordEncoder(delegate, meterRegistry);
+
+    @Test
+    void testEncodeIsDelegatedAndTimed() {
+        // Given
+        when(delegate.encode("defaultPassword")).thenReturn("encoded");
+
+        // When
+        String encoded = passwordEncoder.encode("defaultPassword");
+
+        // Then
+        assertEquals("encoded", encoded);
+        assertEquals(1, meterRegistry.get("user.password.encode").timer().count());
+        assertEquals(0, meterRegistry.get("user.password.matches").timer().count());
+    }
+
+    @Test
+    void testMatchesIsDelegatedAndTimed() {
+        // Given
+        when(delegate.matches("defaultPassword", "encoded")).thenReturn(true);
+
+        // When & Then
+        assertTrue(passwordEncoder.matches("defaultPassword", "encoded"));
+        assertFalse(passwordEncoder.matches("wrongPassword", "encoded"));
+        assertEquals(2, meterRegistry.get("user.password.matches").timer().count());
+    }
+}
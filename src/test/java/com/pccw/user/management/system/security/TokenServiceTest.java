@@ -0,0 +1,180 @@
+package com.pccw.user.management.system.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pccw.user.management.system.fixtures.UserFixture;
+import com.pccw.usermanagementsystem.datasource.ReadRouting;
+import com.pccw.usermanagementsystem.datasource.ReplicaProperties;
+import com.pccw.usermanagementsystem.dto.TokenResponseDTO;
+import com.pccw.usermanagementsystem.entity.User;
+import com.pccw.usermanagementsystem.exception.InvalidTokenException;
+import com.pccw.usermanagementsystem.repository.UserRepository;
+import com.pccw.usermanagementsystem.security.TokenRevocationList;
+import com.pccw.usermanagementsystem.security.TokenService;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TokenServiceTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final ReadRouting readRouting = new ReadRouting(new ReplicaProperties());
+    private final TokenRevocationList tokenRevocationList = new TokenRevocationList(Duration.ofMinutes(15));
+    private final TokenService tokenService = tokenService(Duration.ofMinutes(15));
+
+    private TokenService tokenService(Duration accessTokenTtl) {
+        return new TokenService(new ObjectMapper(), userRepository, readRouting, tokenRevocationList, "",
+                accessTokenTtl, Duration.ofDays(7));
+    }
+
+    @Test
+    void testAccessTokenAuthenticatesUser() {
+        // Given
+        User user = UserFixture.getInstance().getAdminUser();
+        TokenResponseDTO tokens = tokenService.issueTokens(user);
+
+        // When
+        Authentication authentication = tokenService.authenticate(tokens.getAccessToken());
+
+        // Then
+        assertTrue(authentication.isAuthenticated());
+        assertEquals("admin@example.com", authentication.getName());
+        assertEquals("ROLE_ADMIN", authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).findFirst().orElseThrow());
+        assertEquals(900, tokens.getExpiresIn());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void testTamperedTokenIsRejected() {
+        // Given
+        String accessToken = tokenService.issueTokens(UserFixture.getInstance().getDefaultUser()).getAccessToken();
+        String forged = tokenService.issueTokens(UserFixture.getInstance().getAdminUser()).getAccessToken().split("\\.")[0]
+                + accessToken.substring(accessToken.indexOf('.'));
+
+        // When & Then
+        assertThrows(InvalidTokenException.class, () -> tokenService.authenticate(forged));
+        assertThrows(InvalidTokenException.class, () -> tokenService.authenticate("not-a-token"));
+    }
+
+    @Test
+    void testTokenFromAnotherKeyIsRejected() {
+        // Given
+        String accessToken = tokenService(Duration.ofMinutes(15)).issueTokens(UserFixture.getInstance().getDefaultUser()).getAccessToken();
+
+        // When & Then
+        assertThrows(InvalidTokenException.class, () -> tokenService.authenticate(accessToken));
+    }
+
+    @Test
+    void testExpiredTokenIsRejected() {
+        // Given
+        TokenService shortLived = tokenService(Duration.ZERO);
+        String accessToken = shortLived.issueTokens(UserFixture.getInstance().getDefaultUser()).getAccessToken();
+
+        // When & Then
+        assertThrows(InvalidTokenException.class, () -> shortLived.authenticate(accessToken));
+    }
+
+    @Test
+    void testRevokedTokenIsRejected() {
+        // Given
+        User user = UserFixture.getInstance().getDefaultUser();
+        String accessToken = tokenService.issueTokens(user).getAccessToken();
+
+        // When
+        tokenRevocationList.revoke(user.getId());
+
+        // Then
+        InvalidTokenException exception = assertThrows(InvalidTokenException.class, () -> tokenService.authenticate(accessToken));
+        assertEquals("Token has been revoked", exception.getMessage());
+    }
+
+    @Test
+    void testRefreshTokenCannotBeUsedAsAccessToken() {
+        // Given
+        String refreshToken = tokenService.issueTokens(UserFixture.getInstance().getDefaultUser()).getRefreshToken();
+
+        // When & Then
+        assertThrows(InvalidTokenException.class, () -> tokenService.authenticate(refreshToken));
+    }
+
+    @Test
+    void testRefreshIssuesNewTokensForActiveUser() {
+        // Given
+        User user = UserFixture.getInstance().getDefaultUser();
+        String refreshToken = tokenService.issueTokens(user).getRefreshToken();
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+
+        // When
+        TokenResponseDTO refreshed = tokenService.refresh(refreshToken);
+
+        // Then
+        assertEquals("default@example.com", tokenService.authenticate(refreshed.getAccessToken()).getName());
+    }
+
+    @Test
+    void testRefreshReadsUserFromPrimary() {
+        // Given
+        User user = UserFixture.getInstance().getDefaultUser();
+        String refreshToken = tokenService.issueTokens(user).getRefreshToken();
+        List<Boolean> primaryRequired = new ArrayList<>();
+        when(userRepository.findById(user.getId())).thenAnswer(invocation -> {
+            primaryRequired.add(readRouting.isPrimaryRequired());
+            return Optional.of(user);
+        });
+
+        // When
+        tokenService.refresh(refreshToken);
+
+        // Then
+        assertEquals(List.of(true), primaryRequired);
+    }
+
+    @Test
+    void testRefreshIsRejectedAfterPasswordChange() {
+        // Given
+        User user = UserFixture.getInstance().getDefaultUser();
+        String refreshToken = tokenService.issueTokens(user).getRefreshToken();
+        User changed = new User(user.getId(), user.getUsername(), user.getPassword(), user.getRole(), true);
+        changed.changePassword("newEncodedPassword");
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(changed));
+
+        // When & Then
+        assertThrows(InvalidTokenException.class, () -> tokenService.refresh(refreshToken));
+    }
+
+    @Test
+    void testRefreshSurvivesRehashOfUnchangedPassword() {
+        // Given
+        User user = UserFixture.getInstance().getDefaultUser();
+        String refreshToken = tokenService.issueTokens(user).getRefreshToken();
+        // What a hash upgrade on login on another device leaves behind: new hash, same credentials epoch
+        User rehashed = new User(user.getId(), user.getUsername(), "{bcrypt}upgradedHash", user.getRole(), true);
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(rehashed));
+
+        // When
+        TokenResponseDTO refreshed = tokenService.refresh(refreshToken);
+
+        // Then
+        assertEquals("default@example.com", tokenService.authenticate(refreshed.getAccessToken()).getName());
+    }
+
+    @Test
+    void testRefreshIsRejectedForSoftDeletedUser() {
+        // Given
+        User user = UserFixture.getInstance().getDefaultUser();
+        String refreshToken = tokenService.issueTokens(user).getRefreshToken();
+        User disabled = new User(user.getId(), user.getUsername(), user.getPassword(), user.getRole(), false);
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(disabled));
+
+        // When & Then
+        assertThrows(InvalidTokenException.class, () -> tokenService.refresh(refreshToken));
+    }
+}
@@ -0,0 +1,237 @@
+package com.pccw.user.management.system.service;
+
+import com.pccw.usermanagementsystem.exception.HashingCapacityExceededException;
+import com.pccw.usermanagementsystem.service.PasswordHashingService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class PasswordHashingServiceTest {
+
+    private final PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+
+    private PasswordHashingService passwordHashingService;
+
+    @AfterEach
+    void tearDown() {
+        passwordHashingService.shutdown();
+    }
+
+    @Test
+    void testEncodeAllPreservesOrder() {
+        // Given
+        passwordHashingService = new PasswordHashingService(passwordEncoder, 4, 32, Duration.ofSeconds(2));
+        when(passwordEncoder.encode(anyString())).thenAnswer(invocation -> "encoded-" + invocation.getArgument(0));
+        List<String> rawPasswords = IntStream.range(0, 50).mapToObj(i -> "password" + i).toList();
+
+        // When
+        List<String> encoded;
+        try (PasswordHashingService.HashingBatch hashing = passwordHashingService.encodeAll(rawPasswords)) {
+            encoded = hashing.join();
+        }
+
+        // Then
+        assertEquals(50, encoded.size());
+        IntStream.range(0, 50).forEach(i -> assertEquals("encoded-password" + i, encoded.get(i)));
+    }
+
+    @Test
+    void testClosingBatchCancelsPendingHashes() throws Exception {
+        // Given
+        passwordHashingService = new PasswordHashingService(passwordEncoder, 1, 32, Duration.ofSeconds(2));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger encodeCalls = new AtomicInteger();
+        when(passwordEncoder.encode(anyString())).thenAnswer(invocation -> {
+            encodeCalls.incrementAndGet();
+            started.countDown();
+            release.await();
+            return "encoded";
+        });
+
+        // When
+        PasswordHashingService.HashingBatch hashing = passwordHashingService.encodeAll(List.of("password1", "password2", "password3"));
+        started.await();
+        hashing.close();
+        release.countDown();
+
+        // Then
+        // only the hash already running completes; the queued ones never start
+        try (PasswordHashingService.HashingBatch next = passwordHashingService.encodeAll(List.of("password4"))) {
+            next.join();
+        }
+        assertEquals(2, encodeCalls.get());
+    }
+
+    // Holds the only hashing thread, and one permit, with a batch hash until released
+    private void blockHashingThread(CountDownLatch release) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return "encoded-blocker";
+        }).when(passwordEncoder).encode("blocker");
+        passwordHashingService.encodeAll(List.of("blocker"));
+        started.await();
+    }
+
+    @Test
+    void testSingleHashIsRejectedWhenQueueIsFull() throws Exception {
+        // Given
+        passwordHashingService = new PasswordHashingService(passwordEncoder, 1, 1, Duration.ofSeconds(5));
+        when(passwordEncoder.encode("queued")).thenReturn("encoded-queued");
+        CountDownLatch release = new CountDownLatch(1);
+        blockHashingThread(release);
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> passwordHashingService.encode("queued"));
+        while (passwordHashingService.getQueueDepth() == 0) {
+            Thread.onSpinWait();
+        }
+
+        // When & Then
+        assertThrows(HashingCapacityExceededException.class, () -> passwordHashingService.encode("rejected"));
+        assertEquals(1, passwordHashingService.getRejectedFullCount());
+
+        release.countDown();
+        assertEquals("encoded-queued", queued.get());
+        verify(passwordEncoder, never()).encode("rejected");
+    }
+
+    @Test
+    void testSingleHashIsRejectedAfterDeadline() throws Exception {
+        // Given
+        passwordHashingService = new PasswordHashingService(passwordEncoder, 1, 4, Duration.ofMillis(100));
+        CountDownLatch release = new CountDownLatch(1);
+        blockHashingThread(release);
+
+        // When & Then
+        assertThrows(HashingCapacityExceededException.class, () -> passwordHashingService.matches("late", "encoded"));
+        assertEquals(1, passwordHashingService.getRejectedDeadlineCount());
+        assertEquals(0, passwordHashingService.getQueueDepth());
+
+        // The expired check gave its place back
+        release.countDown();
+        when(passwordEncoder.matches("onTime", "encoded")).thenReturn(true);
+        assertTrue(passwordHashingService.matches("onTime", "encoded"));
+        verify(passwordEncoder, never()).matches(eq("late"), anyString());
+    }
+
+    @Test
+    void testSingleHashesRunBeforeQueuedBatch() throws Exception {
+        // Given
+        passwordHashingService = new PasswordHashingService(passwordEncoder, 1, 32, Duration.ofSeconds(5));
+        List<String> order = new ArrayList<>();
+        when(passwordEncoder.encode(anyString())).thenAnswer(invocation -> {
+            synchronized (order) {
+                order.add(invocation.getArgument(0));
+            }
+            return "encoded";
+        });
+        CountDownLatch release = new CountDownLatch(1);
+        blockHashingThread(release);
+
+        // When
+        try (PasswordHashingService.HashingBatch batch = passwordHashingService.encodeAll(List.of("batch1", "batch2"))) {
+            CompletableFuture<String> single = CompletableFuture.supplyAsync(() -> passwordHashingService.encode("single"));
+            // The batch hashes through a single permit, so only its first password is queued
+            while (passwordHashingService.getQueueDepth() < 2) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+            single.get();
+            batch.join();
+        }
+
+        // Then
+        assertEquals(List.of("single", "batch1", "batch2"), order);
+    }
+
+    @Test
+    void testBatchIsRejectedWhenNoPermitFreesUpInTime() throws Exception {
+        // Given
+        passwordHashingService = new PasswordHashingService(passwordEncoder, 1, 0, Duration.ofMillis(100));
+        CountDownLatch release = new CountDownLatch(1);
+        blockHashingThread(release);
+
+        // When & Then
+        assertThrows(HashingCapacityExceededException.class, () -> passwordHashingService.encodeAll(List.of("late1", "late2")));
+        assertEquals(1, passwordHashingService.getRejectedDeadlineCount());
+        assertEquals(0, passwordHashingService.getQueueDepth());
+
+        release.countDown();
+        verify(passwordEncoder, never()).encode("late1");
+    }
+
+    @Test
+    void testLargeBatchLeavesQueueToSingleHashes() throws Exception {
+        // Given
+        passwordHashingService = new PasswordHashingService(passwordEncoder, 1, 1, Duration.ofSeconds(5));
+        List<String> order = new ArrayList<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(passwordEncoder.encode(anyString())).thenAnswer(invocation -> {
+            String rawPassword = invocation.getArgument(0);
+            if (rawPassword.equals("batch0")) {
+                started.countDown();
+                release.await();
+            }
+            synchronized (order) {
+                order.add(rawPassword);
+            }
+            return "encoded-" + rawPassword;
+        });
+        List<String> batchPasswords = IntStream.range(0, 10).mapToObj(i -> "batch" + i).toList();
+
+        // When
+        List<String> encoded;
+        try (PasswordHashingService.HashingBatch batch = passwordHashingService.encodeAll(batchPasswords)) {
+            started.await();
+            // Two permits in all: the batch holds one for its running hash, the single hash gets the other
+            CompletableFuture<String> single = CompletableFuture.supplyAsync(() -> passwordHashingService.encode("single"));
+            while (passwordHashingService.getQueueDepth() == 0) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+            assertEquals("encoded-single", single.get());
+            encoded = batch.join();
+        }
+
+        // Then
+        assertEquals(0, passwordHashingService.getRejectedFullCount());
+        assertEquals(batchPasswords.stream().map(rawPassword -> "encoded-" + rawPassword).toList(), encoded);
+        assertEquals(List.of("batch0", "single"), order.subList(0, 2));
+    }
+
+    @Test
+    void testUpgradeIsSkippedWhileHashesAreQueued() throws Exception {
+        // Given
+        passwordHashingService = new PasswordHashingService(passwordEncoder, 1, 4, Duration.ofSeconds(5));
+        when(passwordEncoder.upgradeEncoding("$2a$04$old")).thenReturn(true);
+        when(passwordEncoder.encode("queued")).thenReturn("encoded-queued");
+        CountDownLatch release = new CountDownLatch(1);
+        blockHashingThread(release);
+        // A busy thread alone does not stop the upgrade; it starts right after the running hash
+        assertTrue(passwordHashingService.upgradeEncoding("$2a$04$old"));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> passwordHashingService.encode("queued"));
+        while (passwordHashingService.getQueueDepth() == 0) {
+            Thread.onSpinWait();
+        }
+
+        // When & Then
+        assertFalse(passwordHashingService.upgradeEncoding("$2a$04$old"));
+
+        release.countDown();
+        assertEquals("encoded-queued", queued.get());
+    }
+}
@@ -0,0 +1,107 @@
+package com.pccw.user.management.system.service;
+
+import com.pccw.usermanagementsystem.service.SingleFlight;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+    private final ExecutorService callers = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+    }
+
+    // Submits callers until all but the first are waiting on its load
+    private List<Future<String>> concurrentLoads(int count, CountDownLatch release, AtomicInteger loads, String result) throws InterruptedException {
+        List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            futures.add(callers.submit(() -> singleFlight.load("key", () -> {
+                loads.incrementAndGet();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                if (result == null) {
+                    throw new IllegalStateException("query failed");
+                }
+                return result;
+            })));
+        }
+        while (singleFlight.getLoadCount() + singleFlight.getCoalescedCount() < count) {
+            Thread.sleep(1);
+        }
+        return futures;
+    }
+
+    @Test
+    void testConcurrentLoadsShareOneResult() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        List<Future<String>> futures = concurrentLoads(8, release, loads, "value");
+
+        // When
+        release.countDown();
+
+        // Then
+        for (Future<String> future : futures) {
+            assertEquals("value", future.get());
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1, singleFlight.getLoadCount());
+        assertEquals(7, singleFlight.getCoalescedCount());
+    }
+
+    @Test
+    void testFailureIsSharedAndNotKept() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        List<Future<String>> futures = concurrentLoads(4, release, loads, null);
+
+        // When
+        release.countDown();
+
+        // Then
+        for (Future<String> future : futures) {
+            ExecutionException failure = assertThrows(ExecutionException.class, future::get);
+            assertEquals("query failed", failure.getCause().getMessage());
+        }
+        assertEquals(1, loads.get());
+        assertEquals("retried", singleFlight.load("key", () -> "retried"));
+    }
+
+    @Test
+    void testForgottenLoadIsNotJoined() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        Future<String> before = concurrentLoads(1, release, loads, "old").get(0);
+
+        // When
+        singleFlight.forget("key");
+        String after = singleFlight.load("key", () -> "new");
+        release.countDown();
+
+        // Then
+        assertEquals("new", after);
+        assertEquals("old", before.get());
+        assertEquals(2, singleFlight.getLoadCount());
+        assertEquals(0, singleFlight.getCoalescedCount());
+    }
+}
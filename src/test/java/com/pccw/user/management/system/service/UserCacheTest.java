@@ -0,0 +1,147 @@
+package com.pccw.user.management.system.service;
+
+import com.pccw.user.management.system.fixtures.UserFixture;
+import com.pccw.user.management.system.fixtures.UserResponseDTOFixture;
+import com.pccw.usermanagementsystem.dto.UserResponseDTO;
+import com.pccw.usermanagementsystem.entity.User;
+import com.pccw.usermanagementsystem.service.UserCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserCacheTest {
+
+    private final UserCache userCache = new UserCache(true, 100, Duration.ofMinutes(5));
+    private final User user = UserFixture.getInstance().getDefaultUser();
+    private final UserResponseDTO response = UserResponseDTOFixture.getInstance().getDefaultUserResponseDTO();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private <T> Supplier<Optional<T>> loader(T loaded) {
+        return () -> {
+            loads.incrementAndGet();
+            return Optional.ofNullable(loaded);
+        };
+    }
+
+    @Test
+    void testSecondLookupIsServedFromCache() {
+        // When
+        userCache.getById(user.getId(), loader(response));
+        Optional<UserResponseDTO> cached = userCache.getById(user.getId(), loader(response));
+
+        // Then
+        assertEquals(1, loads.get());
+        assertEquals("default@example.com", cached.orElseThrow().getUsername());
+    }
+
+    @Test
+    void testLookupByUsernameAlsoPopulatesLookupById() {
+        // When
+        userCache.getByUsername(user.getUsername(), loader(user));
+        userCache.getById(user.getId(), loader(response));
+
+        // Then
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testLookupByIdDoesNotHoldPasswords() {
+        // Given
+        userCache.getByUsername(user.getUsername(), loader(user));
+
+        // When
+        Optional<UserResponseDTO> cached = userCache.getById(user.getId(), loader(response));
+
+        // Then
+        assertEquals(1, loads.get());
+        assertEquals(new UserResponseDTO(user.getId(), user.getUsername(), "user", true), cached.orElseThrow());
+    }
+
+    @Test
+    void testHitsReturnDetachedCopies() {
+        // Given
+        userCache.getById(user.getId(), loader(response));
+
+        // When
+        userCache.getById(user.getId(), loader(response)).orElseThrow().setEnabled(false);
+
+        // Then
+        assertTrue(userCache.getById(user.getId(), loader(response)).orElseThrow().getEnabled());
+    }
+
+    @Test
+    void testMissingUserIsNotCached() {
+        // When
+        userCache.getById(99L, loader((UserResponseDTO) null));
+        userCache.getById(99L, loader((UserResponseDTO) null));
+
+        // Then
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testInvalidateDropsBothEntries() {
+        // Given
+        userCache.getByUsername(user.getUsername(), loader(user));
+
+        // When
+        userCache.invalidateAll(List.of(user.getId()), List.of(user.getUsername()));
+        userCache.getById(user.getId(), loader(response));
+        userCache.getByUsername(user.getUsername(), loader(user));
+
+        // Then
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void testLoadRacingWithInvalidationIsNotCached() {
+        // Given
+        Supplier<Optional<UserResponseDTO>> racingLoader = () -> {
+            loads.incrementAndGet();
+            userCache.invalidate(user.getId(), user.getUsername());
+            return Optional.of(response);
+        };
+
+        // When
+        userCache.getById(user.getId(), racingLoader);
+        userCache.getById(user.getId(), loader(response));
+
+        // Then
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testDisabledCacheAlwaysLoads() {
+        // Given
+        UserCache disabled = new UserCache(false, 100, Duration.ofMinutes(5));
+
+        // When
+        disabled.getById(user.getId(), loader(response));
+        disabled.getById(user.getId(), loader(response));
+
+        // Then
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testStatisticsAreExported() {
+        // Given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        userCache.bindMetrics(registry);
+
+        // When
+        userCache.getById(user.getId(), loader(response));
+        userCache.getById(user.getId(), loader(response));
+
+        // Then
+        assertEquals(1, registry.get("cache.gets").tag("cache", "users.by-id").tag("result", "hit").functionCounter().count());
+        assertEquals(1, registry.get("cache.gets").tag("cache", "users.by-id").tag("result", "miss").functionCounter().count());
+    }
+}
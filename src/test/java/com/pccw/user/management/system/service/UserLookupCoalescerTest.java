@@ -0,0 +1,113 @@
+package com.pccw.user.management.system.service;
+
+import com.pccw.usermanagementsystem.datasource.ReadRouting;
+import com.pccw.usermanagementsystem.datasource.ReplicaProperties;
+import com.pccw.usermanagementsystem.dto.UserResponseDTO;
+import com.pccw.usermanagementsystem.entity.enums.Role;
+import com.pccw.usermanagementsystem.repository.UserRepository;
+import com.pccw.usermanagementsystem.service.UserLookupCoalescer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UserLookupCoalescerTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final ReadRouting readRouting = new ReadRouting(new ReplicaProperties());
+    private final UserLookupCoalescer userLookupCoalescer = new UserLookupCoalescer(userRepository, readRouting, true);
+
+    private final UserResponseDTO user = new UserResponseDTO(1L, "default@example.com", Role.USER, true);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger queries = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        when(userRepository.findResponseById(1L)).thenAnswer(invocation -> {
+            queries.incrementAndGet();
+            release.await();
+            return Optional.of(user);
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+    }
+
+    // Starts a lookup of user 1 that blocks in the query until released
+    private CompletableFuture<Optional<UserResponseDTO>> runningLookup() throws InterruptedException {
+        int before = queries.get();
+        CompletableFuture<Optional<UserResponseDTO>> lookup = CompletableFuture.supplyAsync(() -> userLookupCoalescer.findResponseById(1L));
+        while (queries.get() == before) {
+            Thread.sleep(1);
+        }
+        return lookup;
+    }
+
+    @Test
+    void testConcurrentLookupsOfSameIdShareOneQuery() throws Exception {
+        // Given
+        CompletableFuture<Optional<UserResponseDTO>> first = runningLookup();
+        CompletableFuture<Optional<UserResponseDTO>> second = CompletableFuture.supplyAsync(() -> userLookupCoalescer.findResponseById(1L));
+        Thread.sleep(50);
+
+        // When
+        release.countDown();
+
+        // Then
+        assertSame(first.get().orElseThrow(), second.get().orElseThrow());
+        verify(userRepository, times(1)).findResponseById(1L);
+    }
+
+    @Test
+    void testLookupInsideReadWriteTransactionIsNotShared() throws Exception {
+        // Given
+        CompletableFuture<Optional<UserResponseDTO>> running = runningLookup();
+
+        // When
+        CompletableFuture<Optional<UserResponseDTO>> inTransaction = CompletableFuture.supplyAsync(() -> {
+            TransactionSynchronizationManager.setActualTransactionActive(true);
+            try {
+                return userLookupCoalescer.findResponseById(1L);
+            } finally {
+                TransactionSynchronizationManager.setActualTransactionActive(false);
+            }
+        });
+        while (queries.get() < 2) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        // Then
+        assertEquals(Optional.of(user), inTransaction.get());
+        assertEquals(Optional.of(user), running.get());
+        verify(userRepository, times(2)).findResponseById(1L);
+    }
+
+    @Test
+    void testPrimaryLookupDoesNotJoinReplicaLookup() throws Exception {
+        // Given
+        CompletableFuture<Optional<UserResponseDTO>> onReplica = runningLookup();
+
+        // When
+        CompletableFuture<Optional<UserResponseDTO>> onPrimary =
+                CompletableFuture.supplyAsync(() -> readRouting.onPrimary(() -> userLookupCoalescer.findResponseById(1L)));
+        while (queries.get() < 2) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        // Then
+        assertEquals(Optional.of(user), onPrimary.get());
+        assertEquals(Optional.of(user), onReplica.get());
+    }
+}
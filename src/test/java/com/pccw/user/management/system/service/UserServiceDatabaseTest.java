@@ -0,0 +1,114 @@
+package com.pccw.user.management.system.service;
+
+import com.pccw.usermanagementsystem.UserManagementSystemApplication;
+import com.pccw.usermanagementsystem.entity.User;
+import com.pccw.usermanagementsystem.entity.enums.Role;
+import com.pccw.usermanagementsystem.repository.UserRepository;
+import com.pccw.usermanagementsystem.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+// UserService against the real database, for the statements the repository mocks in UserServiceTest cannot check
+@SpringBootTest(classes = UserManagementSystemApplication.class, properties = {
+        "app.username-filter.enabled=false",
+        "app.user-cache.enabled=false",
+        "app.email.outbox.dispatcher.enabled=false",
+        "app.user-jobs.runner.enabled=false"})
+class UserServiceDatabaseTest {
+
+    private static final String PREFIX = "user-service-db-test-";
+
+    @Autowired
+    private UserService userService;
+
+    @SpyBean
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM email_outbox WHERE recipient LIKE ?", PREFIX + "%");
+        jdbcTemplate.update("DELETE FROM users WHERE username LIKE ?", PREFIX + "%");
+    }
+
+    @Test
+    void testRegisterUsersSkippingExistingStoresHashesOfInsertedRowsOnly() {
+        // Given
+        String existing = PREFIX + "existing@example.com";
+        String fresh = PREFIX + "fresh@example.com";
+        userService.registerUsersSkippingExisting(List.of(user(existing, "existingPassword")));
+        clearInvocations(passwordEncoder);
+
+        // When
+        List<User> created = userService.registerUsersSkippingExisting(List.of(user(existing, "otherPassword"), user(fresh, "freshPassword")));
+
+        // Then
+        assertEquals(List.of(fresh), created.stream().map(User::getUsername).toList());
+        verify(passwordEncoder, times(1)).encode(anyString());
+        assertTrue(passwordEncoder.matches("freshPassword", storedHash(fresh)));
+        assertTrue(passwordEncoder.matches("existingPassword", storedHash(existing)));
+    }
+
+    @Test
+    void testRetriedBatchIsNotHashedAgain() {
+        // Given
+        List<User> batch = List.of(user(PREFIX + "one@example.com", "defaultPassword"), user(PREFIX + "two@example.com", "defaultPassword"));
+        userService.registerUsersSkippingExisting(batch);
+        clearInvocations(passwordEncoder);
+
+        // When
+        List<User> created = userService.registerUsersSkippingExisting(List.of(
+                user(PREFIX + "one@example.com", "defaultPassword"), user(PREFIX + "two@example.com", "defaultPassword")));
+
+        // Then
+        assertTrue(created.isEmpty());
+        verify(passwordEncoder, never()).encode(anyString());
+    }
+
+    @Test
+    void testOnlyPasswordChangesBumpCredentialsEpoch() {
+        // Given
+        String username = PREFIX + "epoch@example.com";
+        User registered = userService.registerUser(user(username, "defaultPassword"));
+        String registeredHash = storedHash(username);
+
+        // When
+        userRepository.updatePasswordHash(username, registeredHash, "{bcrypt}upgradedHash");
+        long afterRehash = credentialsEpoch(username);
+        userService.patchUser(new User(registered.getId(), null, "changedPassword", null, null));
+
+        // Then
+        assertEquals(0, afterRehash);
+        assertEquals(1, credentialsEpoch(username));
+    }
+
+    private static User user(String username, String password) {
+        return new User(null, username, password, Role.USER, true);
+    }
+
+    private long credentialsEpoch(String username) {
+        return jdbcTemplate.queryForObject("SELECT credentials_epoch FROM users WHERE username = ?", Long.class, username);
+    }
+
+    private String storedHash(String username) {
+        return jdbcTemplate.queryForObject("SELECT password FROM users WHERE username = ?", String.class, username);
+    }
+}
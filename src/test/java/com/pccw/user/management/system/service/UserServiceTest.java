@@ -1,18 +1,35 @@
 package com.pccw.user.management.system.service;
 
 import com.pccw.user.management.system.fixtures.UserFixture;
+import com.pccw.user.management.system.fixtures.UserResponseDTOFixture;
+import com.pccw.usermanagementsystem.dto.UserResponseDTO;
+import com.pccw.usermanagementsystem.datasource.ReadRouting;
+import com.pccw.usermanagementsystem.datasource.ReplicaProperties;
 import com.pccw.usermanagementsystem.entity.User;
+import com.pccw.usermanagementsystem.exception.DuplicateUserIdException;
+import com.pccw.usermanagementsystem.exception.PreconditionFailedException;
 import com.pccw.usermanagementsystem.exception.UserAlreadyExistsException;
 import com.pccw.usermanagementsystem.exception.UserNotFoundException;
 import com.pccw.usermanagementsystem.repository.UserRepository;
+import com.pccw.usermanagementsystem.repository.projection.UserIdentity;
+import com.pccw.usermanagementsystem.security.AuthenticationCache;
+import com.pccw.usermanagementsystem.security.TokenRevocationList;
+import com.pccw.usermanagementsystem.service.PasswordHashingService;
+import com.pccw.usermanagementsystem.service.UserCache;
+import com.pccw.usermanagementsystem.service.UserLookupCoalescer;
 import com.pccw.usermanagementsystem.service.UserService;
-import com.pccw.usermanagementsystem.service.email.EmailService;
+import com.pccw.usermanagementsystem.service.UsernameFilter;
+import com.pccw.usermanagementsystem.service.email.EmailOutboxService;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -23,7 +40,9 @@ import java.util.stream.Stream;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
-@SpringBootTest(classes = UserService.class)
+// The read-through cache is covered by UserCacheTest; disabled here so every test sees its own repository stubs
+@SpringBootTest(classes = {UserService.class, PasswordHashingService.class, UserCache.class, UserLookupCoalescer.class, ReadRouting.class, ReplicaProperties.class},
+        properties = "app.user-cache.enabled=false")
 class UserServiceTest {
 
     @Autowired
@@ -36,16 +55,31 @@ class UserServiceTest {
     private PasswordEncoder passwordEncoder;
 
     @MockBean
-    private EmailService emailService;
+    private EmailOutboxService emailOutboxService;
+
+    @MockBean
+    private AuthenticationCache authenticationCache;
+
+    @MockBean
+    private TokenRevocationList tokenRevocationList;
+
+    @MockBean
+    private UsernameFilter usernameFilter;
+
+    @BeforeEach
+    void setUp() {
+        // Behave as if the filter cannot rule anything out, so every lookup reaches the repository stubs
+        when(usernameFilter.mightContain(anyString())).thenReturn(true);
+    }
 
     @Test
     void testRegisterUserSuccessfully() {
         // Given
         User user = UserFixture.getInstance().getDefaultUser();
 
-        when(userRepository.findByUsername(user.getUsername())).thenReturn(Optional.empty());
+        when(userRepository.existsByUsername(user.getUsername())).thenReturn(false);
         when(passwordEncoder.encode(anyString())).thenReturn(user.getPassword());
-        when(userRepository.save(any(User.class))).thenReturn(user);
+        when(userRepository.saveAndFlush(any(User.class))).thenReturn(user);
 
         // When
         User savedUser = userService.registerUser(user);
@@ -53,9 +87,29 @@ class UserServiceTest {
         // Then
         assertNotNull(savedUser);
         assertEquals(user.getPassword(), savedUser.getPassword());
-        verify(userRepository, times(1)).findByUsername(user.getUsername());
-        verify(userRepository, times(1)).save(user);
-        verify(emailService, times(1)).sendWelcomeEmail(eq(user.getUsername()), anyString(), anyString());
+        verify(userRepository, times(1)).existsByUsername(user.getUsername());
+        verify(userRepository, times(1)).saveAndFlush(user);
+        verify(usernameFilter, times(1)).put(user.getUsername());
+        verify(usernameFilter, times(1)).recordFalsePositive();
+        verify(emailOutboxService, times(1)).enqueue(eq(user.getUsername()), anyString(), anyString());
+    }
+
+    @Test
+    void testRegisterUserSkipsLookupWhenFilterRulesUsernameOut() {
+        // Given
+        User user = UserFixture.getInstance().getDefaultUser();
+
+        when(usernameFilter.mightContain(user.getUsername())).thenReturn(false);
+        when(passwordEncoder.encode(anyString())).thenReturn(user.getPassword());
+        when(userRepository.saveAndFlush(any(User.class))).thenReturn(user);
+
+        // When
+        userService.registerUser(user);
+
+        // Then
+        verify(userRepository, never()).existsByUsername(anyString());
+        verify(userRepository, times(1)).saveAndFlush(user);
+        verify(usernameFilter, times(1)).put(user.getUsername());
     }
 
     @Test
@@ -63,16 +117,47 @@ class UserServiceTest {
         // Given
         User user = UserFixture.getInstance().getDefaultUser();
 
-        when(userRepository.findByUsername(user.getUsername())).thenReturn(Optional.of(user));
+        when(userRepository.existsByUsername(user.getUsername())).thenReturn(true);
 
         // When & Then
         assertThrows(UserAlreadyExistsException.class, () -> userService.registerUser(user));
 
-        verify(userRepository, times(1)).findByUsername(user.getUsername());
+        verify(userRepository, times(1)).existsByUsername(user.getUsername());
 
-        verify(userRepository, never()).save(any(User.class));
+        verify(userRepository, never()).saveAndFlush(any(User.class));
+
+        verify(emailOutboxService, never()).enqueue(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void testRegisterUserRacingAnotherRegistration() {
+        // Given
+        User user = UserFixture.getInstance().getDefaultUser();
+
+        when(userRepository.existsByUsername(user.getUsername())).thenReturn(false);
+        when(passwordEncoder.encode(anyString())).thenReturn(user.getPassword());
+        when(userRepository.saveAndFlush(any(User.class))).thenThrow(new DataIntegrityViolationException("duplicate key",
+                new SQLException("duplicate key value violates unique constraint \"users_username_key\"", "23505")));
+
+        // When & Then
+        assertThrows(UserAlreadyExistsException.class, () -> userService.registerUser(user));
 
-        verify(emailService, never()).sendWelcomeEmail(anyString(), anyString(), anyString());
+        verify(usernameFilter, never()).put(anyString());
+        verify(emailOutboxService, never()).enqueue(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void testIsUsernameAvailable() {
+        // Given
+        when(usernameFilter.mightContain("new@example.com")).thenReturn(false);
+        when(userRepository.existsByUsername("taken@example.com")).thenReturn(true);
+
+        // When & Then
+        assertTrue(userService.isUsernameAvailable("new@example.com"));
+        assertFalse(userService.isUsernameAvailable("taken@example.com"));
+
+        verify(userRepository, never()).existsByUsername("new@example.com");
+        verify(usernameFilter, never()).recordFalsePositive();
     }
 
     @Test
@@ -91,6 +176,21 @@ class UserServiceTest {
         assertEquals(user.getUsername(), expected.get().getUsername());
     }
 
+    @Test
+    void testFindUsersAfter() {
+        // Given
+        List<UserResponseDTO> users = List.of(UserResponseDTOFixture.getInstance().getAdminUserResponseDTO());
+        when(userRepository.findResponsesByIdGreaterThan(1L, Limit.of(51))).thenReturn(users);
+
+        // When
+        List<UserResponseDTO> expected = userService.findUsersAfter(1L, 51);
+
+        // Then
+        assertEquals(users, expected);
+        verify(userRepository, times(1)).findResponsesByIdGreaterThan(1L, Limit.of(51));
+        verify(userRepository, never()).findById(anyLong());
+    }
+
     @Test
     void testUpdateUserSuccessfully() {
         // Given
@@ -112,10 +212,28 @@ class UserServiceTest {
         assertEquals(updatedUser.getEnabled(), result.getEnabled());
 
         verify(userRepository, times(1)).findById(user.getId());
+        verify(authenticationCache, times(1)).invalidate("default@example.com");
+        verify(tokenRevocationList, times(1)).revoke(user.getId());
 
         verify(userRepository, times(1)).save(updatedUser);
     }
 
+    @Test
+    void testUpdateUserWithStaleVersionIsRejected() {
+        // Given
+        User user = UserFixture.getInstance().getDefaultUser();
+        user.setVersion(4L);
+        User updatedUser = new User(user.getId(), "updatedUsername", "updatedPassword", user.getRole(), true, 3L, 0);
+
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+
+        // When & Then
+        assertThrows(PreconditionFailedException.class, () -> userService.updateUser(updatedUser));
+        verify(passwordEncoder, never()).encode(anyString());
+        verify(authenticationCache, never()).invalidate(anyString());
+        verify(userRepository, never()).save(any(User.class));
+    }
+
     @Test
     void testUpdateNonExistingUser() {
         // Given
@@ -126,6 +244,114 @@ class UserServiceTest {
         assertThrows(UserNotFoundException.class, () -> userService.updateUser(user));
     }
 
+    @Test
+    void testPatchUserOnlyTogglesEnabled() {
+        // Given
+        User user = UserFixture.getInstance().getDefaultUser();
+        User patch = new User(user.getId(), null, null, null, false);
+
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+
+        // When
+        User result = userService.patchUser(patch);
+
+        // Then
+        assertFalse(result.getEnabled());
+        assertEquals("default@example.com", result.getUsername());
+        assertEquals("defaultPassword", result.getPassword());
+
+        verify(passwordEncoder, never()).encode(anyString());
+        verify(authenticationCache, times(1)).invalidate("default@example.com");
+    }
+
+    @Test
+    void testPatchUserWithoutChangesLeavesUserUntouched() {
+        // Given
+        User user = UserFixture.getInstance().getDefaultUser();
+        User patch = new User(user.getId(), "default@example.com", null, user.getRole(), true);
+
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+
+        // When
+        userService.patchUser(patch);
+
+        // Then
+        verify(passwordEncoder, never()).encode(anyString());
+        verify(authenticationCache, never()).invalidate(anyString());
+        verify(tokenRevocationList, never()).revoke(anyLong());
+        verify(userRepository, never()).save(any(User.class));
+    }
+
+    @Test
+    void testPatchUserRehashesSuppliedPassword() {
+        // Given
+        User user = UserFixture.getInstance().getDefaultUser();
+        User patch = new User(user.getId(), null, "newPassword", null, null);
+
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(passwordEncoder.encode("newPassword")).thenReturn("encoded");
+
+        // When
+        User result = userService.patchUser(patch);
+
+        // Then
+        assertEquals("encoded", result.getPassword());
+        verify(passwordEncoder, times(1)).encode("newPassword");
+        verify(authenticationCache, times(1)).invalidate("default@example.com");
+    }
+
+    @Test
+    void testPatchNonExistingUser() {
+        // Given
+        when(userRepository.findById(1L)).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThrows(UserNotFoundException.class, () -> userService.patchUser(new User(1L, null, null, null, false)));
+    }
+
+    @Test
+    void testBulkPatchUsersOnlyHashesSuppliedPasswords() {
+        // Given
+        User user1 = UserFixture.getInstance().getDefaultUser();
+        User user2 = UserFixture.getInstance().getAdminUser();
+
+        List<User> patches = List.of(
+                new User(user1.getId(), null, "newPassword1", null, null),
+                new User(user2.getId(), null, null, null, true)
+        );
+
+        when(userRepository.findAllById(List.of(user1.getId(), user2.getId()))).thenReturn(List.of(user1, user2));
+        when(passwordEncoder.encode("newPassword1")).thenReturn("encoded");
+
+        // When
+        List<User> result = userService.patchUsers(patches);
+
+        // Then
+        assertEquals(List.of(user1, user2), result);
+        assertEquals("encoded", user1.getPassword());
+        assertEquals("adminPassword", user2.getPassword());
+
+        verify(passwordEncoder, times(1)).encode(anyString());
+        verify(authenticationCache, times(1)).invalidateAll(List.of("default@example.com"));
+    }
+
+    @Test
+    void testUnsuccessfulBulkPatchUsers() {
+        // Given
+        User user1 = UserFixture.getInstance().getDefaultUser();
+        List<User> patches = List.of(
+                new User(user1.getId(), null, null, null, false),
+                new User(2L, null, null, null, false)
+        );
+
+        when(userRepository.findAllById(List.of(user1.getId(), 2L))).thenReturn(List.of(user1));
+
+        // When & Then
+        assertThrows(UserNotFoundException.class, () -> userService.patchUsers(patches));
+        assertTrue(user1.getEnabled());
+        verify(authenticationCache, never()).invalidateAll(anyList());
+    }
+
     @Test
     void testSoftDeleteUserSuccessfully() {
         // Given
@@ -139,6 +365,8 @@ class UserServiceTest {
 
         // Then
         assertFalse(existingUser.getEnabled());
+        verify(authenticationCache, times(1)).invalidate(existingUser.getUsername());
+        verify(tokenRevocationList, times(1)).revoke(existingUser.getId());
         verify(userRepository, times(1)).save(existingUser);
     }
 
@@ -164,7 +392,7 @@ class UserServiceTest {
 
         when(userRepository.findByUsernameIn(usernames)).thenReturn(Collections.emptyList());
         when(passwordEncoder.encode(anyString())).thenReturn("encodedPassword");
-        when(userRepository.saveAll(anyList())).thenReturn(users);
+        when(userRepository.saveAllAndFlush(anyList())).thenReturn(users);
 
         // When
         List<User> expected = userService.registerUsers(users);
@@ -173,10 +401,31 @@ class UserServiceTest {
         assertNotNull(expected);
         assertEquals(2, expected.size());
         assertEquals(users, expected);
+        assertEquals("encodedPassword", expected.get(0).getPassword());
+        assertEquals("encodedPassword", expected.get(1).getPassword());
         verify(userRepository, times(1)).findByUsernameIn(usernames);
-        verify(userRepository, times(1)).saveAll(users);
-        verify(emailService, times(1)).sendWelcomeEmail(eq(user1.getUsername()), anyString(), anyString());
-        verify(emailService, times(1)).sendWelcomeEmail(eq(user2.getUsername()), anyString(), anyString());
+        verify(userRepository, times(1)).saveAllAndFlush(users);
+        verify(emailOutboxService, times(1)).enqueueAll(eq(usernames), anyString(), anyString());
+    }
+
+    @Test
+    void testBulkRegisterUsersConflictMissedByCheckIsReportedAsExisting() {
+        // Given
+        User user1 = UserFixture.getInstance().getDefaultUser();
+        User user2 = UserFixture.getInstance().getAdminUser();
+        List<User> users = Arrays.asList(user1, user2);
+
+        // Registered on another instance whose username the filter has not caught up with
+        when(usernameFilter.mightContain(anyString())).thenReturn(false);
+        when(passwordEncoder.encode(anyString())).thenReturn("encodedPassword");
+        when(userRepository.saveAllAndFlush(anyList())).thenThrow(new DataIntegrityViolationException("duplicate key",
+                new SQLException("duplicate key value violates unique constraint \"users_username_key\"", "23505")));
+
+        // When & Then
+        assertThrows(UserAlreadyExistsException.class, () -> userService.registerUsers(users));
+        verify(userRepository, never()).findByUsernameIn(anyList());
+        verify(usernameFilter, never()).put(anyString());
+        verify(emailOutboxService, never()).enqueueAll(anyList(), anyString(), anyString());
     }
 
     @Test
@@ -198,7 +447,59 @@ class UserServiceTest {
 
         // Verifications
         verify(userRepository, times(1)).findByUsernameIn(usernames);
-        verify(emailService, never()).sendWelcomeEmail(anyString(), anyString(), anyString());
+        verify(emailOutboxService, never()).enqueueAll(anyList(), anyString(), anyString());
+    }
+
+    @Test
+    void testRegisterUsersSkippingExistingReturnsOnlyInsertedUsers() {
+        // Given
+        User user1 = UserFixture.getInstance().getDefaultUser();
+        User user2 = UserFixture.getInstance().getAdminUser();
+        user1.setId(null);
+        user2.setId(null);
+
+        when(passwordEncoder.encode(anyString())).thenReturn("encodedPassword");
+        // Only the admin username was free; the default user already exists
+        when(userRepository.insertAllSkippingExisting(
+                eq(new String[]{user1.getUsername(), user2.getUsername()}),
+                any(),
+                eq(new String[]{"USER", "ADMIN"}),
+                eq(new Boolean[]{true, true})))
+                .thenReturn(List.of(userIdentity(new User(51L, user2.getUsername(), null, null, null))));
+
+        // When
+        List<User> created = userService.registerUsersSkippingExisting(List.of(user1, user2));
+
+        // Then
+        assertEquals(1, created.size());
+        assertEquals(51L, created.get(0).getId());
+        assertEquals(user2.getUsername(), created.get(0).getUsername());
+        assertEquals("encodedPassword", created.get(0).getPassword());
+        // A single INSERT ... ON CONFLICT, no existence check beforehand
+        verify(userRepository, never()).findByUsernameIn(anyList());
+        verify(userRepository, never()).saveAll(anyList());
+        // Only the inserted row is hashed, and its hash set in one UPDATE
+        verify(passwordEncoder, times(1)).encode(anyString());
+        verify(userRepository, times(1)).updatePasswordsById(new Long[]{51L}, new String[]{"encodedPassword"});
+        verify(emailOutboxService, times(1)).enqueueAll(eq(List.of(user2.getUsername())), anyString(), anyString());
+    }
+
+    @Test
+    void testRegisterUsersSkippingExistingWhenAllExist() {
+        // Given
+        User user = UserFixture.getInstance().getDefaultUser();
+        when(passwordEncoder.encode(anyString())).thenReturn("encodedPassword");
+        when(userRepository.insertAllSkippingExisting(any(), any(), any(), any())).thenReturn(Collections.emptyList());
+
+        // When
+        List<User> created = userService.registerUsersSkippingExisting(List.of(user));
+
+        // Then
+        assertTrue(created.isEmpty());
+        // A retry of an applied batch does no hashing at all
+        verify(passwordEncoder, never()).encode(anyString());
+        verify(userRepository, never()).updatePasswordsById(any(), any());
+        verify(emailOutboxService, never()).enqueueAll(anyList(), anyString(), anyString());
     }
 
 
@@ -250,6 +551,7 @@ class UserServiceTest {
         assertTrue(expectedUser2.getEnabled());
 
         //Verification
+        verify(authenticationCache, times(1)).invalidateAll(List.of("default@example.com", "admin@example.com"));
         verify(userRepository, times(1)).saveAll(updatedUsers);
     }
 
@@ -282,6 +584,48 @@ class UserServiceTest {
         verify(userRepository, never()).saveAll(anyList());
     }
 
+    @Test
+    void testBulkUpdateUsersReportsAllMissingIds() {
+        // Given
+        User user1 = UserFixture.getInstance().getDefaultUser();
+        User user2 = UserFixture.getInstance().getAdminUser();
+
+        List<User> updatedUsers = Arrays.asList(
+                new User(user1.getId(), "updatedUser1@example.com", "newPassword1", user1.getRole(), true),
+                new User(user2.getId(), "updatedUser2@example.com", "newPassword2", user2.getRole(), true),
+                new User(99L, "updatedUser3@example.com", "newPassword3", user2.getRole(), true)
+        );
+
+        when(userRepository.findAllById(List.of(user1.getId(), user2.getId(), 99L))).thenReturn(List.of(user1));
+
+        // When
+        UserNotFoundException exception = assertThrows(UserNotFoundException.class, () -> userService.updateUsers(updatedUsers));
+
+        // Then
+        assertEquals("Users not found with ids [" + user2.getId() + ", 99]", exception.getMessage());
+        verify(userRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void testBulkUpdateUsersWithDuplicateIds() {
+        // Given
+        User user1 = UserFixture.getInstance().getDefaultUser();
+
+        List<User> updatedUsers = Arrays.asList(
+                new User(user1.getId(), "updatedUser1@example.com", "newPassword1", user1.getRole(), true),
+                new User(user1.getId(), "updatedUser2@example.com", "newPassword2", user1.getRole(), true)
+        );
+
+        // When
+        DuplicateUserIdException exception = assertThrows(DuplicateUserIdException.class, () -> userService.updateUsers(updatedUsers));
+
+        // Then
+        assertEquals("Request contains duplicate user ids: [" + user1.getId() + "]", exception.getMessage());
+        verify(userRepository, never()).findAllById(anyList());
+        verify(passwordEncoder, never()).encode(anyString());
+        verify(userRepository, never()).saveAll(anyList());
+    }
+
     @Test
     void testUnsuccessfulBulkSoftDeleteUsers() {
         // Given
@@ -289,16 +633,17 @@ class UserServiceTest {
         User user2 = UserFixture.getInstance().getAdminUser();
 
         List<Long> userIds = Arrays.asList(user1.getId(), user2.getId());
-        List<User> foundUsers = List.of(user1);  // Simulating only one user is found
+        List<UserIdentity> disabledUsers = List.of(userIdentity(user1));  // Simulating only one user is found
 
-        when(userRepository.findAllById(userIds)).thenReturn(foundUsers);
+        when(userRepository.disableAllById(new Long[]{user1.getId(), user2.getId()})).thenReturn(disabledUsers);
 
         // When & Then
-        assertThrows(UserNotFoundException.class, () -> userService.softDeleteUsers(userIds));
+        UserNotFoundException exception = assertThrows(UserNotFoundException.class, () -> userService.softDeleteUsers(userIds));
+        assertTrue(exception.getMessage().contains(String.valueOf(user2.getId())));
 
         //Verification
-        verify(userRepository, times(1)).findAllById(userIds);
-        verify(userRepository, never()).saveAll(anyList());
+        verify(userRepository, times(1)).disableAllById(new Long[]{user1.getId(), user2.getId()});
+        verify(authenticationCache, never()).invalidateAll(anyList());
     }
 
     @Test
@@ -307,26 +652,37 @@ class UserServiceTest {
         User user1 = UserFixture.getInstance().getDefaultUser();
         User user2 = UserFixture.getInstance().getAdminUser();
 
-        List<Long> userIds = Arrays.asList(user1.getId(), user2.getId());
-        List<User> foundUsers = Arrays.asList(user1, user2);
+        // Duplicate ids are only disabled once
+        List<Long> userIds = Arrays.asList(user1.getId(), user2.getId(), user1.getId());
+        List<UserIdentity> disabledUsers = Arrays.asList(userIdentity(user1), userIdentity(user2));
 
-        when(userRepository.findAllById(userIds)).thenReturn(foundUsers);
-        foundUsers.forEach(user -> user.setEnabled(false));
-        when(userRepository.saveAll(foundUsers)).thenReturn(foundUsers);
+        when(userRepository.disableAllById(new Long[]{user1.getId(), user2.getId()})).thenReturn(disabledUsers);
 
         // When
         userService.softDeleteUsers(userIds);
 
         // Then
-        // Verify that the repository's findAllById method was called with the correct user IDs
-        verify(userRepository, times(1)).findAllById(userIds);
+        // Verify that a single set-based update was issued and no entity was loaded or saved
+        verify(userRepository, times(1)).disableAllById(new Long[]{user1.getId(), user2.getId()});
+        verify(userRepository, never()).findAllById(anyList());
+        verify(userRepository, never()).saveAll(anyList());
 
         // Verification
-        verify(userRepository, times(1)).saveAll(foundUsers);
+        verify(authenticationCache, times(1)).invalidateAll(List.of(user1.getUsername(), user2.getUsername()));
+    }
 
-        // Assert that the users were indeed soft deleted (enabled set to false)
-        assertFalse(foundUsers.get(0).getEnabled());
-        assertFalse(foundUsers.get(1).getEnabled());
+    private UserIdentity userIdentity(User user) {
+        return new UserIdentity() {
+            @Override
+            public Long getId() {
+                return user.getId();
+            }
+
+            @Override
+            public String getUsername() {
+                return user.getUsername();
+            }
+        };
     }
 
 
@@ -354,4 +710,18 @@ class UserServiceTest {
         verify(userRepository, times(1)).findByUsernameIn(usernames);
     }
 
+    @Test
+    void testFindExistingUsernamesOnlyQueriesPossibleMatches() {
+        // Given
+        when(usernameFilter.mightContain("user1")).thenReturn(false);
+        when(usernameFilter.mightContain("user2")).thenReturn(false);
+
+        // When
+        List<String> existingUsernames = userService.findExistingUsernames(Arrays.asList("user1", "user2"));
+
+        // Then
+        assertTrue(existingUsernames.isEmpty());
+        verify(userRepository, never()).findByUsernameIn(anyList());
+    }
+
 }
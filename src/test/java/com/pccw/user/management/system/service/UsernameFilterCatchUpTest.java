@@ -0,0 +1,102 @@
+package com.pccw.user.management.system.service;
+
+import com.pccw.usermanagementsystem.UserManagementSystemApplication;
+import com.pccw.usermanagementsystem.entity.User;
+import com.pccw.usermanagementsystem.entity.enums.Role;
+import com.pccw.usermanagementsystem.exception.UserAlreadyExistsException;
+import com.pccw.usermanagementsystem.service.UserService;
+import com.pccw.usermanagementsystem.service.UsernameFilter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Rows written straight through JDBC stand in for registrations made by another instance.
+// The scheduled catch-up is pushed out so only the explicit calls below run it
+@SpringBootTest(classes = UserManagementSystemApplication.class, properties = {
+        "app.username-filter.catch-up-interval=PT1H",
+        "app.user-cache.enabled=false",
+        "app.email.outbox.dispatcher.enabled=false",
+        "app.user-jobs.runner.enabled=false"})
+class UsernameFilterCatchUpTest {
+
+    private static final String PREFIX = "catch-up-test-";
+
+    @Autowired
+    private UsernameFilter usernameFilter;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        usernameFilter.rebuild();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM email_outbox WHERE recipient LIKE ?", PREFIX + "%");
+        jdbcTemplate.update("DELETE FROM users WHERE username LIKE ?", PREFIX + "%");
+    }
+
+    @Test
+    void testCatchUpAddsUsernamesRegisteredElsewhere() {
+        // Given
+        String username = PREFIX + "elsewhere@example.com";
+        insertElsewhere(username);
+        assertFalse(usernameFilter.mightContain(username));
+
+        // When
+        usernameFilter.catchUp();
+
+        // Then
+        assertTrue(usernameFilter.mightContain(username));
+        assertFalse(userService.isUsernameAvailable(username));
+    }
+
+    @Test
+    void testCatchUpAddsUsernamesRenamedElsewhere() {
+        // Given
+        String original = PREFIX + "original@example.com";
+        String renamed = PREFIX + "renamed@example.com";
+        insertElsewhere(original);
+        usernameFilter.catchUp();
+        jdbcTemplate.update("UPDATE users SET username = ? WHERE username = ?", renamed, original);
+        assertFalse(usernameFilter.mightContain(renamed));
+
+        // When
+        usernameFilter.catchUp();
+
+        // Then
+        assertTrue(usernameFilter.mightContain(renamed));
+    }
+
+    @Test
+    void testBulkRegistrationOfUsernameTheFilterMissedIsConflict() {
+        // Given
+        String taken = PREFIX + "taken@example.com";
+        insertElsewhere(taken);
+        List<User> users = List.of(
+                new User(null, PREFIX + "fresh@example.com", "defaultPassword", Role.USER, true),
+                new User(null, taken, "defaultPassword", Role.USER, true));
+
+        // When & Then
+        assertThrows(UserAlreadyExistsException.class, () -> userService.registerUsers(users));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM users WHERE username = ?",
+                Long.class, PREFIX + "fresh@example.com"));
+    }
+
+    private void insertElsewhere(String username) {
+        jdbcTemplate.update("INSERT INTO users (username, password, role, enabled) VALUES (?, 'hash', 'USER', true)", username);
+    }
+}
@@ -0,0 +1,140 @@
+package com.pccw.user.management.system.service;
+
+import com.pccw.usermanagementsystem.datasource.ReadRouting;
+import com.pccw.usermanagementsystem.datasource.ReplicaProperties;
+import com.pccw.usermanagementsystem.repository.UserRepository;
+import com.pccw.usermanagementsystem.service.UsernameFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UsernameFilterTest {
+
+    private UserRepository userRepository;
+    private UsernameFilter usernameFilter;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        usernameFilter = new UsernameFilter(userRepository, new ReadRouting(new ReplicaProperties()), mock(PlatformTransactionManager.class), true, 1000, 0.01, Duration.ZERO, Duration.ofMinutes(1));
+        when(userRepository.currentDatabaseTime()).thenReturn(Instant.EPOCH);
+    }
+
+    @Test
+    void testEveryUsernameMightExistBeforeFirstBuild() {
+        // When & Then
+        assertTrue(usernameFilter.mightContain("anyone@example.com"));
+        assertEquals(0, usernameFilter.getDefinitelyAbsentCount());
+    }
+
+    @Test
+    void testRebuildContainsEveryStoredUsername() {
+        // Given
+        List<String> usernames = IntStream.range(0, 1000).mapToObj(i -> "user" + i + "@example.com").toList();
+        when(userRepository.count()).thenReturn((long) usernames.size());
+        when(userRepository.streamAllUsernames()).thenReturn(usernames.stream());
+
+        // When
+        usernameFilter.rebuild();
+
+        // Then
+        assertTrue(usernames.stream().allMatch(usernameFilter::mightContain));
+        assertEquals(1000, usernameFilter.getApproximateSize());
+
+        long falsePositives = IntStream.range(0, 10_000)
+                .filter(i -> usernameFilter.mightContain("absent" + i + "@example.com"))
+                .count();
+        // Sized for 2000 entries at 1%, so well under 1% with 1000 in it
+        assertTrue(falsePositives < 100, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void testPutAfterRebuild() {
+        // Given
+        when(userRepository.streamAllUsernames()).thenReturn(Stream.of("default@example.com"));
+        usernameFilter.rebuild();
+        assertFalse(usernameFilter.mightContain("new@example.com"));
+
+        // When
+        usernameFilter.put("new@example.com");
+
+        // Then
+        assertTrue(usernameFilter.mightContain("new@example.com"));
+        assertEquals(1, usernameFilter.getDefinitelyAbsentCount());
+    }
+
+    @Test
+    void testFailedRebuildKeepsPreviousFilter() {
+        // Given
+        when(userRepository.streamAllUsernames()).thenReturn(Stream.of("default@example.com"));
+        usernameFilter.rebuild();
+        when(userRepository.streamAllUsernames()).thenThrow(new IllegalStateException("connection refused"));
+
+        // When
+        usernameFilter.rebuild();
+
+        // Then
+        assertTrue(usernameFilter.mightContain("default@example.com"));
+        assertFalse(usernameFilter.mightContain("new@example.com"));
+    }
+
+    @Test
+    void testCatchUpBeforeFirstBuildDoesNothing() {
+        // When
+        usernameFilter.catchUp();
+
+        // Then
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void testCatchUpAddsUsernamesChangedSinceOverlapBeforeLastRead() {
+        // Given
+        Instant rebuiltAt = Instant.parse("2024-05-01T10:00:00Z");
+        Instant caughtUpAt = rebuiltAt.plusSeconds(5);
+        when(userRepository.currentDatabaseTime()).thenReturn(rebuiltAt, caughtUpAt);
+        when(userRepository.streamAllUsernames()).thenReturn(Stream.of("default@example.com"));
+        usernameFilter.rebuild();
+        when(userRepository.findUsernamesChangedSince(any())).thenReturn(List.of("default@example.com", "elsewhere@example.com"));
+
+        // When
+        usernameFilter.catchUp();
+        usernameFilter.catchUp();
+
+        // Then
+        assertTrue(usernameFilter.mightContain("elsewhere@example.com"));
+        // Names read again because of the overlap are not counted twice
+        assertEquals(2, usernameFilter.getApproximateSize());
+        verify(userRepository).findUsernamesChangedSince(rebuiltAt.minus(Duration.ofMinutes(1)));
+        verify(userRepository).findUsernamesChangedSince(caughtUpAt.minus(Duration.ofMinutes(1)));
+    }
+
+    @Test
+    void testFailedCatchUpRetriesFromSamePoint() {
+        // Given
+        Instant rebuiltAt = Instant.parse("2024-05-01T10:00:00Z");
+        when(userRepository.currentDatabaseTime()).thenReturn(rebuiltAt, rebuiltAt.plusSeconds(5));
+        when(userRepository.streamAllUsernames()).thenReturn(Stream.of("default@example.com"));
+        usernameFilter.rebuild();
+        when(userRepository.findUsernamesChangedSince(any()))
+                .thenThrow(new IllegalStateException("connection refused"))
+                .thenReturn(List.of("elsewhere@example.com"));
+
+        // When
+        usernameFilter.catchUp();
+        usernameFilter.catchUp();
+
+        // Then
+        assertTrue(usernameFilter.mightContain("elsewhere@example.com"));
+        verify(userRepository, times(2)).findUsernamesChangedSince(rebuiltAt.minus(Duration.ofMinutes(1)));
+    }
+}
@@ -0,0 +1,113 @@
+package com.pccw.user.management.system.service.email;
+
+import com.pccw.usermanagementsystem.entity.EmailOutboxMessage;
+import com.pccw.usermanagementsystem.entity.enums.OutboxStatus;
+import com.pccw.usermanagementsystem.repository.EmailOutboxRepository;
+import com.pccw.usermanagementsystem.service.email.EmailOutboxDispatcher;
+import com.pccw.usermanagementsystem.service.email.EmailService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.mail.MailSendException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class EmailOutboxDispatcherTest {
+
+    private EmailOutboxRepository emailOutboxRepository;
+    private EmailService emailService;
+    private EmailOutboxDispatcher emailOutboxDispatcher;
+
+    @BeforeEach
+    void setUp() {
+        emailOutboxRepository = mock(EmailOutboxRepository.class);
+        emailService = mock(EmailService.class);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+        emailOutboxDispatcher = new EmailOutboxDispatcher(emailOutboxRepository, emailService, transactionTemplate,
+                new SimpleAsyncTaskExecutor(),
+                10, 3, Duration.ofMinutes(5), Duration.ofSeconds(10), Duration.ofSeconds(30));
+    }
+
+    private EmailOutboxMessage pendingMessage(long id, int attempts) {
+        EmailOutboxMessage message = new EmailOutboxMessage("default@example.com", "Welcome!", "Thank you for registering!", LocalDateTime.now());
+        message.setId(id);
+        message.setAttempts(attempts);
+        return message;
+    }
+
+    @Test
+    void testDeliveredMessageIsMarkedSent() {
+        // Given
+        EmailOutboxMessage message = pendingMessage(1L, 0);
+        when(emailOutboxRepository.lockDueMessages(any(LocalDateTime.class), eq(10))).thenReturn(List.of(message));
+
+        // When
+        emailOutboxDispatcher.dispatchDueMessages();
+
+        // Then
+        assertEquals(1, message.getAttempts());
+        verify(emailService, times(1)).sendWelcomeEmail("default@example.com", "Welcome!", "Thank you for registering!");
+        verify(emailOutboxRepository, times(1)).markSent(eq(1L), any(LocalDateTime.class));
+        verify(emailOutboxRepository, never()).markFailed(anyLong(), any(), any(), any());
+    }
+
+    @Test
+    void testFailedDeliveryIsRescheduledWithBackoff() {
+        // Given
+        EmailOutboxMessage message = pendingMessage(1L, 1);
+        when(emailOutboxRepository.lockDueMessages(any(LocalDateTime.class), eq(10))).thenReturn(List.of(message));
+        doThrow(new MailSendException("Connection refused")).when(emailService).sendWelcomeEmail(anyString(), anyString(), anyString());
+        LocalDateTime before = LocalDateTime.now();
+
+        // When
+        emailOutboxDispatcher.dispatchDueMessages();
+
+        // Then
+        ArgumentCaptor<LocalDateTime> nextAttemptAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(emailOutboxRepository, times(1)).markFailed(eq(1L), eq(OutboxStatus.PENDING), nextAttemptAt.capture(), eq("Connection refused"));
+        // second attempt backs off 2 * 10s
+        assertFalse(nextAttemptAt.getValue().isBefore(before.plusSeconds(20)));
+        verify(emailOutboxRepository, never()).markSent(anyLong(), any());
+    }
+
+    @Test
+    void testMessageIsDeadLetteredAfterMaxAttempts() {
+        // Given
+        EmailOutboxMessage message = pendingMessage(1L, 2);
+        when(emailOutboxRepository.lockDueMessages(any(LocalDateTime.class), eq(10))).thenReturn(List.of(message));
+        doThrow(new MailSendException("Connection refused")).when(emailService).sendWelcomeEmail(anyString(), anyString(), anyString());
+
+        // When
+        emailOutboxDispatcher.dispatchDueMessages();
+
+        // Then
+        verify(emailOutboxRepository, times(1)).markFailed(eq(1L), eq(OutboxStatus.DEAD), any(LocalDateTime.class), anyString());
+    }
+
+    @Test
+    void testMessageWhoseLastAttemptNeverReportedBackIsDeadLettered() {
+        // Given
+        // Claimed for its third and last attempt by an instance that died; the lease has run out
+        EmailOutboxMessage message = pendingMessage(1L, 3);
+        when(emailOutboxRepository.lockDueMessages(any(LocalDateTime.class), eq(10))).thenReturn(List.of(message));
+
+        // When
+        emailOutboxDispatcher.dispatchDueMessages();
+
+        // Then
+        assertEquals(OutboxStatus.DEAD, message.getStatus());
+        assertEquals(3, message.getAttempts());
+        verify(emailService, never()).sendWelcomeEmail(anyString(), anyString(), anyString());
+        verify(emailOutboxRepository, never()).markSent(anyLong(), any());
+    }
+}
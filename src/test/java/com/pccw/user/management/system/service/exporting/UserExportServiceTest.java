@@ -0,0 +1,80 @@
+package com.pccw.user.management.system.service.exporting;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pccw.usermanagementsystem.entity.enums.Role;
+import com.pccw.usermanagementsystem.mapper.UserMapper;
+import com.pccw.usermanagementsystem.repository.UserRepository;
+import com.pccw.usermanagementsystem.repository.projection.UserSummary;
+import com.pccw.usermanagementsystem.service.exporting.ExportFormat;
+import com.pccw.usermanagementsystem.service.exporting.UserExportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UserExportServiceTest {
+
+    private UserRepository userRepository;
+    private PlatformTransactionManager transactionManager;
+    private UserExportService userExportService;
+
+    private final AtomicBoolean streamClosed = new AtomicBoolean();
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        userExportService = new UserExportService(userRepository, new UserMapper(), new ObjectMapper(), transactionManager);
+
+        when(userRepository.streamAllSummaries()).thenReturn(Stream.of(
+                new UserSummary(1L, "default@example.com", Role.USER, true),
+                new UserSummary(2L, "admin@example.com", Role.ADMIN, false)
+        ).onClose(() -> streamClosed.set(true)));
+    }
+
+    @Test
+    void testExportAsNdjson() {
+        // Given
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // When
+        userExportService.exportUsers(ExportFormat.NDJSON, output);
+
+        // Then
+        assertEquals("""
+                {"id":1,"username":"default@example.com","role":"user","enabled":true}
+                {"id":2,"username":"admin@example.com","role":"admin","enabled":false}
+                """, output.toString(StandardCharsets.UTF_8));
+        assertTrue(streamClosed.get());
+    }
+
+    @Test
+    void testExportAsCsvRunsInReadOnlyTransaction() {
+        // Given
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // When
+        userExportService.exportUsers(ExportFormat.CSV, output);
+
+        // Then
+        assertEquals("""
+                id,username,role,enabled
+                1,default@example.com,user,true
+                2,admin@example.com,admin,false
+                """, output.toString(StandardCharsets.UTF_8));
+
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager, times(1)).getTransaction(definition.capture());
+        assertTrue(definition.getValue().isReadOnly());
+        assertTrue(streamClosed.get());
+    }
+}
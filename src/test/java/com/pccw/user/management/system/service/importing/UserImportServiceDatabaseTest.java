@@ -0,0 +1,123 @@
+package com.pccw.user.management.system.service.importing;
+
+import com.pccw.usermanagementsystem.UserManagementSystemApplication;
+import com.pccw.usermanagementsystem.dto.RegistrationStatus;
+import com.pccw.usermanagementsystem.dto.UserImportIssueDTO;
+import com.pccw.usermanagementsystem.dto.UserImportResultDTO;
+import com.pccw.usermanagementsystem.service.importing.ImportFormat;
+import com.pccw.usermanagementsystem.service.importing.UserImportService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The staging, merge and outbox statements against the real database; UserImportServiceTest covers parsing.
+// Two rows per chunk, so the file below is staged in several separately committed copies
+@SpringBootTest(classes = UserManagementSystemApplication.class, properties = {
+        "app.import.chunk-size=2",
+        "app.security.password.bcrypt-strength=4",
+        "app.username-filter.enabled=false",
+        "app.user-cache.enabled=false",
+        "app.email.outbox.dispatcher.enabled=false",
+        "app.user-jobs.runner.enabled=false"})
+class UserImportServiceDatabaseTest {
+
+    private static final String DOMAIN = "@import-db-test.example.com";
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM email_outbox WHERE recipient LIKE ?", "%" + DOMAIN);
+        jdbcTemplate.update("DELETE FROM users WHERE username LIKE ?", "%" + DOMAIN);
+    }
+
+    @Test
+    void testCsvImportMergesNewRowsAndReportsTheRest() throws Exception {
+        // Given
+        jdbcTemplate.update("INSERT INTO users (username, password, role, enabled) VALUES (?, 'hash', 'USER', true)",
+                "existing" + DOMAIN);
+        // A quoted local part holding a comma and escaped quotes must survive the COPY CSV quoting
+        String quoted = "\"smith,\\\"john\\\"\"" + DOMAIN;
+        String csv = "username,password,role,enabled\n" +
+                "first" + DOMAIN + ",secret123,user,true\n" +
+                "existing" + DOMAIN + ",secret123,user,true\n" +
+                csvField(quoted) + ",\"se,\"\"cret\",admin,false\n" +
+                "first" + DOMAIN + ",other123,admin,true\n" +
+                "second" + DOMAIN + ",secret456,user,true\n";
+
+        // When
+        UserImportResultDTO result = userImportService.importUsers(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), ImportFormat.CSV);
+
+        // Then
+        assertEquals(5, result.getReceived());
+        assertEquals(3, result.getCreated());
+        assertEquals(1, result.getAlreadyExists());
+        assertEquals(1, result.getInvalid());
+        assertEquals(List.of(3L, 5L), result.getIssues().stream().map(UserImportIssueDTO::getLine).toList());
+        assertEquals(RegistrationStatus.ALREADY_EXISTS, result.getIssues().get(0).getStatus());
+        assertEquals(List.of("username: duplicate of an earlier line"), result.getIssues().get(1).getErrors());
+
+        // The first line of a duplicated username wins
+        assertTrue(passwordEncoder.matches("secret123", storedHash("first" + DOMAIN)));
+        assertTrue(passwordEncoder.matches("se,\"cret", storedHash(quoted)));
+        assertEquals("ADMIN", jdbcTemplate.queryForObject("SELECT role FROM users WHERE username = ?", String.class, quoted));
+        assertEquals("hash", storedHash("existing" + DOMAIN));
+
+        assertEquals(List.of("first" + DOMAIN, quoted, "second" + DOMAIN), jdbcTemplate.queryForList(
+                "SELECT recipient FROM email_outbox WHERE recipient LIKE ? ORDER BY id", String.class, "%" + DOMAIN));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM user_import_rows", Long.class));
+    }
+
+    @Test
+    void testUploadBrokenOffAfterStagedChunksCreatesNothing() {
+        // Given
+        String csv = "username,password,role,enabled\n" +
+                "first" + DOMAIN + ",secret123,user,true\n" +
+                "second" + DOMAIN + ",secret123,user,true\n" +
+                "third" + DOMAIN + ",secret123,user,true\n" +
+                "fourth" + DOMAIN + ",secret123,user,true\n" +
+                "fifth" + DOMAIN + ",secret123,user,true\n";
+        byte[] bytes = csv.getBytes(StandardCharsets.UTF_8);
+        InputStream brokenOff = new SequenceInputStream(new ByteArrayInputStream(bytes, 0, csv.indexOf("fifth")), new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("Connection reset by peer");
+            }
+        });
+
+        // When & Then
+        assertThrows(IOException.class, () -> userImportService.importUsers(brokenOff, ImportFormat.CSV));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM users WHERE username LIKE ?", Long.class, "%" + DOMAIN));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM user_import_rows", Long.class));
+    }
+
+    private static String csvField(String value) {
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    private String storedHash(String username) {
+        return jdbcTemplate.queryForObject("SELECT password FROM users WHERE username = ?", String.class, username);
+    }
+}
@@ -0,0 +1,154 @@
+package com.pccw.user.management.system.service.importing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pccw.usermanagementsystem.datasource.ReadRouting;
+import com.pccw.usermanagementsystem.dto.RegistrationStatus;
+import com.pccw.usermanagementsystem.dto.UserImportResultDTO;
+import com.pccw.usermanagementsystem.exception.InvalidImportException;
+import com.pccw.usermanagementsystem.service.PasswordHashingService;
+import com.pccw.usermanagementsystem.service.UsernameFilter;
+import com.pccw.usermanagementsystem.service.importing.ImportFormat;
+import com.pccw.usermanagementsystem.service.importing.UserImportService;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class UserImportServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private CopyIn copyIn;
+    private PasswordHashingService passwordHashingService;
+    private UserImportService userImportService;
+
+    // Everything the service streams through COPY
+    private final ByteArrayOutputStream copied = new ByteArrayOutputStream();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        copyIn = mock(CopyIn.class);
+        Connection connection = mock(Connection.class);
+        PGConnection pgConnection = mock(PGConnection.class);
+        CopyManager copyManager = mock(CopyManager.class);
+
+        when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        when(pgConnection.getCopyAPI()).thenReturn(copyManager);
+        when(copyManager.copyIn(anyString())).thenReturn(copyIn);
+        doAnswer(invocation -> {
+            copied.write(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2));
+            return null;
+        }).when(copyIn).writeToCopy(any(byte[].class), anyInt(), anyInt());
+        when(jdbcTemplate.execute(ArgumentMatchers.<ConnectionCallback<Void>>any()))
+                .thenAnswer(invocation -> invocation.<ConnectionCallback<?>>getArgument(0).doInConnection(connection));
+
+        PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+        when(passwordEncoder.encode(anyString())).thenAnswer(invocation -> "hash-" + invocation.getArgument(0));
+        passwordHashingService = new PasswordHashingService(passwordEncoder, 2, 32, Duration.ofSeconds(2));
+
+        userImportService = new UserImportService(jdbcTemplate, mock(PlatformTransactionManager.class), new ObjectMapper(),
+                Validation.buildDefaultValidatorFactory().getValidator(), passwordHashingService, mock(UsernameFilter.class),
+                mock(ReadRouting.class), 2, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        passwordHashingService.shutdown();
+    }
+
+    private InputStream file(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // What was copied, without the import id that starts every row
+    private String copiedRows() {
+        return copied.toString(StandardCharsets.UTF_8).replaceAll("(?m)^[0-9a-f-]{36},", "");
+    }
+
+    @Test
+    void testCsvImportStreamsValidRowsInChunksAndReportsInvalidOnes() throws Exception {
+        // Given
+        String csv = """
+                enabled,role,username,password
+                true,user,first@example.com,secret123
+
+                false,admin,second@example.com,"se,""cret"
+                true,user,not-an-email,secret123
+                true,owner,third@example.com,secret123
+                true,user,fourth@example.com,secret123
+                """;
+        when(jdbcTemplate.update(contains("INSERT INTO users"), any(UUID.class), any(UUID.class))).thenReturn(3);
+
+        // When
+        UserImportResultDTO result = userImportService.importUsers(file(csv), ImportFormat.CSV);
+
+        // Then
+        // Hashed passwords and line numbers reach COPY, quoted; the blank line is skipped but still counted
+        assertEquals("""
+                2,"first@example.com","hash-secret123",USER,true
+                4,"second@example.com","hash-se,""cret",ADMIN,false
+                7,"fourth@example.com","hash-secret123",USER,true
+                """, copiedRows());
+        // Chunk size is 2, so three valid rows take two copies, each committed on its own
+        verify(copyIn, times(2)).writeToCopy(any(byte[].class), anyInt(), anyInt());
+        verify(copyIn, times(2)).endCopy();
+        // Staged rows are removed once the import is merged
+        verify(jdbcTemplate, times(1)).update(startsWith("DELETE FROM user_import_rows WHERE import_id"), any(UUID.class));
+
+        assertEquals(5, result.getReceived());
+        assertEquals(3, result.getCreated());
+        assertEquals(2, result.getInvalid());
+        assertEquals(List.of(5L, 6L), result.getIssues().stream().map(issue -> issue.getLine()).toList());
+        assertEquals(RegistrationStatus.INVALID, result.getIssues().get(1).getStatus());
+        assertEquals(List.of("role: Unknown role value: owner"), result.getIssues().get(1).getErrors());
+        assertFalse(result.isIssuesTruncated());
+    }
+
+    @Test
+    void testNdjsonImportReportsMalformedLines() throws Exception {
+        // Given
+        String ndjson = """
+                {"username":"first@example.com","password":"secret123","role":"user","enabled":true}
+                {"username":"second@example.com"
+                """;
+
+        // When
+        UserImportResultDTO result = userImportService.importUsers(file(ndjson), ImportFormat.NDJSON);
+
+        // Then
+        assertEquals("1,\"first@example.com\",\"hash-secret123\",USER,true\n", copiedRows());
+        assertEquals(2, result.getReceived());
+        assertEquals(1, result.getInvalid());
+        assertEquals(2L, result.getIssues().get(0).getLine());
+        assertTrue(result.getIssues().get(0).getErrors().get(0).startsWith("Malformed row"));
+    }
+
+    @Test
+    void testCsvWithoutRequiredColumnsIsRejected() {
+        // When & Then
+        assertThrows(InvalidImportException.class,
+                () -> userImportService.importUsers(file("username,password\na@example.com,secret123\n"), ImportFormat.CSV));
+        verify(jdbcTemplate, never()).execute(ArgumentMatchers.<ConnectionCallback<Void>>any());
+    }
+}
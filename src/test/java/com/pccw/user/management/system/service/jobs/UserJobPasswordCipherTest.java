@@ -0,0 +1,46 @@
+package com.pccw.user.management.system.service.jobs;
+
+import com.pccw.usermanagementsystem.service.jobs.UserJobPasswordCipher;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserJobPasswordCipherTest {
+
+    private static final String KEY = Base64.getEncoder().encodeToString(new byte[32]);
+
+    private final UserJobPasswordCipher passwordCipher = new UserJobPasswordCipher(KEY);
+
+    @Test
+    void testEncryptedPasswordDecryptsForTheSameItem() {
+        // Given
+        UUID jobId = UUID.randomUUID();
+
+        // When
+        String encrypted = passwordCipher.encrypt(jobId, 3, "password123");
+
+        // Then
+        assertNotEquals("password123", encrypted);
+        // A fresh IV every time
+        assertNotEquals(encrypted, passwordCipher.encrypt(jobId, 3, "password123"));
+        assertEquals(Optional.of("password123"), passwordCipher.decrypt(jobId, 3, encrypted));
+        assertEquals(Optional.of("password123"), new UserJobPasswordCipher(KEY).decrypt(jobId, 3, encrypted));
+    }
+
+    @Test
+    void testEncryptedPasswordDoesNotDecryptElsewhere() {
+        // Given
+        UUID jobId = UUID.randomUUID();
+        String encrypted = passwordCipher.encrypt(jobId, 3, "password123");
+
+        // When & Then
+        assertEquals(Optional.empty(), passwordCipher.decrypt(jobId, 4, encrypted));
+        assertEquals(Optional.empty(), passwordCipher.decrypt(UUID.randomUUID(), 3, encrypted));
+        assertEquals(Optional.empty(), new UserJobPasswordCipher("").decrypt(jobId, 3, encrypted));
+        assertEquals(Optional.empty(), passwordCipher.decrypt(jobId, 3, "not base64!"));
+    }
+}
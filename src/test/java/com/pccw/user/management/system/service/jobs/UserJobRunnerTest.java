@@ -0,0 +1,204 @@
+package com.pccw.user.management.system.service.jobs;
+
+import com.pccw.usermanagementsystem.entity.User;
+import com.pccw.usermanagementsystem.entity.UserJob;
+import com.pccw.usermanagementsystem.entity.enums.Role;
+import com.pccw.usermanagementsystem.entity.enums.UserJobItemStatus;
+import com.pccw.usermanagementsystem.entity.enums.UserJobType;
+import com.pccw.usermanagementsystem.repository.UserJobItem;
+import com.pccw.usermanagementsystem.repository.UserJobItemRepository;
+import com.pccw.usermanagementsystem.repository.UserJobRepository;
+import com.pccw.usermanagementsystem.repository.UserRepository;
+import com.pccw.usermanagementsystem.service.UserService;
+import com.pccw.usermanagementsystem.service.jobs.UserJobPasswordCipher;
+import com.pccw.usermanagementsystem.service.jobs.UserJobRunner;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class UserJobRunnerTest {
+
+    private UserJobRepository userJobRepository;
+    private UserJobItemRepository userJobItemRepository;
+    private UserRepository userRepository;
+    private UserService userService;
+    private UserJobRunner userJobRunner;
+
+    private final UserJobPasswordCipher passwordCipher = new UserJobPasswordCipher("");
+
+    // Every result passed to saveResults, in order
+    private final List<UserJobItem> storedResults = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        userJobRepository = mock(UserJobRepository.class);
+        userJobItemRepository = mock(UserJobItemRepository.class);
+        userRepository = mock(UserRepository.class);
+        userService = mock(UserService.class);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        doAnswer(invocation -> storedResults.addAll(invocation.getArgument(1)))
+                .when(userJobItemRepository).saveResults(any(), anyList());
+
+        userJobRunner = new UserJobRunner(userJobRepository, userJobItemRepository, userRepository, userService,
+                passwordCipher, transactionTemplate, 1, 500, Duration.ofMinutes(2), Duration.ofSeconds(30), Duration.ofDays(7));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        userJobRunner.shutdown();
+    }
+
+    // As stored on submission, with the password encrypted
+    private UserJobItem storedItem(UserJob job, int index, Long userId, String username) {
+        return UserJobItem.pending(index, userId, username, passwordCipher.encrypt(job.getId(), index, "password123"), Role.USER, true);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRegisterJobMarksTakenUsernamesFailed() {
+        // Given
+        UserJob job = new UserJob(UserJobType.REGISTER, 2, 0, LocalDateTime.now());
+        List<UserJobItem> items = List.of(
+                storedItem(job, 0, null, "new@example.com"),
+                storedItem(job, 1, null, "taken@example.com"));
+        when(userJobItemRepository.lockPending(job.getId(), 500)).thenReturn(items, List.of());
+        when(userService.registerUsersSkippingExisting(anyList()))
+                .thenReturn(List.of(new User(7L, "new@example.com", "hash", Role.USER, true)));
+
+        // When
+        userJobRunner.run(job);
+
+        // Then
+        ArgumentCaptor<List<User>> registered = ArgumentCaptor.forClass(List.class);
+        verify(userService).registerUsersSkippingExisting(registered.capture());
+        assertEquals("password123", registered.getValue().get(0).getPassword());
+        assertEquals(UserJobItemStatus.SUCCEEDED, storedResults.get(0).status());
+        assertEquals(7L, storedResults.get(0).userId());
+        assertNull(storedResults.get(0).password());
+        assertEquals(UserJobItemStatus.FAILED, storedResults.get(1).status());
+        assertEquals(List.of("username: already exists"), storedResults.get(1).errors());
+        verify(userJobRepository, times(1)).recordProgress(eq(job.getId()), eq(1), eq(1), any(LocalDateTime.class));
+        verify(userJobRepository, times(1)).markCompleted(eq(job.getId()), any(LocalDateTime.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFailedChunkIsRetriedItemByItem() {
+        // Given
+        UserJob job = new UserJob(UserJobType.UPDATE, 2, 0, LocalDateTime.now());
+        List<UserJobItem> items = List.of(storedItem(job, 0, 1L, "one@example.com"), storedItem(job, 1, 2L, "taken@example.com"));
+        when(userJobItemRepository.lockPending(job.getId(), 500)).thenReturn(items, List.of());
+        when(userRepository.findExistingIds(anyCollection()))
+                .thenAnswer(invocation -> List.copyOf((Collection<Long>) invocation.getArgument(0)));
+        when(userService.updateUsers(anyList())).thenAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            if (users.stream().anyMatch(user -> user.getUsername().equals("taken@example.com"))) {
+                throw new DataIntegrityViolationException("duplicate key value violates unique constraint");
+            }
+            return users;
+        });
+
+        // When
+        userJobRunner.run(job);
+
+        // Then
+        assertEquals(2, storedResults.size());
+        assertEquals(UserJobItemStatus.SUCCEEDED, storedResults.get(0).status());
+        assertEquals(UserJobItemStatus.FAILED, storedResults.get(1).status());
+        assertEquals(List.of("duplicate key value violates unique constraint"), storedResults.get(1).errors());
+        verify(userJobRepository, times(1)).markCompleted(eq(job.getId()), any(LocalDateTime.class));
+    }
+
+    @Test
+    void testItemWithUndecryptablePasswordFailsOnItsOwn() {
+        // Given
+        UserJob job = new UserJob(UserJobType.REGISTER, 2, 0, LocalDateTime.now());
+        // Encrypted under the random key of an instance that has since restarted
+        String foreign = new UserJobPasswordCipher("").encrypt(job.getId(), 1, "password123");
+        List<UserJobItem> items = List.of(
+                storedItem(job, 0, null, "new@example.com"),
+                UserJobItem.pending(1, null, "lost@example.com", foreign, Role.USER, true));
+        when(userJobItemRepository.lockPending(job.getId(), 500)).thenReturn(items, List.of());
+        when(userService.registerUsersSkippingExisting(anyList()))
+                .thenReturn(List.of(new User(7L, "new@example.com", "hash", Role.USER, true)));
+
+        // When
+        userJobRunner.run(job);
+
+        // Then
+        verify(userService, times(1)).registerUsersSkippingExisting(argThat(users -> users.size() == 1));
+        assertEquals(UserJobItemStatus.SUCCEEDED, storedResults.get(0).status());
+        assertEquals(List.of("password: could not be decrypted, submit the item again"), storedResults.get(1).errors());
+    }
+
+    @Test
+    void testSoftDeleteJobMarksMissingUsersFailed() {
+        // Given
+        UserJob job = new UserJob(UserJobType.SOFT_DELETE, 2, 0, LocalDateTime.now());
+        List<UserJobItem> items = List.of(
+                UserJobItem.pending(0, 1L, null, null, null, null),
+                UserJobItem.pending(1, 99L, null, null, null, null));
+        when(userJobItemRepository.lockPending(job.getId(), 500)).thenReturn(items, List.of());
+        when(userRepository.findExistingIds(anyCollection())).thenReturn(List.of(1L));
+
+        // When
+        userJobRunner.run(job);
+
+        // Then
+        verify(userService, times(1)).softDeleteUsers(List.of(1L));
+        assertEquals(UserJobItemStatus.SUCCEEDED, storedResults.get(0).status());
+        assertEquals(List.of("User not found with id 99"), storedResults.get(1).errors());
+    }
+
+    @Test
+    void testTransientFailureReleasesTheJobForRetry() {
+        // Given
+        UserJob job = new UserJob(UserJobType.SOFT_DELETE, 1, 0, LocalDateTime.now());
+        when(userJobItemRepository.lockPending(job.getId(), 500))
+                .thenThrow(new TransientDataAccessResourceException("Connection refused"));
+        LocalDateTime before = LocalDateTime.now();
+
+        // When
+        userJobRunner.run(job);
+
+        // Then
+        ArgumentCaptor<LocalDateTime> retryAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(userJobRepository, times(1)).releaseLease(eq(job.getId()), retryAt.capture(), eq("Connection refused"));
+        assertFalse(retryAt.getValue().isBefore(before.plusSeconds(30)));
+        verify(userJobRepository, never()).markCompleted(any(), any());
+        assertTrue(storedResults.isEmpty());
+    }
+
+    @Test
+    void testExhaustedConnectionPoolMidChunkReleasesTheJobForRetry() {
+        // Given
+        UserJob job = new UserJob(UserJobType.REGISTER, 1, 0, LocalDateTime.now());
+        when(userJobItemRepository.lockPending(job.getId(), 500)).thenReturn(List.of(storedItem(job, 0, null, "new@example.com")));
+        when(userService.registerUsersSkippingExisting(anyList()))
+                .thenThrow(new DataAccessResourceFailureException("Connection is not available, request timed out after 5000ms."));
+
+        // When
+        userJobRunner.run(job);
+
+        // Then
+        verify(userJobRepository, times(1)).releaseLease(eq(job.getId()), any(LocalDateTime.class), anyString());
+        verify(userService, times(1)).registerUsersSkippingExisting(anyList());
+        assertTrue(storedResults.isEmpty());
+    }
+}
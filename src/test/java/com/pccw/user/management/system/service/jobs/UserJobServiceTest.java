@@ -0,0 +1,160 @@
+package com.pccw.user.management.system.service.jobs;
+
+import com.pccw.user.management.system.fixtures.UserRequestDTOFixture;
+import com.pccw.usermanagementsystem.datasource.ReadRouting;
+import com.pccw.usermanagementsystem.datasource.ReplicaProperties;
+import com.pccw.usermanagementsystem.dto.UpdateUserRequestDTO;
+import com.pccw.usermanagementsystem.dto.UserJobDTO;
+import com.pccw.usermanagementsystem.dto.UserJobItemDTO;
+import com.pccw.usermanagementsystem.dto.UserRequestDTO;
+import com.pccw.usermanagementsystem.entity.UserJob;
+import com.pccw.usermanagementsystem.entity.enums.UserJobItemStatus;
+import com.pccw.usermanagementsystem.entity.enums.UserJobStatus;
+import com.pccw.usermanagementsystem.entity.enums.UserJobType;
+import com.pccw.usermanagementsystem.exception.UserJobNotFoundException;
+import com.pccw.usermanagementsystem.repository.UserJobItem;
+import com.pccw.usermanagementsystem.repository.UserJobItemRepository;
+import com.pccw.usermanagementsystem.repository.UserJobRepository;
+import com.pccw.usermanagementsystem.service.jobs.UserJobPasswordCipher;
+import com.pccw.usermanagementsystem.service.jobs.UserJobService;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class UserJobServiceTest {
+
+    private UserJobRepository userJobRepository;
+    private UserJobItemRepository userJobItemRepository;
+    private UserJobService userJobService;
+
+    private final UserJobPasswordCipher passwordCipher = new UserJobPasswordCipher("");
+
+    @BeforeEach
+    void setUp() {
+        userJobRepository = mock(UserJobRepository.class);
+        userJobItemRepository = mock(UserJobItemRepository.class);
+        when(userJobRepository.saveAndFlush(any(UserJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        userJobService = new UserJobService(userJobRepository, userJobItemRepository,
+                new ReadRouting(new ReplicaProperties()), Validation.buildDefaultValidatorFactory().getValidator(), passwordCipher, 100);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<UserJobItem> insertedItems() {
+        ArgumentCaptor<List<UserJobItem>> items = ArgumentCaptor.forClass(List.class);
+        verify(userJobItemRepository, times(1)).insertAll(any(UUID.class), items.capture());
+        return items.getValue();
+    }
+
+    @Test
+    void testSubmitRegistrationsRejectsInvalidAndDuplicateItems() {
+        // Given
+        UserRequestDTO valid = UserRequestDTOFixture.getInstance().getDefaultUserRequestDTO();
+        UserRequestDTO shortPassword = new UserRequestDTO("short@example.com", "abc", "user", true);
+        UserRequestDTO unknownRole = new UserRequestDTO("owner@example.com", "password123", "owner", true);
+        UserRequestDTO duplicate = new UserRequestDTO("default@example.com", "otherPassword", "admin", true);
+
+        // When
+        UserJobDTO job = userJobService.submitRegistrations(List.of(valid, shortPassword, unknownRole, duplicate));
+
+        // Then
+        assertEquals(UserJobType.REGISTER, job.getType());
+        assertEquals(UserJobStatus.QUEUED, job.getStatus());
+        assertEquals(4, job.getTotal());
+        assertEquals(3, job.getProcessed());
+        assertEquals(3, job.getFailed());
+        assertEquals(List.of(1, 2, 3), job.getErrors().stream().map(UserJobItemDTO::getIndex).toList());
+        assertEquals(List.of("password: Password must be at least 6 characters long"), job.getErrors().get(0).getErrors());
+        assertEquals(List.of("role: Unknown role value: owner"), job.getErrors().get(1).getErrors());
+        assertEquals(List.of("username: duplicate of item 0"), job.getErrors().get(2).getErrors());
+
+        List<UserJobItem> items = insertedItems();
+        assertEquals(UserJobItemStatus.PENDING, items.get(0).status());
+        // Rejected items keep no password
+        assertNull(items.get(1).password());
+    }
+
+    @Test
+    void testSubmittedPasswordsAreStoredEncrypted() {
+        // Given
+        UserRequestDTO user = UserRequestDTOFixture.getInstance().getDefaultUserRequestDTO();
+
+        // When
+        UserJobDTO job = userJobService.submitRegistrations(List.of(user));
+
+        // Then
+        String stored = insertedItems().get(0).password();
+        assertNotEquals("defaultPassword", stored);
+        assertFalse(stored.contains("defaultPassword"));
+        assertEquals("defaultPassword", passwordCipher.decrypt(job.getId(), 0, stored).orElseThrow());
+    }
+
+    @Test
+    void testSubmitUpdatesRejectsRepeatedIds() {
+        // Given
+        UpdateUserRequestDTO first = new UpdateUserRequestDTO(1L, "one@example.com", "password123", "user", true);
+        UpdateUserRequestDTO second = new UpdateUserRequestDTO(1L, "uno@example.com", "password123", "user", true);
+
+        // When
+        UserJobDTO job = userJobService.submitUpdates(List.of(first, second));
+
+        // Then
+        assertEquals(UserJobStatus.QUEUED, job.getStatus());
+        assertEquals(1, job.getFailed());
+        assertEquals(List.of("id: duplicate of item 0"), job.getErrors().get(0).getErrors());
+    }
+
+    @Test
+    void testJobWithOnlyRejectedItemsIsCompletedOnSubmission() {
+        // Given
+        UserRequestDTO invalid = new UserRequestDTO("not-an-email", "password123", "user", true);
+
+        // When
+        UserJobDTO job = userJobService.submitRegistrations(List.of(invalid));
+
+        // Then
+        assertEquals(UserJobStatus.COMPLETED, job.getStatus());
+        assertNotNull(job.getFinishedAt());
+        assertEquals(1, job.getProcessed());
+    }
+
+    @Test
+    void testGetJobReportsFailedItems() {
+        // Given
+        UserJob job = new UserJob(UserJobType.SOFT_DELETE, 2, 0, LocalDateTime.now());
+        job.setProcessed(2);
+        job.setSucceeded(1);
+        job.setFailed(1);
+        when(userJobRepository.findById(job.getId())).thenReturn(Optional.of(job));
+        when(userJobItemRepository.findFailed(job.getId(), 100))
+                .thenReturn(List.of(UserJobItem.pending(1, 42L, null, null, null, null).failed(List.of("User not found with id 42"))));
+
+        // When
+        UserJobDTO result = userJobService.getJob(job.getId());
+
+        // Then
+        assertEquals(1, result.getErrors().size());
+        assertEquals(42L, result.getErrors().get(0).getUserId());
+        assertFalse(result.isErrorsTruncated());
+    }
+
+    @Test
+    void testGetUnknownJobThrows() {
+        // Given
+        UUID jobId = UUID.randomUUID();
+        when(userJobRepository.findById(jobId)).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThrows(UserJobNotFoundException.class, () -> userJobService.getJob(jobId));
+    }
+}